@@ -0,0 +1,114 @@
+package it.alexpiex.mie;
+
+import java.util.BitSet;
+
+/**
+ * Esito della validazione di un blocco di valori: due bitmap, una per i valori non validi e
+ * una per quelli vuoti (sottoinsieme dei non validi). Il bit <i>i</i> corrisponde al valore
+ * <i>i</i> dell'input.
+ */
+public final class BatchResult {
+
+    private final Rule rule;
+    private final int size;
+    private final long[] failed;
+    private final long[] empty;
+
+    BatchResult(Rule rule, int size, long[] failed, long[] empty) {
+        this.rule = rule;
+        this.size = size;
+        this.failed = failed;
+        this.empty = empty;
+    }
+
+    static int words(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    public Rule getRule() {
+        return rule;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isValid(int index) {
+        checkIndex(index);
+        return (failed[index >>> 6] & (1L << index)) == 0;
+    }
+
+    /**
+     * Returns VALID, EMPTYORNULL or INVALID for the value at <code>index</code>.
+     */
+    public ValidationStatus getStatus(int index) {
+        checkIndex(index);
+        long bit = 1L << index;
+        if ((failed[index >>> 6] & bit) == 0) {
+            return ValidationStatus.VALID;
+        }
+        return (empty[index >>> 6] & bit) != 0 ? ValidationStatus.EMPTYORNULL : ValidationStatus.INVALID;
+    }
+
+    public int failureCount() {
+        int n = 0;
+        for (long w : failed) {
+            n += Long.bitCount(w);
+        }
+        return n;
+    }
+
+    public boolean hasFailures() {
+        for (long w : failed) {
+            if (w != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of the first failure at or after <code>from</code>, or -1.
+     */
+    public int nextFailure(int from) {
+        if (from < 0) {
+            throw new IndexOutOfBoundsException("from < 0: " + from);
+        }
+        int u = from >>> 6;
+        if (u >= failed.length) {
+            return -1;
+        }
+        long w = failed[u] & (-1L << from);
+        while (true) {
+            if (w != 0) {
+                return (u << 6) + Long.numberOfTrailingZeros(w);
+            }
+            if (++u == failed.length) {
+                return -1;
+            }
+            w = failed[u];
+        }
+    }
+
+    public BitSet getFailures() {
+        return BitSet.valueOf(failed);
+    }
+
+    public BitSet getEmpty() {
+        return BitSet.valueOf(empty);
+    }
+
+    /**
+     * Returns a copy of the failure bitmap, 64 values per word.
+     */
+    public long[] toFailureBitmap() {
+        return failed.clone();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+    }
+
+}
@@ -0,0 +1,129 @@
+package it.alexpiex.mie;
+
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Validazione a blocchi per import massivi (CSV, tabelle di DB): una regola applicata a una
+ * colonna di valori, esito in bitmap. I blocchi grandi sono divisi tra i core con fork/join;
+ * ogni task scrive parole distinte delle bitmap, quindi non serve sincronizzazione.
+ */
+public final class BatchValidator {
+
+    /** Valori per task sotto cui non conviene piu' dividere. Multiplo di 64. */
+    public static final int DEFAULT_THRESHOLD = 8192;
+
+    private BatchValidator() {
+    }
+
+    public static BatchResult validate(Rule rule, CharSequence[] values) {
+        return validate(rule, values, ForkJoinPool.commonPool());
+    }
+
+    public static BatchResult validate(Rule rule, CharSequence[] values, ForkJoinPool pool) {
+        return run(rule, new Column(values, null, values.length), pool);
+    }
+
+    /**
+     * Validates a list of values. Lists without random access are copied into an array first.
+     */
+    public static BatchResult validate(Rule rule, List<? extends CharSequence> values) {
+        return validate(rule, values, ForkJoinPool.commonPool());
+    }
+
+    public static BatchResult validate(Rule rule, List<? extends CharSequence> values, ForkJoinPool pool) {
+        if (!(values instanceof RandomAccess)) {
+            return validate(rule, values.toArray(new CharSequence[values.size()]), pool);
+        }
+        return run(rule, new Column(null, values, values.size()), pool);
+    }
+
+    private static BatchResult run(Rule rule, Column column, ForkJoinPool pool) {
+        if (rule == null) {
+            throw new IllegalArgumentException("rule is null");
+        }
+        int words = BatchResult.words(column.size);
+        long[] failed = new long[words];
+        long[] empty = new long[words];
+        ValidateTask task = new ValidateTask(rule, column, failed, empty, 0, words);
+        if (column.size <= DEFAULT_THRESHOLD) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+        return new BatchResult(rule, column.size, failed, empty);
+    }
+
+    /**
+     * Accesso uniforme a un array o a una lista ad accesso casuale.
+     */
+    private static final class Column {
+
+        final CharSequence[] array;
+        final List<? extends CharSequence> list;
+        final int size;
+
+        Column(CharSequence[] array, List<? extends CharSequence> list, int size) {
+            this.array = array;
+            this.list = list;
+            this.size = size;
+        }
+
+        CharSequence get(int i) {
+            return array != null ? array[i] : list.get(i);
+        }
+    }
+
+    private static final class ValidateTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final int THRESHOLD_WORDS = DEFAULT_THRESHOLD >>> 6;
+
+        private final Rule rule;
+        private final Column column;
+        private final long[] failed;
+        private final long[] empty;
+        private final int fromWord;
+        private final int toWord;
+
+        ValidateTask(Rule rule, Column column, long[] failed, long[] empty, int fromWord, int toWord) {
+            this.rule = rule;
+            this.column = column;
+            this.failed = failed;
+            this.empty = empty;
+            this.fromWord = fromWord;
+            this.toWord = toWord;
+        }
+
+        @Override
+        protected void compute() {
+            if (toWord - fromWord > THRESHOLD_WORDS) {
+                int mid = (fromWord + toWord) >>> 1;
+                invokeAll(new ValidateTask(rule, column, failed, empty, fromWord, mid),
+                        new ValidateTask(rule, column, failed, empty, mid, toWord));
+                return;
+            }
+            for (int w = fromWord; w < toWord; w++) {
+                int base = w << 6;
+                int end = Math.min(base + 64, column.size);
+                long f = 0;
+                long e = 0;
+                for (int i = base; i < end; i++) {
+                    CharSequence value = column.get(i);
+                    if (InputValidator.isBlank(value)) {
+                        f |= 1L << i;
+                        e |= 1L << i;
+                    } else if (!rule.evaluate(value)) {
+                        f |= 1L << i;
+                    }
+                }
+                failed[w] = f;
+                empty[w] = e;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,273 @@
+package it.alexpiex.mie;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Elenco locale di password compromesse in un filtro di Bloom sugli hash SHA-1, lo stesso
+ * formato degli elenchi pubblici (una riga "HASH:conteggio" per password). Un falso positivo e'
+ * possibile con la probabilita' scelta in costruzione, un falso negativo mai.
+ * <p>
+ * Il filtro si costruisce una volta con {@link #builder(long, double)} e si salva con
+ * {@link #writeTo(Path)}; {@link #open(Path)} lo mappa in memoria, quindi anche con 100 milioni
+ * di password (circa 120 MB all'1%) l'heap non cresce e una verifica costa un SHA-1 e pochi
+ * accessi alla pagina. Le istanze sono immutabili e condivisibili tra thread.
+ */
+public final class BreachedPasswords {
+
+    /** "PWBF" */
+    private static final int MAGIC = 0x50574246;
+    private static final int HEADER = 16;
+    /** Ogni blocco di bit e' al piu' 1 GB, sotto il limite di un ByteBuffer. */
+    private static final int CHUNK_SHIFT = 30;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final ThreadLocal<MessageDigest> SHA1 = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    private final ByteBuffer[] chunks;
+    private final long bits;
+    private final int hashes;
+
+    private BreachedPasswords(ByteBuffer[] chunks, long bits, int hashes) {
+        this.chunks = chunks;
+        this.bits = bits;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Returns a builder sized for <code>expected</code> passwords with the given false positive
+     * probability, e.g. 0.01.
+     */
+    public static Builder builder(long expected, double falsePositives) {
+        if (expected <= 0 || falsePositives <= 0 || falsePositives >= 1) {
+            throw new IllegalArgumentException("expected: " + expected + ", false positives: " + falsePositives);
+        }
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expected * Math.log(falsePositives) / (ln2 * ln2));
+        bits = (bits + 63) & ~63L;
+        int hashes = Math.max(1, (int) Math.round((double) bits / expected * ln2));
+        return new Builder(bits, hashes);
+    }
+
+    /**
+     * Maps a filter written by {@link #writeTo(Path)}; the file stays open until the filter is
+     * garbage collected.
+     */
+    public static BreachedPasswords open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // legge tutta l'intestazione
+            }
+            header.flip();
+            if (header.remaining() < HEADER || header.getInt() != MAGIC) {
+                throw new IOException("not a password filter: " + file);
+            }
+            int hashes = header.getInt();
+            long bits = header.getLong();
+            long bytes = bits >>> 3;
+            if (hashes < 1 || bits <= 0 || channel.size() < HEADER + bytes) {
+                throw new IOException("corrupted password filter: " + file);
+            }
+            ByteBuffer[] chunks = new ByteBuffer[(int) ((bytes + CHUNK_MASK) >>> CHUNK_SHIFT)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = (long) i << CHUNK_SHIFT;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER + start, Math.min(bytes - start, 1L << CHUNK_SHIFT));
+            }
+            return new BreachedPasswords(chunks, bits, hashes);
+        } finally {
+            // la mappatura resta valida anche a canale chiuso
+            channel.close();
+        }
+    }
+
+    /**
+     * True if <code>password</code> is (probably) in the list.
+     */
+    public boolean contains(CharSequence password) {
+        if (password == null) {
+            return false;
+        }
+        MessageDigest sha1 = SHA1.get();
+        return containsSha1(sha1.digest(password.toString().getBytes(UTF_8)));
+    }
+
+    /**
+     * True if the SHA-1 digest of a password is (probably) in the list.
+     */
+    public boolean containsSha1(byte[] digest) {
+        long h1 = hash1(digest);
+        long h2 = hash2(digest);
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            long index = bit >>> 3;
+            byte b = chunks[(int) (index >>> CHUNK_SHIFT)].get((int) (index & CHUNK_MASK));
+            if ((b & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitCount() {
+        return bits;
+    }
+
+    public int hashCount() {
+        return hashes;
+    }
+
+    /**
+     * Writes the filter to <code>file</code>, to be used later with {@link #open(Path)}.
+     */
+    public void writeTo(Path file) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putInt(hashes).putLong(bits);
+            out.write(header.array());
+            byte[] buffer = new byte[64 * 1024];
+            for (ByteBuffer chunk : chunks) {
+                ByteBuffer b = chunk.duplicate();
+                b.clear();
+                while (b.hasRemaining()) {
+                    int n = Math.min(buffer.length, b.remaining());
+                    b.get(buffer, 0, n);
+                    out.write(buffer, 0, n);
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    // doppio hashing (Kirsch-Mitzenmacher): lo SHA-1 e' gia' uniforme, bastano i suoi bit
+    private static long hash1(byte[] digest) {
+        return ByteBuffer.wrap(digest, 0, 8).getLong();
+    }
+
+    private static long hash2(byte[] digest) {
+        return ByteBuffer.wrap(digest, 8, 8).getLong() | 1;
+    }
+
+    public static final class Builder {
+
+        private final long bits;
+        private final int hashes;
+        /** Null dopo build(), che si tiene i blocchi. */
+        private byte[][] chunks;
+
+        private Builder(long bits, int hashes) {
+            this.bits = bits;
+            this.hashes = hashes;
+            long bytes = bits >>> 3;
+            chunks = new byte[(int) ((bytes + CHUNK_MASK) >>> CHUNK_SHIFT)][];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = new byte[(int) Math.min(bytes - ((long) i << CHUNK_SHIFT), 1L << CHUNK_SHIFT)];
+            }
+        }
+
+        public Builder add(CharSequence password) {
+            return addSha1(SHA1.get().digest(password.toString().getBytes(UTF_8)));
+        }
+
+        public Builder addSha1(byte[] digest) {
+            if (digest.length != 20) {
+                throw new IllegalArgumentException("not a SHA-1 digest");
+            }
+            byte[][] chunks = chunks();
+            long h1 = hash1(digest);
+            long h2 = hash2(digest);
+            for (int i = 0; i < hashes; i++) {
+                long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+                long index = bit >>> 3;
+                chunks[(int) (index >>> CHUNK_SHIFT)][(int) (index & CHUNK_MASK)] |= (byte) (1 << (bit & 7));
+            }
+            return this;
+        }
+
+        /**
+         * Adds a SHA-1 digest in hexadecimal, upper or lower case.
+         */
+        public Builder addSha1Hex(CharSequence hex) {
+            if (hex.length() != 40) {
+                throw new IllegalArgumentException("not a SHA-1 digest: " + hex);
+            }
+            byte[] digest = new byte[20];
+            for (int i = 0; i < 20; i++) {
+                int hi = Character.digit(hex.charAt(2 * i), 16);
+                int lo = Character.digit(hex.charAt(2 * i + 1), 16);
+                if (hi < 0 || lo < 0) {
+                    throw new IllegalArgumentException("not a SHA-1 digest: " + hex);
+                }
+                digest[i] = (byte) (hi << 4 | lo);
+            }
+            return addSha1(digest);
+        }
+
+        /**
+         * Adds every line of a list in the "HASH:count" format; the count and blank lines are
+         * ignored.
+         */
+        public Builder addSha1List(Path file) throws IOException {
+            BufferedReader in = Files.newBufferedReader(file, UTF_8);
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    int colon = line.indexOf(':');
+                    String hex = (colon < 0 ? line : line.substring(0, colon)).trim();
+                    if (hex.length() > 0) {
+                        addSha1Hex(hex);
+                    }
+                }
+            } finally {
+                in.close();
+            }
+            return this;
+        }
+
+        /**
+         * Returns the filter. The bit arrays are handed over rather than copied, so that a
+         * filter of 100 million passwords does not need its size twice in the heap: build()
+         * consumes the builder and any later call to it throws IllegalStateException.
+         */
+        public BreachedPasswords build() {
+            byte[][] chunks = chunks();
+            this.chunks = null;
+            ByteBuffer[] buffers = new ByteBuffer[chunks.length];
+            for (int i = 0; i < chunks.length; i++) {
+                // in sola lettura: nessuno tiene piu' gli array, il filtro resta immutabile
+                buffers[i] = ByteBuffer.wrap(chunks[i]).asReadOnlyBuffer();
+            }
+            return new BreachedPasswords(buffers, bits, hashes);
+        }
+
+        private byte[][] chunks() {
+            if (chunks == null) {
+                throw new IllegalStateException("build() already called");
+            }
+            return chunks;
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package it.alexpiex.mie;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Vista {@link CharSequence} riutilizzabile su una porzione di un {@link ByteBuffer} o di un
+ * array: ogni byte e' un carattere ISO-8859-1, senza decodifica ne' copie. Per i validatori
+ * ASCII e' come leggere l'UTF-8: i byte delle sequenze multibyte sono tutti oltre 0x7F e quindi
+ * rifiutati. La vista resta valida finche' non viene riposizionata con wrap.
+ */
+final class ByteSequence implements CharSequence {
+
+    private ByteBuffer buffer;
+    private byte[] array;
+    private int offset;
+    private int length;
+
+    ByteSequence wrap(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.array = null;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    ByteSequence wrap(byte[] array, int offset, int length) {
+        this.buffer = null;
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+        }
+        return (char) (byteAt(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + length);
+        }
+        ByteSequence sub = new ByteSequence();
+        return array != null ? sub.wrap(array, offset + start, end - start) : sub.wrap(buffer, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (byteAt(offset + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * The array holding the bytes, or null for a direct or read-only buffer.
+     */
+    byte[] array() {
+        if (array != null) {
+            return array;
+        }
+        return buffer.hasArray() ? buffer.array() : null;
+    }
+
+    /**
+     * Index in {@link #array()} of the first char.
+     */
+    int arrayOffset() {
+        return array != null ? offset : buffer.arrayOffset() + offset;
+    }
+
+    private byte byteAt(int i) {
+        return array != null ? array[i] : buffer.get(i);
+    }
+
+}
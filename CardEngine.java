@@ -0,0 +1,270 @@
+package it.alexpiex.mie;
+
+import java.util.Arrays;
+
+/**
+ * Riconoscimento del circuito e verifica dei numeri di carta in una sola scansione: le cifre
+ * percorrono un trie dei prefissi IIN, costruito dagli intervalli di {@link CreditCard}, mentre
+ * la somma di Luhn viene calcolata in parallelo per entrambe le parita', perche' la lunghezza
+ * e' nota solo alla fine. Spazi e trattini sono ignorati.
+ * <p>
+ * L'esito e' un <code>int</code> (circuito e flag), letto con i metodi statici:
+ * nessuna allocazione per chiamata. Il motore e' immutabile; nuovi intervalli si aggiungono
+ * con {@link #builder()}. Se due intervalli si sovrappongono vince il prefisso piu' lungo.
+ */
+public final class CardEngine {
+
+    private static final CreditCard[] ISSUERS = CreditCard.values();
+
+    /** Gli stessi formati delle regex di CreditCard. */
+    public static final CardEngine DEFAULT = builder().build();
+
+    /**
+     * DEFAULT piu' gli intervalli introdotti dopo: Mastercard 2221-2720, Discover 622126-622925
+     * e 644-649, JCB 3528-3589 fino a 19 cifre, Visa a 19 cifre.
+     */
+    public static final CardEngine EXTENDED = builder()
+            .range(CreditCard.VISA, "4", "4", 13, 16, 19)
+            .range(CreditCard.MASTER_CARD, "2221", "2720", 16)
+            .range(CreditCard.DISCOVER, "622126", "622925", 16)
+            .range(CreditCard.DISCOVER, "644", "649", 16)
+            .range(CreditCard.JCB, "3528", "3589", 16, 17, 18, 19)
+            .build();
+
+    public static final int MIN_DIGITS = 12;
+    public static final int MAX_DIGITS = 19;
+
+    // layout del risultato: ordinale del circuito + 1 negli 8 bit bassi, poi i flag
+    private static final int ISSUER_MASK = 0xFF;
+    /** Solo cifre, spazi e trattini, da MIN_DIGITS a MAX_DIGITS cifre. */
+    public static final int WELL_FORMED = 1 << 8;
+    /** La lunghezza e' ammessa per il circuito riconosciuto. */
+    public static final int LENGTH_OK = 1 << 9;
+    /** La somma di Luhn e' corretta. */
+    public static final int LUHN_OK = 1 << 10;
+    /** Sono stati ignorati spazi o trattini. */
+    public static final int SEPARATORS = 1 << 11;
+
+    private static final int[] LUHN_DOUBLE = {0, 2, 4, 6, 8, 1, 3, 5, 7, 9};
+
+    /** Figli del nodo n: children[n * 10 + cifra], 0 = assente (la radice non e' figlia di nessuno). */
+    private final int[] children;
+    /** Ordinale + 1 del circuito il cui intervallo termina nel nodo, 0 se nessuno. */
+    private final byte[] issuers;
+    /** Lunghezze ammesse nel nodo, un bit per lunghezza. */
+    private final int[] lengths;
+
+    private CardEngine(Builder b) {
+        children = Arrays.copyOf(b.children, b.nodes * 10);
+        issuers = Arrays.copyOf(b.issuers, b.nodes);
+        lengths = Arrays.copyOf(b.lengths, b.nodes);
+    }
+
+    /**
+     * Returns a builder preloaded with the ranges of every {@link CreditCard}.
+     */
+    public static Builder builder() {
+        Builder b = new Builder();
+        for (CreditCard cc : ISSUERS) {
+            for (String range : cc.getRanges().split(" ")) {
+                int colon = range.indexOf(':');
+                int dash = range.indexOf('-');
+                String from = range.substring(0, dash < 0 ? colon : dash);
+                String to = dash < 0 ? from : range.substring(dash + 1, colon);
+                String[] lens = range.substring(colon + 1).split(",");
+                int[] l = new int[lens.length];
+                for (int i = 0; i < l.length; i++) {
+                    l[i] = Integer.parseInt(lens[i]);
+                }
+                b.range(cc, from, to, l);
+            }
+        }
+        return b;
+    }
+
+    /**
+     * Scans <code>card</code> once.
+     *
+     * @return the issuer ordinal and the WELL_FORMED, LENGTH_OK, LUHN_OK and SEPARATORS flags;
+     *         0 for null or empty input
+     */
+    public int inspect(CharSequence card) {
+        if (card == null) {
+            return 0;
+        }
+        int len = card.length();
+        int node = 0;
+        boolean inTrie = true;
+        int issuer = 0;
+        int lengthMask = 0;
+        int digits = 0;
+        int sumEven = 0;    // somma con raddoppio delle cifre in posizione pari (da sinistra, base 0)
+        int sumOdd = 0;     // somma con raddoppio delle cifre in posizione dispari
+        int flags = 0;
+        for (int i = 0; i < len; i++) {
+            char c = card.charAt(i);
+            if (c == ' ' || c == '-') {
+                flags |= SEPARATORS;
+                continue;
+            }
+            int d = c - '0';
+            if (d < 0 || d > 9 || digits == MAX_DIGITS) {
+                return issuer | flags;
+            }
+            if ((digits & 1) == 0) {
+                sumEven += LUHN_DOUBLE[d];
+                sumOdd += d;
+            } else {
+                sumEven += d;
+                sumOdd += LUHN_DOUBLE[d];
+            }
+            digits++;
+            if (inTrie) {
+                node = children[node * 10 + d];
+                if (node == 0) {
+                    inTrie = false;
+                } else if (issuers[node] != 0) {
+                    issuer = issuers[node];
+                    lengthMask = lengths[node];
+                }
+            }
+        }
+        if (digits < MIN_DIGITS) {
+            return issuer | flags;
+        }
+        flags |= WELL_FORMED;
+        // raddoppiate sono le cifre in posizione pari a partire dall'ultima: da sinistra, quelle
+        // con la stessa parita' del numero di cifre
+        if (((digits & 1) == 0 ? sumEven : sumOdd) % 10 == 0) {
+            flags |= LUHN_OK;
+        }
+        if ((lengthMask & (1 << digits)) != 0) {
+            flags |= LENGTH_OK;
+        }
+        return issuer | flags;
+    }
+
+    /**
+     * Returns the issuer of a valid card number (known issuer and length, Luhn checksum), or null.
+     */
+    public CreditCard validIssuer(CharSequence card) {
+        int result = inspect(card);
+        return isValid(result) ? issuer(result) : null;
+    }
+
+    /**
+     * @return VALID; EMPTYORNULL; INVALID if the number is malformed or does not belong to a
+     *         known issuer; INVALIDCHECKDIGIT if only the Luhn checksum fails
+     */
+    public ValidationStatus check(CharSequence card) {
+        if (InputValidator.isBlank(card)) {
+            return ValidationStatus.EMPTYORNULL;
+        }
+        int result = inspect(card);
+        if ((result & (WELL_FORMED | LENGTH_OK)) != (WELL_FORMED | LENGTH_OK)) {
+            return ValidationStatus.INVALID;
+        }
+        return (result & LUHN_OK) != 0 ? ValidationStatus.VALID : ValidationStatus.INVALIDCHECKDIGIT;
+    }
+
+    /**
+     * Stessa semantica delle regex di CreditCard: solo cifre, lunghezza ammessa, niente Luhn.
+     */
+    CreditCard strictIssuer(CharSequence card) {
+        int result = inspect(card);
+        if ((result & (WELL_FORMED | LENGTH_OK | SEPARATORS)) != (WELL_FORMED | LENGTH_OK)) {
+            return null;
+        }
+        return issuer(result);
+    }
+
+    /**
+     * Returns the issuer recognized by {@link #inspect(CharSequence)}, or null.
+     */
+    public static CreditCard issuer(int result) {
+        int ordinal = result & ISSUER_MASK;
+        return ordinal == 0 ? null : ISSUERS[ordinal - 1];
+    }
+
+    /**
+     * True if the result is a well formed number of a known issuer, of an allowed length and
+     * with a correct Luhn checksum.
+     */
+    public static boolean isValid(int result) {
+        int all = WELL_FORMED | LENGTH_OK | LUHN_OK;
+        return (result & all) == all && (result & ISSUER_MASK) != 0;
+    }
+
+    public static final class Builder {
+
+        private int[] children = new int[64 * 10];
+        private byte[] issuers = new byte[64];
+        private int[] lengths = new int[64];
+        private int nodes = 1;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds the IIN prefixes from <code>from</code> to <code>to</code>, which must have the
+         * same number of digits, for the given card lengths. A range already ending in the same
+         * node is replaced.
+         */
+        public Builder range(CreditCard issuer, String from, String to, int... cardLengths) {
+            if (from.length() == 0 || from.length() != to.length() || from.compareTo(to) > 0) {
+                throw new IllegalArgumentException("invalid range: " + from + "-" + to);
+            }
+            for (int i = 0; i < from.length(); i++) {
+                if (!FastMatchers.isDigit(from.charAt(i)) || !FastMatchers.isDigit(to.charAt(i))) {
+                    throw new IllegalArgumentException("invalid range: " + from + "-" + to);
+                }
+            }
+            int mask = 0;
+            for (int l : cardLengths) {
+                if (l < MIN_DIGITS || l > MAX_DIGITS) {
+                    throw new IllegalArgumentException("card length: " + l);
+                }
+                mask |= 1 << l;
+            }
+            insert(0, 0, from, to, true, true, (byte) (issuer.ordinal() + 1), mask);
+            return this;
+        }
+
+        /**
+         * Inserisce le cifre comprese tra i due estremi; dove l'intervallo copre tutte le
+         * continuazioni si ferma al prefisso piu' corto.
+         */
+        private void insert(int node, int depth, String from, String to, boolean lowTight, boolean highTight,
+                            byte issuer, int mask) {
+            if (depth == from.length() || (!lowTight && !highTight)) {
+                issuers[node] = issuer;
+                lengths[node] = mask;
+                return;
+            }
+            int low = lowTight ? from.charAt(depth) - '0' : 0;
+            int high = highTight ? to.charAt(depth) - '0' : 9;
+            for (int d = low; d <= high; d++) {
+                insert(child(node, d), depth + 1, from, to, lowTight && d == low, highTight && d == high, issuer, mask);
+            }
+        }
+
+        private int child(int node, int digit) {
+            int child = children[node * 10 + digit];
+            if (child == 0) {
+                if (nodes == issuers.length) {
+                    children = Arrays.copyOf(children, nodes * 2 * 10);
+                    issuers = Arrays.copyOf(issuers, nodes * 2);
+                    lengths = Arrays.copyOf(lengths, nodes * 2);
+                }
+                child = nodes++;
+                children[node * 10 + digit] = child;
+            }
+            return child;
+        }
+
+        public CardEngine build() {
+            return new CardEngine(this);
+        }
+    }
+
+}
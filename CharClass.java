@@ -0,0 +1,305 @@
+package it.alexpiex.mie;
+
+import java.util.Arrays;
+
+/**
+ * Insieme di caratteri del BMP con appartenenza in O(1): una bitmap indicizzata dal codice
+ * del carattere, lunga solo quanto serve per il carattere piu' alto dell'insieme (al piu' 8 KB).
+ * I metodi di scansione fanno un solo passaggio sulla sequenza e non allocano (le String
+ * lunghe passano da un buffer per thread, creato al primo uso).
+ * Le istanze sono immutabili e condivisibili tra thread.
+ * <p>
+ * Sugli input lunghi (array, String o viste sui byte da {@value #VECTOR_THRESHOLD} caratteri)
+ * le classi fatte di pochi intervalli, come cifre, alfanumerici ASCII o le whitelist dei campi,
+ * sono verificate a blocchi con la Vector API se la JVM la rende disponibile (vedi
+ * {@link #isVectorized()}). Le altre CharSequence, e i ByteBuffer diretti, restano sul ciclo
+ * scalare.
+ */
+public final class CharClass {
+
+    /** Lunghezza da cui conviene la scansione vettoriale. */
+    public static final int VECTOR_THRESHOLD = 64;
+
+    /** Oltre questo numero di intervalli i confronti costano piu' della bitmap. */
+    private static final int MAX_VECTOR_RANGES = 12;
+
+    private static final int CHUNK = 1024;
+
+    /** Buffer di vectorIndex: la copia di una String lunga non alloca a ogni chiamata. */
+    private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[CHUNK];
+        }
+    };
+
+    private static volatile boolean vectorEnabled = true;
+
+    private final long[] bits;
+    /** Coppie di estremi inclusi degli intervalli della classe, null se sono troppi. */
+    private final char[] ranges;
+
+    private CharClass(long[] bits) {
+        this.bits = bits;
+        this.ranges = ranges(bits);
+    }
+
+    /**
+     * True if long inputs are scanned with the Vector API: JDK 17+ started with
+     * <code>--add-modules jdk.incubator.vector</code>, and not disabled.
+     */
+    public static boolean isVectorized() {
+        return vectorEnabled && CharScanner.VECTOR != null;
+    }
+
+    /**
+     * Turns the vector path on or off, e.g. to compare it with the scalar one.
+     */
+    public static void setVectorEnabled(boolean enabled) {
+        vectorEnabled = enabled;
+    }
+
+    private static char[] ranges(long[] bits) {
+        char[] r = new char[2 * MAX_VECTOR_RANGES];
+        int n = 0;
+        int c = 0;
+        int end = bits.length << 6;
+        while (c < end) {
+            if ((bits[c >>> 6] & (1L << c)) == 0) {
+                c++;
+                continue;
+            }
+            int lo = c;
+            while (c < end && (bits[c >>> 6] & (1L << c)) != 0) {
+                c++;
+            }
+            if (n == r.length) {
+                return null;
+            }
+            r[n++] = (char) lo;
+            r[n++] = (char) (c - 1);
+        }
+        return n == 0 ? null : Arrays.copyOf(r, n);
+    }
+
+    /**
+     * Returns the class made of the characters of <code>chars</code>.
+     */
+    public static CharClass of(CharSequence chars) {
+        int max = -1;
+        for (int i = 0; i < chars.length(); i++) {
+            max = Math.max(max, chars.charAt(i));
+        }
+        long[] bits = new long[max < 0 ? 0 : (max >>> 6) + 1];
+        for (int i = 0; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+            bits[c >>> 6] |= 1L << c;
+        }
+        return new CharClass(bits);
+    }
+
+    /**
+     * Returns the class of the characters from <code>first</code> to <code>last</code>, inclusive.
+     */
+    public static CharClass range(char first, char last) {
+        if (first > last) {
+            throw new IllegalArgumentException("first > last");
+        }
+        long[] bits = new long[(last >>> 6) + 1];
+        for (int c = first; c <= last; c++) {
+            bits[c >>> 6] |= 1L << c;
+        }
+        return new CharClass(bits);
+    }
+
+    public CharClass union(CharClass other) {
+        long[] a = bits.length >= other.bits.length ? bits : other.bits;
+        long[] b = a == bits ? other.bits : bits;
+        long[] u = a.clone();
+        for (int i = 0; i < b.length; i++) {
+            u[i] |= b[i];
+        }
+        return new CharClass(u);
+    }
+
+    /**
+     * Returns the class of the BMP characters that are not in this class.
+     */
+    public CharClass complement() {
+        long[] c = new long[1024];
+        for (int i = 0; i < c.length; i++) {
+            c[i] = i < bits.length ? ~bits[i] : -1L;
+        }
+        return new CharClass(c);
+    }
+
+    public boolean contains(char c) {
+        int w = c >>> 6;
+        return w < bits.length && (bits[w] & (1L << c)) != 0;
+    }
+
+    /**
+     * Counts the characters of <code>s</code> that belong to this class.
+     */
+    public int count(CharSequence s) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (contains(s.charAt(i))) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns the index of the first character of <code>s</code> in this class, or -1.
+     */
+    public int indexIn(CharSequence s) {
+        return index(true, s, 0);
+    }
+
+    /**
+     * Returns the index of the first character of <code>s</code> from <code>from</code> on in
+     * this class, or -1.
+     */
+    public int indexIn(CharSequence s, int from) {
+        return index(true, s, from);
+    }
+
+    /**
+     * Returns the index of the first character of <code>s</code> not in this class, or -1.
+     */
+    public int indexNotIn(CharSequence s) {
+        return index(false, s, 0);
+    }
+
+    /**
+     * Returns the index of the first character of <code>s</code> from <code>from</code> on not
+     * in this class, or -1.
+     */
+    public int indexNotIn(CharSequence s, int from) {
+        return index(false, s, from);
+    }
+
+    /**
+     * Returns the index of the first char of <code>a[from..to)</code> in this class, or -1.
+     */
+    public int indexIn(char[] a, int from, int to) {
+        return index(true, a, from, to);
+    }
+
+    /**
+     * Returns the index of the first char of <code>a[from..to)</code> not in this class, or -1.
+     */
+    public int indexNotIn(char[] a, int from, int to) {
+        return index(false, a, from, to);
+    }
+
+    /**
+     * Like {@link #indexIn(char[], int, int)} on bytes read as ISO-8859-1 characters, which
+     * for a class of ASCII characters is also right on UTF-8.
+     */
+    public int indexIn(byte[] a, int from, int to) {
+        return index(true, a, from, to);
+    }
+
+    /**
+     * Like {@link #indexNotIn(char[], int, int)} on bytes read as ISO-8859-1 characters.
+     */
+    public int indexNotIn(byte[] a, int from, int to) {
+        return index(false, a, from, to);
+    }
+
+    private int index(boolean inside, CharSequence s, int from) {
+        int len = s.length();
+        checkRange(from, len, len);
+        if (len - from >= VECTOR_THRESHOLD && vector() != null) {
+            if (s instanceof String) {
+                return vectorIndex((String) s, from, inside);
+            }
+            if (s instanceof ByteSequence) {
+                // i byte si scandiscono sul posto, come index(byte[])
+                ByteSequence b = (ByteSequence) s;
+                byte[] a = b.array();
+                if (a != null) {
+                    int base = b.arrayOffset();
+                    int i = index(inside, a, base + from, base + len);
+                    return i < 0 ? -1 : i - base;
+                }
+            }
+        }
+        for (int i = from; i < len; i++) {
+            if (contains(s.charAt(i)) == inside) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int index(boolean inside, char[] a, int from, int to) {
+        checkRange(from, to, a.length);
+        CharScanner v = vector();
+        if (v != null && to - from >= VECTOR_THRESHOLD) {
+            return v.index(ranges, inside, a, from, to);
+        }
+        for (int i = from; i < to; i++) {
+            if (contains(a[i]) == inside) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int index(boolean inside, byte[] a, int from, int to) {
+        checkRange(from, to, a.length);
+        CharScanner v = vector();
+        if (v != null && to - from >= VECTOR_THRESHOLD) {
+            return v.index(ranges, inside, a, from, to);
+        }
+        for (int i = from; i < to; i++) {
+            if (contains((char) (a[i] & 0xFF)) == inside) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Copia la stringa a blocchi in un buffer e lo scandisce: la copia va alla velocita'
+     * della memoria e resta in cache.
+     */
+    private int vectorIndex(String s, int from, boolean inside) {
+        char[] buffer = BUFFER.get();
+        for (int start = from, len = s.length(); start < len; start += buffer.length) {
+            int n = Math.min(buffer.length, len - start);
+            s.getChars(start, start + n, buffer, 0);
+            int i = n >= VECTOR_THRESHOLD ? CharScanner.VECTOR.index(ranges, inside, buffer, 0, n) : index(inside, buffer, 0, n);
+            if (i >= 0) {
+                return start + i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Lo scanner vettoriale, se disponibile e utile per questa classe.
+     */
+    private CharScanner vector() {
+        return ranges != null && vectorEnabled ? CharScanner.VECTOR : null;
+    }
+
+    private static void checkRange(int from, int to, int length) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", length: " + length);
+        }
+    }
+
+    public boolean matchesAnyOf(CharSequence s) {
+        return indexIn(s) >= 0;
+    }
+
+    public boolean matchesAllOf(CharSequence s) {
+        return indexNotIn(s) < 0;
+    }
+
+}
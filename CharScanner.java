@@ -0,0 +1,36 @@
+package it.alexpiex.mie;
+
+/**
+ * Ricerca a blocchi del primo carattere dentro o fuori da un insieme di intervalli, usata da
+ * {@link CharClass} sugli input lunghi. L'implementazione vettoriale (VectorCharScanner, Vector
+ * API di JDK 17+) e' caricata per riflessione: se la JVM non ha il modulo
+ * <code>jdk.incubator.vector</code> (va aggiunto con <code>--add-modules</code>) o non ha
+ * registri SIMD, {@link #VECTOR} e' null e CharClass resta sul ciclo scalare.
+ */
+abstract class CharScanner {
+
+    static final CharScanner VECTOR = load();
+
+    /**
+     * Returns the index of the first char of <code>a[from..to)</code> whose membership in
+     * <code>ranges</code> (pairs of inclusive bounds) is <code>inside</code>, or -1.
+     */
+    abstract int index(char[] ranges, boolean inside, char[] a, int from, int to);
+
+    /**
+     * Come sopra sui byte, letti come caratteri ISO-8859-1.
+     */
+    abstract int index(char[] ranges, boolean inside, byte[] a, int from, int to);
+
+    private static CharScanner load() {
+        try {
+            return (CharScanner) Class.forName("it.alexpiex.mie.VectorCharScanner").getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            return null;
+        } catch (LinkageError e) {
+            // JDK senza Vector API o modulo non aggiunto
+            return null;
+        }
+    }
+
+}
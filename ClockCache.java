@@ -0,0 +1,194 @@
+package it.alexpiex.mie;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache limitata con eviction CLOCK (seconda possibilita'), usata da {@link PatternRegistry} e
+ * da {@link ValidationCache}. Le letture vanno sulla ConcurrentHashMap senza lock e segnano la
+ * voce come usata, scrivendo solo se il segno manca; gli inserimenti prendono il lock con
+ * tryLock e, se e' occupato, rinunciano invece di attendere. Le voci stanno in un anello la cui
+ * lancetta resta dove si e' fermata tra un inserimento e l'altro: ogni voce e' visitata una
+ * volta per giro e un inserimento costa O(1) ammortizzato.
+ * <p>
+ * Oltre al numero di voci si puo' limitare un peso totale, per esempio i byte stimati.
+ */
+final class ClockCache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<K, V>> map;
+    private final long maxWeight;
+    private final LongAdder evictions = new LongAdder();
+
+    // anello, lancetta e peso: modificati solo sotto lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private Entry<K, V>[] ring;
+    private int hand;
+    private long weight;
+
+    ClockCache(int maxEntries, long maxWeight) {
+        if (maxEntries < 1 || maxWeight < 0) {
+            throw new IllegalArgumentException("maxEntries: " + maxEntries + ", maxWeight: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+        map = new ConcurrentHashMap<K, Entry<K, V>>(Math.min(maxEntries, 1 << 16));
+        ring = newRing(maxEntries);
+    }
+
+    /**
+     * Returns the value of <code>key</code>, or null.
+     */
+    V get(K key) {
+        Entry<K, V> e = map.get(key);
+        if (e == null) {
+            return null;
+        }
+        // si scrive solo se serve: la riga della voce resta condivisa tra i core che la leggono
+        if (!e.referenced) {
+            e.referenced = true;
+        }
+        return e.value;
+    }
+
+    /**
+     * Adds <code>value</code> unless <code>key</code> is already there, the weight alone is
+     * over the limit or another thread is inserting.
+     */
+    void put(K key, V value, int weight) {
+        if (weight > maxWeight || !lock.tryLock()) {
+            // con il lock occupato si rinuncia: il valore verra' ricalcolato
+            return;
+        }
+        try {
+            insert(new Entry<K, V>(key, value, weight));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        return map.size();
+    }
+
+    long weight() {
+        lock.lock();
+        try {
+            return weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            map.clear();
+            Arrays.fill(ring, null);
+            weight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Changes the maximum number of entries, evicting the ones past the new limit in ring order
+     * from the hand.
+     */
+    void setMaxEntries(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries: " + maxEntries);
+        }
+        lock.lock();
+        try {
+            Entry<K, V>[] resized = newRing(maxEntries);
+            int n = 0;
+            for (int i = 0; i < ring.length; i++) {
+                int slot = (hand + i) % ring.length;
+                if (ring[slot] == null) {
+                    continue;
+                }
+                if (n < resized.length) {
+                    resized[n++] = ring[slot];
+                } else {
+                    evict(slot);
+                }
+            }
+            ring = resized;
+            hand = n == resized.length ? 0 : n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void insert(Entry<K, V> e) {
+        if (map.putIfAbsent(e.key, e) != null) {
+            // un altro thread l'ha gia' calcolato
+            return;
+        }
+        weight += e.weight;
+        // le voci usate dall'ultimo passaggio della lancetta hanno una seconda possibilita'
+        while (ring[hand] != null) {
+            Entry<K, V> victim = ring[hand];
+            if (victim.referenced) {
+                victim.referenced = false;
+                advance();
+            } else {
+                evict(hand);
+            }
+        }
+        ring[hand] = e;
+        advance();
+        while (weight > maxWeight) {
+            Entry<K, V> victim = ring[hand];
+            if (victim == null || victim == e) {
+                advance();
+            } else if (victim.referenced) {
+                victim.referenced = false;
+                advance();
+            } else {
+                evict(hand);
+                advance();
+            }
+        }
+    }
+
+    private void evict(int slot) {
+        Entry<K, V> victim = ring[slot];
+        ring[slot] = null;
+        map.remove(victim.key, victim);
+        weight -= victim.weight;
+        evictions.increment();
+    }
+
+    private void advance() {
+        if (++hand == ring.length) {
+            hand = 0;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Entry<K, V>[] newRing(int size) {
+        return (Entry<K, V>[]) new Entry<?, ?>[size];
+    }
+
+    private static final class Entry<K, V> {
+
+        final K key;
+        final V value;
+        final int weight;
+        /** Letta dalla lancetta; scritta senza sincronizzazione, basta un valore approssimato. */
+        boolean referenced;
+
+        Entry(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+package it.alexpiex.mie;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Insieme immutabile di codici (province, codici ATECO, paesi...) per
+ * {@link InputValidator#isRange(CharSequence, CodeSet)}: tabella hash a indirizzamento aperto
+ * con chiavi eventualmente confrontate senza distinzione tra maiuscole e minuscole, ricerca
+ * in O(1) su qualsiasi CharSequence senza convertire ne' copiare il valore cercato.
+ * Il confronto senza distinzione coincide con {@link String#equalsIgnoreCase(String)} del JDK
+ * in uso, anche per le lettere fuori dal BMP che i JDK dal 16 confrontano per code point. Fanno
+ * eccezione le stringhe con surrogati isolati (UTF-16 malformato).
+ * Le istanze sono condivisibili tra thread.
+ */
+public final class CodeSet {
+
+    /** Carattere ripiegato per i caratteri ASCII. */
+    private static final char[] ASCII_FOLD = new char[128];
+
+    /** True se equalsIgnoreCase confronta le coppie di surrogati come code point (JDK 16+). */
+    private static final boolean SUPPLEMENTARY_CASE = "\uD801\uDC00".equalsIgnoreCase("\uD801\uDC28");
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            ASCII_FOLD[c] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+    }
+
+    private final boolean ignoreCase;
+    private final String[] keys;
+    private final int[] hashes;
+    private final int mask;
+    private final int size;
+
+    private CodeSet(List<String> codes, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        int capacity = 2;
+        while (capacity < codes.size() * 2) {
+            capacity <<= 1;
+        }
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+        int n = 0;
+        for (String code : codes) {
+            if (code == null) {
+                throw new IllegalArgumentException("null code");
+            }
+            int h = hash(code);
+            int i = h & mask;
+            while (keys[i] != null && !(hashes[i] == h && equal(keys[i], code))) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == null) {
+                keys[i] = code;
+                hashes[i] = h;
+                n++;
+            }
+        }
+        size = n;
+    }
+
+    public static CodeSet of(String... codes) {
+        return of(false, codes);
+    }
+
+    public static CodeSet of(boolean ignoreCase, String... codes) {
+        List<String> list = new ArrayList<String>(codes.length);
+        for (String code : codes) {
+            list.add(code);
+        }
+        return new CodeSet(list, ignoreCase);
+    }
+
+    /**
+     * Loads one code per line from <code>file</code>. Lines are trimmed; empty lines and lines
+     * starting with '#' are skipped.
+     */
+    public static CodeSet load(Path file, Charset charset, boolean ignoreCase) throws IOException {
+        List<String> list = new ArrayList<String>();
+        BufferedReader in = Files.newBufferedReader(file, charset);
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.length() > 0 && line.charAt(0) != '#') {
+                    list.add(line);
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return new CodeSet(list, ignoreCase);
+    }
+
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(CharSequence value) {
+        if (value == null) {
+            return false;
+        }
+        int h = hash(value);
+        int i = h & mask;
+        String key;
+        while ((key = keys[i]) != null) {
+            if (hashes[i] == h && equal(key, value)) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    private int hash(CharSequence s) {
+        int h = 0;
+        for (int i = 0, len = s.length(); i < len; i++) {
+            char c = s.charAt(i);
+            if (!ignoreCase) {
+                h = 31 * h + c;
+            } else if (SUPPLEMENTARY_CASE && Character.isHighSurrogate(c) && i + 1 < len
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                h = 31 * h + Character.toLowerCase(Character.toUpperCase(cp));
+            } else {
+                h = 31 * h + fold(c);
+            }
+        }
+        // mescola i bit alti, la tabella usa quelli bassi
+        return h ^ (h >>> 16);
+    }
+
+    private boolean equal(String key, CharSequence s) {
+        int len = key.length();
+        if (s.length() != len) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            char a = key.charAt(i);
+            char b = s.charAt(i);
+            if (a == b || (ignoreCase && fold(a) == fold(b))) {
+                continue;
+            }
+            if (ignoreCase && SUPPLEMENTARY_CASE && (Character.isSurrogate(a) || Character.isSurrogate(b))) {
+                // caso raro: decide il JDK, che confronta i code point
+                return key.equalsIgnoreCase(s.toString());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Forma canonica di un carattere: due caratteri sono uguali per equalsIgnoreCase se e solo
+     * se hanno la stessa forma canonica.
+     */
+    private static char fold(char c) {
+        return c < 128 ? ASCII_FOLD[c] : Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+}
@@ -0,0 +1,292 @@
+package it.alexpiex.mie;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Validazione completa del codice fiscale delle persone fisiche: struttura, lettera del mese,
+ * giorno di nascita (piu' 40 per le donne), omocodia e carattere di controllo calcolato con le
+ * tabelle dei caratteri in posizione pari e dispari.
+ * Tutto in una sola scansione su tabelle <code>int[]</code> precalcolate, senza allocazioni;
+ * maiuscole e minuscole sono equivalenti. La stessa verifica e' disponibile un carattere alla
+ * volta con {@link #step(long, char)} (vedi {@link IncrementalValidator}).
+ */
+public final class CodiceFiscale {
+
+    public static final int LENGTH = 16;
+
+    /** Valori dei caratteri in posizione dispari (1a, 3a, ... 15a) per il carattere di controllo. */
+    private static final int[] ODD = new int[128];
+
+    /** Valori dei caratteri in posizione pari. */
+    private static final int[] EVEN = new int[128];
+
+    /** Cifra rappresentata da un carattere numerico, anche sostituito per omocodia; -1 altrimenti. */
+    private static final int[] DIGIT = new int[128];
+
+    /** Mese (1-12) della lettera; 0 se la lettera non indica un mese. */
+    private static final int[] MONTH = new int[128];
+
+    private static final boolean[] LETTER = new boolean[128];
+
+    private static final int[] DAYS_IN_MONTH = {0, 31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    /** Posizioni delle cifre che l'omocodia puo' sostituire con una lettera. */
+    private static final boolean[] NUMERIC_POSITION = new boolean[LENGTH];
+
+    // layout dello stato di step(): posizione (5 bit), somma per il carattere di controllo (9 bit),
+    // anno (7 bit), mese (4 bit), giorno con il +40 (7 bit)
+    private static final int POS_MASK = 0x1F;
+    private static final int SUM_SHIFT = 5;
+    private static final int YEAR_SHIFT = 14;
+    private static final int MONTH_SHIFT = 21;
+    private static final int DAY_SHIFT = 25;
+    private static final long REJECTED = -1;
+
+    /** Stato iniziale per {@link #step(long, char)}. */
+    static final long START = 0;
+
+    static {
+        int[] oddDigits = {1, 0, 5, 7, 9, 13, 15, 17, 19, 21};
+        int[] oddLetters = {1, 0, 5, 7, 9, 13, 15, 17, 19, 21, 2, 4, 18, 20, 11, 3, 6, 8, 12, 14, 16, 10, 22, 25, 24, 23};
+        Arrays.fill(DIGIT, -1);
+        for (int i = 0; i < 10; i++) {
+            ODD['0' + i] = oddDigits[i];
+            EVEN['0' + i] = i;
+            DIGIT['0' + i] = i;
+        }
+        for (int i = 0; i < 26; i++) {
+            ODD['A' + i] = ODD['a' + i] = oddLetters[i];
+            EVEN['A' + i] = EVEN['a' + i] = i;
+            LETTER['A' + i] = LETTER['a' + i] = true;
+        }
+        String omocodia = "LMNPQRSTUV";
+        for (int i = 0; i < 10; i++) {
+            DIGIT[omocodia.charAt(i)] = DIGIT[Character.toLowerCase(omocodia.charAt(i))] = i;
+        }
+        String months = "ABCDEHLMPRST";
+        for (int i = 0; i < 12; i++) {
+            MONTH[months.charAt(i)] = MONTH[Character.toLowerCase(months.charAt(i))] = i + 1;
+        }
+        for (int i : new int[] {6, 7, 9, 10, 12, 13, 14}) {
+            NUMERIC_POSITION[i] = true;
+        }
+    }
+
+    private CodiceFiscale() {
+    }
+
+    public static boolean isValid(CharSequence cf) {
+        return check(cf) == ValidationStatus.VALID;
+    }
+
+    /**
+     * @return VALID; EMPTYORNULL; INVALID if the code is malformed; INVALIDDATE if the month
+     *         letter or the day is impossible; INVALIDCHECKDIGIT if the last character is wrong
+     */
+    public static ValidationStatus check(CharSequence cf) {
+        if (cf == null || cf.length() == 0) {
+            return ValidationStatus.EMPTYORNULL;
+        }
+        if (cf.length() != LENGTH) {
+            return ValidationStatus.INVALID;
+        }
+        int sum = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = cf.charAt(i);
+            if (c >= 128 || (NUMERIC_POSITION[i] ? DIGIT[c] < 0 : !LETTER[c])) {
+                return ValidationStatus.INVALID;
+            }
+            if (i < LENGTH - 1) {
+                sum += (i & 1) == 0 ? ODD[c] : EVEN[c];
+            }
+        }
+        int month = MONTH[cf.charAt(8)];
+        int year = DIGIT[cf.charAt(6)] * 10 + DIGIT[cf.charAt(7)];
+        if (!isDate(year, month, day(cf))) {
+            return ValidationStatus.INVALIDDATE;
+        }
+        return EVEN[cf.charAt(15)] == sum % 26 ? ValidationStatus.VALID : ValidationStatus.INVALIDCHECKDIGIT;
+    }
+
+    /**
+     * Computes the check character of the first 15 characters of <code>cf</code>.
+     *
+     * @return the upper case check character, or 0 if the first 15 characters are malformed
+     */
+    public static char checkCharacter(CharSequence cf) {
+        if (cf == null || cf.length() < LENGTH - 1) {
+            return 0;
+        }
+        int sum = 0;
+        for (int i = 0; i < LENGTH - 1; i++) {
+            char c = cf.charAt(i);
+            if (c >= 128 || (NUMERIC_POSITION[i] ? DIGIT[c] < 0 : !LETTER[c])) {
+                return 0;
+            }
+            sum += (i & 1) == 0 ? ODD[c] : EVEN[c];
+        }
+        return (char) ('A' + sum % 26);
+    }
+
+    /**
+     * True if <code>cf</code> belongs to a woman (day of birth increased by 40).
+     * The code must be valid.
+     */
+    public static boolean isFemale(CharSequence cf) {
+        return DIGIT[cf.charAt(9)] >= 4;
+    }
+
+    /**
+     * Extracts the date of birth of a valid code as <code>yyyymmdd</code>, e.g. 19800101.
+     * The code only carries the last two digits of the year: the century is the latest one that
+     * does not put the birth after <code>referenceYear</code>.
+     *
+     * @return the date, or -1 if <code>cf</code> is not valid
+     */
+    public static int birthDate(CharSequence cf, int referenceYear) {
+        if (check(cf) != ValidationStatus.VALID) {
+            return -1;
+        }
+        int yy = DIGIT[cf.charAt(6)] * 10 + DIGIT[cf.charAt(7)];
+        int year = referenceYear - ((referenceYear - yy) % 100 + 100) % 100;
+        int month = MONTH[cf.charAt(8)];
+        int day = day(cf);
+        if (month == 2 && day == 29 && !isLeapYear(year)) {
+            // 29/02 in un anno secolare non bisestile: il secolo giusto e' il precedente
+            year -= 100;
+        }
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * Bulk variant for registry imports: validates every code, see {@link BatchValidator}.
+     */
+    public static BatchResult validate(CharSequence[] codes) {
+        return BatchValidator.validate(Rule.COD_FISC_FULL, codes);
+    }
+
+    public static BatchResult validate(List<? extends CharSequence> codes) {
+        return BatchValidator.validate(Rule.COD_FISC_FULL, codes);
+    }
+
+    /**
+     * Bulk variant of {@link #birthDate(CharSequence, int)}: writes the date of
+     * <code>codes[i]</code>, or -1, into <code>dates[i]</code>.
+     *
+     * @return the number of valid codes
+     */
+    public static int birthDates(CharSequence[] codes, int referenceYear, int[] dates) {
+        if (dates.length < codes.length) {
+            throw new IllegalArgumentException("dates.length < codes.length: " + dates.length + " < " + codes.length);
+        }
+        int valid = 0;
+        for (int i = 0; i < codes.length; i++) {
+            dates[i] = birthDate(codes[i], referenceYear);
+            if (dates[i] >= 0) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Una transizione di {@link #check(CharSequence)}. Lo stato e' rifiutato appena nessuna
+     * continuazione puo' dare un codice valido: carattere fuori posto, mese inesistente, giorno
+     * impossibile gia' dalla prima cifra, carattere di controllo sbagliato.
+     */
+    static long step(long state, char c) {
+        if (state == REJECTED) {
+            return state;
+        }
+        int pos = (int) state & POS_MASK;
+        if (pos == LENGTH || c >= 128 || (NUMERIC_POSITION[pos] ? DIGIT[c] < 0 : !LETTER[c])) {
+            return REJECTED;
+        }
+        int sum = (int) (state >>> SUM_SHIFT) & 0x1FF;
+        int year = (int) (state >>> YEAR_SHIFT) & 0x7F;
+        int month = (int) (state >>> MONTH_SHIFT) & 0xF;
+        int day = (int) (state >>> DAY_SHIFT) & 0x7F;
+        switch (pos) {
+            case 6:
+            case 7:
+                year = year * 10 + DIGIT[c];
+                break;
+            case 8:
+                month = MONTH[c];
+                if (month == 0) {
+                    return REJECTED;
+                }
+                break;
+            case 9:
+                day = DIGIT[c];
+                if (!isDayPrefix(year, month, day)) {
+                    return REJECTED;
+                }
+                break;
+            case 10:
+                day = day * 10 + DIGIT[c];
+                if (!isDate(year, month, day > 40 ? day - 40 : day)) {
+                    return REJECTED;
+                }
+                break;
+            case LENGTH - 1:
+                if (EVEN[c] != sum % 26) {
+                    return REJECTED;
+                }
+                break;
+            default:
+                break;
+        }
+        if (pos < LENGTH - 1) {
+            sum += (pos & 1) == 0 ? ODD[c] : EVEN[c];
+        }
+        return pos + 1 | (long) sum << SUM_SHIFT | (long) year << YEAR_SHIFT | (long) month << MONTH_SHIFT
+                | (long) day << DAY_SHIFT;
+    }
+
+    /**
+     * True if the characters read so far form a valid code.
+     */
+    static boolean isAccepting(long state) {
+        return state != REJECTED && (state & POS_MASK) == LENGTH;
+    }
+
+    /**
+     * True if no continuation of the characters read so far can be a valid code.
+     */
+    static boolean isRejected(long state) {
+        return state == REJECTED;
+    }
+
+    private static int day(CharSequence cf) {
+        int day = DIGIT[cf.charAt(9)] * 10 + DIGIT[cf.charAt(10)];
+        return day > 40 ? day - 40 : day;
+    }
+
+    /**
+     * Giorno senza il +40; del secolo non si sa nulla, il 29 febbraio e' ammesso in ogni anno
+     * multiplo di 4.
+     */
+    private static boolean isDate(int year, int month, int day) {
+        return month != 0 && day >= 1 && day <= DAYS_IN_MONTH[month] && !(month == 2 && day == 29 && year % 4 != 0);
+    }
+
+    /**
+     * True if some second digit makes a valid day after the first digit <code>tens</code>.
+     */
+    private static boolean isDayPrefix(int year, int month, int tens) {
+        for (int unit = 0; unit < 10; unit++) {
+            int day = tens * 10 + unit;
+            if (isDate(year, month, day > 40 ? day - 40 : day)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+    }
+
+}
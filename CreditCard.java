@@ -0,0 +1,52 @@
+package it.alexpiex.mie;
+
+import java.util.regex.Pattern;
+
+/**
+ * Ogni enum ha una regex che definisce i numeri di una carta valida del suo genere e la stessa
+ * definizione come prefissi IIN e lunghezze, usata da {@link CardEngine}.
+ */
+public enum CreditCard {
+    VISA("^4[0-9]{12}(?:[0-9]{3})?$", "4:13,16"),
+    MASTER_CARD("^5[1-5][0-9]{14}$", "51-55:16"),
+    AMERICAN_EXPRESS("^3[47][0-9]{13}$", "34:15 37:15"),
+    DINERS("^3(?:0[0-5]|[68][0-9])[0-9]{11}$", "300-305:14 36:14 38:14"),
+    DISCOVER("^6(?:011|5[0-9]{2})[0-9]{12}$", "6011:16 65:16"),
+    JCB("^(?:2131|1800|35\\d{3})\\d{11}$", "2131:15 1800:15 35:16");
+
+    private Pattern pattern;
+
+    /** Intervalli IIN: "da-a:lunghezza,lunghezza" separati da spazi. */
+    private final String ranges;
+
+    CreditCard(String regex, String ranges) {
+        this.pattern = Pattern.compile(regex);
+        this.ranges = ranges;
+    }
+
+    String getRanges() {
+        return ranges;
+    }
+
+    public boolean matches(String card) {
+        if (FastMatchers.useScanner(FastMatchers.Format.CREDIT_CARD)) return CardEngine.DEFAULT.strictIssuer(card) == this;
+        return pattern.matcher(card).matches();
+    }
+
+    /**
+     * Returns the name of the issuer whose format <code>card</code> matches exactly (digits only,
+     * no Luhn check), or null. See {@link CardEngine} for separators and checksum.
+     */
+    public static String gleanCompany(String card) {
+        if (FastMatchers.useScanner(FastMatchers.Format.CREDIT_CARD)) {
+            CreditCard cc = CardEngine.DEFAULT.strictIssuer(card);
+            return cc == null ? null : cc.name();
+        }
+        for (CreditCard cc : CreditCard.values()) {
+            if (cc.matches(card)) {
+                return String.valueOf(cc);
+            }
+        }
+        return null;
+    }
+}
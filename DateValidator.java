@@ -0,0 +1,322 @@
+package it.alexpiex.mie;
+
+/**
+ * Validazione di date e date/ora in un solo passaggio, senza allocazioni: il formato e'
+ * compilato una volta, poi cifre e separatori sono letti direttamente dalla sequenza e la
+ * validita' del calendario (giorni del mese, anni bisestili) e' verificata con l'aritmetica.
+ * <p>
+ * Il formato usa le lettere di SimpleDateFormat: <code>d</code>, <code>M</code>,
+ * <code>H</code>, <code>m</code>, <code>s</code> (una lettera = 1 o 2 cifre, due lettere =
+ * esattamente 2 cifre) e <code>yyyy</code>; ogni altro carattere deve comparire tale e quale.
+ * Le istanze sono immutabili e condivisibili tra thread.
+ */
+public final class DateValidator {
+
+    /** gg/mm/aaaa con gli stessi anni della regex {@link InputValidator#DATE} (1600-9999). */
+    public static final DateValidator DATE = new DateValidator("dd/MM/yyyy", 1600, 9999);
+
+    /** gg/mm/aaaa hh:mm:ss. */
+    public static final DateValidator DATE_TIME = new DateValidator("dd/MM/yyyy HH:mm:ss", 1600, 9999);
+
+    /** Restituito da {@link #toEpochDay(CharSequence)} e {@link #toEpochSecond(CharSequence)} se il valore non e' valido. */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final int LITERAL = 0;
+    private static final int DAY = 1;
+    private static final int MONTH = 2;
+    private static final int YEAR = 3;
+    private static final int HOUR = 4;
+    private static final int MINUTE = 5;
+    private static final int SECOND = 6;
+
+    // campi impacchettati in un long: anno, mese (4 bit), giorno (5), ora (5), minuti (6), secondi (6)
+    private static final int YEAR_SHIFT = 26;
+    private static final int MONTH_SHIFT = 22;
+    private static final int DAY_SHIFT = 17;
+    private static final int HOUR_SHIFT = 12;
+    private static final int MINUTE_SHIFT = 6;
+
+    private static final int DAYS_0000_TO_1970 = 719528;
+
+    private final String pattern;
+    private final int minYear;
+    private final int maxYear;
+
+    // formato compilato: per ogni elemento il tipo, le cifre ammesse o il carattere letterale
+    private final byte[] kinds;
+    private final byte[] minDigits;
+    private final byte[] maxDigits;
+    private final char[] literals;
+
+    private DateValidator(String pattern, int minYear, int maxYear) {
+        if (minYear < 0 || minYear > maxYear || maxYear > 9999) {
+            throw new IllegalArgumentException("year range: " + minYear + "-" + maxYear);
+        }
+        this.pattern = pattern;
+        this.minYear = minYear;
+        this.maxYear = maxYear;
+        int n = 0;
+        for (int i = 0; i < pattern.length(); i = skipRun(pattern, i)) {
+            n++;
+        }
+        kinds = new byte[n];
+        minDigits = new byte[n];
+        maxDigits = new byte[n];
+        literals = new char[n];
+        boolean hasYear = false;
+        int k = 0;
+        for (int i = 0; i < pattern.length(); k++) {
+            char c = pattern.charAt(i);
+            int next = skipRun(pattern, i);
+            int run = next - i;
+            int kind = kindOf(c);
+            kinds[k] = (byte) kind;
+            if (kind == LITERAL) {
+                literals[k] = c;
+            } else if (kind == YEAR) {
+                if (run != 4 || hasYear) {
+                    throw new IllegalArgumentException("invalid pattern: " + pattern);
+                }
+                hasYear = true;
+                minDigits[k] = maxDigits[k] = 4;
+            } else {
+                if (run > 2) {
+                    throw new IllegalArgumentException("invalid pattern: " + pattern);
+                }
+                minDigits[k] = (byte) run;
+                maxDigits[k] = 2;
+            }
+            i = next;
+        }
+        if (!hasYear || !has(MONTH) || !has(DAY)) {
+            throw new IllegalArgumentException("pattern without day, month or year: " + pattern);
+        }
+    }
+
+    /**
+     * Compiles <code>pattern</code>, e.g. "yyyy-MM-dd" or "d/M/yyyy H:mm", with years 1600-9999.
+     */
+    public static DateValidator ofPattern(String pattern) {
+        return new DateValidator(pattern, 1600, 9999);
+    }
+
+    /**
+     * Returns a validator accepting only the years from <code>minYear</code> to
+     * <code>maxYear</code>, e.g. 1900-4712 as in {@link InputValidator#isYear(String)}.
+     */
+    public DateValidator withYearRange(int minYear, int maxYear) {
+        return new DateValidator(pattern, minYear, maxYear);
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public int getMinYear() {
+        return minYear;
+    }
+
+    public int getMaxYear() {
+        return maxYear;
+    }
+
+    public boolean isValid(CharSequence s) {
+        return check(s) == ValidationStatus.VALID;
+    }
+
+    /**
+     * @return VALID; EMPTYORNULL; INVALIDDATE if the value does not follow the pattern or is not
+     *         a calendar date (or time); OUTOFRANGE if the year is outside the range
+     */
+    public ValidationStatus check(CharSequence s) {
+        if (s == null || s.length() == 0) {
+            return ValidationStatus.EMPTYORNULL;
+        }
+        long fields = scan(s);
+        if (fields < 0) {
+            return ValidationStatus.INVALIDDATE;
+        }
+        int year = (int) (fields >>> YEAR_SHIFT);
+        return year >= minYear && year <= maxYear ? ValidationStatus.VALID : ValidationStatus.OUTOFRANGE;
+    }
+
+    /**
+     * Returns the days from 1970-01-01 to the date in <code>s</code> (the time is ignored),
+     * or {@link #INVALID}.
+     */
+    public long toEpochDay(CharSequence s) {
+        long fields = checkedScan(s);
+        if (fields < 0) {
+            return INVALID;
+        }
+        return epochDay((int) (fields >>> YEAR_SHIFT), field(fields, MONTH_SHIFT, 0xF), field(fields, DAY_SHIFT, 0x1F));
+    }
+
+    /**
+     * Returns the seconds from 1970-01-01T00:00:00 to the date and time in <code>s</code>,
+     * taken as UTC, or {@link #INVALID}.
+     */
+    public long toEpochSecond(CharSequence s) {
+        long fields = checkedScan(s);
+        if (fields < 0) {
+            return INVALID;
+        }
+        long day = epochDay((int) (fields >>> YEAR_SHIFT), field(fields, MONTH_SHIFT, 0xF), field(fields, DAY_SHIFT, 0x1F));
+        return day * 86400 + field(fields, HOUR_SHIFT, 0x1F) * 3600 + field(fields, MINUTE_SHIFT, 0x3F) * 60 + (int) (fields & 0x3F);
+    }
+
+    public static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    public static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Giorni dal 1970-01-01, come LocalDate.toEpochDay, per anni non negativi.
+     */
+    static long epochDay(int year, int month, int day) {
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12 + day - 1;
+        if (month > 2) {
+            total -= isLeapYear(year) ? 1 : 2;
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    private long checkedScan(CharSequence s) {
+        if (s == null || s.length() == 0) {
+            return -1;
+        }
+        long fields = scan(s);
+        if (fields < 0) {
+            return -1;
+        }
+        int year = (int) (fields >>> YEAR_SHIFT);
+        return year >= minYear && year <= maxYear ? fields : -1;
+    }
+
+    /**
+     * Legge i campi secondo il formato e verifica il calendario.
+     *
+     * @return i campi impacchettati, -1 se il valore non e' valido
+     */
+    private long scan(CharSequence s) {
+        int len = s.length();
+        int pos = 0;
+        int year = 0;
+        int month = 0;
+        int day = 0;
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        for (int k = 0; k < kinds.length; k++) {
+            if (kinds[k] == LITERAL) {
+                if (pos == len || s.charAt(pos) != literals[k]) {
+                    return -1;
+                }
+                pos++;
+                continue;
+            }
+            int value = 0;
+            int start = pos;
+            int end = Math.min(len, pos + maxDigits[k]);
+            while (pos < end) {
+                int d = s.charAt(pos) - '0';
+                if (d < 0 || d > 9) {
+                    break;
+                }
+                value = value * 10 + d;
+                pos++;
+            }
+            if (pos - start < minDigits[k]) {
+                return -1;
+            }
+            switch (kinds[k]) {
+                case DAY:
+                    day = value;
+                    break;
+                case MONTH:
+                    month = value;
+                    break;
+                case YEAR:
+                    year = value;
+                    break;
+                case HOUR:
+                    hour = value;
+                    break;
+                case MINUTE:
+                    minute = value;
+                    break;
+                default:
+                    second = value;
+                    break;
+            }
+        }
+        if (pos != len || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            return -1;
+        }
+        return (long) year << YEAR_SHIFT | (long) month << MONTH_SHIFT | (long) day << DAY_SHIFT
+                | hour << HOUR_SHIFT | minute << MINUTE_SHIFT | second;
+    }
+
+    private static int field(long fields, int shift, int mask) {
+        return (int) (fields >>> shift) & mask;
+    }
+
+    private boolean has(int kind) {
+        for (byte k : kinds) {
+            if (k == kind) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int kindOf(char c) {
+        switch (c) {
+            case 'd':
+                return DAY;
+            case 'M':
+                return MONTH;
+            case 'y':
+                return YEAR;
+            case 'H':
+                return HOUR;
+            case 'm':
+                return MINUTE;
+            case 's':
+                return SECOND;
+            default:
+                return LITERAL;
+        }
+    }
+
+    /**
+     * Fine della sequenza di lettere uguali che inizia in <code>i</code>; i letterali sono
+     * sempre lunghi uno.
+     */
+    private static int skipRun(String pattern, int i) {
+        char c = pattern.charAt(i);
+        int j = i + 1;
+        if (kindOf(c) != LITERAL) {
+            while (j < pattern.length() && pattern.charAt(j) == c) {
+                j++;
+            }
+        }
+        return j;
+    }
+
+}
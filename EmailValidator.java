@@ -0,0 +1,249 @@
+package it.alexpiex.mie;
+
+/**
+ * Validazione degli indirizzi email con un automa a stati finiti scritto a mano: ogni carattere
+ * e' letto una sola volta e fa una sola transizione, quindi il tempo e' lineare nella lunghezza
+ * dell'input qualunque esso sia (niente backtracking, niente ReDoS).
+ * <p>
+ * Grammatica (RFC 5321/5322, con i limiti di RFC 3696):
+ * <ul>
+ * <li>parte locale dot-atom: sequenze di caratteri {@link InputValidator#ATOM} separate da un
+ * punto, al piu' 64 caratteri;</li>
+ * <li>dominio: etichette di lettere e cifre, anche Unicode (IDN, compresi i caratteri fuori dal
+ * BMP come coppie di surrogati), con trattini solo interni,
+ * al piu' 63 caratteri ciascuna, almeno due etichette e l'ultima non tutta numerica; oppure un
+ * indirizzo IPv4 tra parentesi quadre come {@link InputValidator#IP_DOMAIN};</li>
+ * <li>al piu' 254 caratteri in tutto.</li>
+ * </ul>
+ * Lo stato dell'automa e' un <code>long</code>, quindi un indirizzo si puo' verificare anche un
+ * carattere alla volta con {@link #step(long, char)}, senza allocazioni.
+ */
+public final class EmailValidator {
+
+    public static final int MAX_LENGTH = 254;
+    public static final int MAX_LOCAL_LENGTH = 64;
+    public static final int MAX_LABEL_LENGTH = 63;
+
+    // stati dell'automa
+    private static final int LOCAL_START = 0;
+    private static final int LOCAL_ATOM = 1;
+    private static final int LOCAL_DOT = 2;
+    private static final int DOMAIN_START = 3;
+    private static final int LABEL = 4;
+    private static final int LABEL_HYPHEN = 5;
+    private static final int LABEL_DOT = 6;
+    private static final int IP_OCTET_START = 7;
+    private static final int IP_OCTET = 8;
+    private static final int IP_END = 9;
+    private static final int REJECTED = 0xFF;
+
+    // layout dello stato: stato (8 bit), lunghezza della parte locale o dell'etichetta corrente
+    // (8 bit), lunghezza totale (9 bit), valore dell'ottetto IP (9 bit), cifre dell'ottetto (2),
+    // ottetti letti (3), flag
+    private static final int STATE_MASK = 0xFF;
+    private static final int PART_SHIFT = 8;
+    private static final int TOTAL_SHIFT = 16;
+    private static final int OCTET_SHIFT = 25;
+    private static final int OCTET_DIGITS_SHIFT = 34;
+    private static final int OCTETS_SHIFT = 36;
+    /** L'etichetta corrente contiene almeno un carattere che non e' una cifra. */
+    private static final long LABEL_NOT_NUMERIC = 1L << 40;
+    /** Il dominio ha almeno un punto. */
+    private static final long DOTTED = 1L << 41;
+    /** L'ultimo carattere e' un surrogato alto di un'etichetta, salvato in HIGH_SHIFT. */
+    private static final long PENDING_HIGH = 1L << 42;
+    private static final int HIGH_SHIFT = 43;
+    private static final long PENDING_MASK = PENDING_HIGH | 0xFFFFL << HIGH_SHIFT;
+
+    /** Stato iniziale per {@link #step(long, char)}. */
+    static final long START = LOCAL_START;
+
+    private static final CharClass ATEXT = CharClass.range('a', 'z').union(CharClass.range('A', 'Z'))
+            .union(CharClass.range('0', '9')).union(CharClass.of("!#$%&'*+/=?^_`{|}~-"));
+
+    private EmailValidator() {
+    }
+
+    public static boolean isValid(CharSequence email) {
+        if (email == null || email.length() > MAX_LENGTH) {
+            return false;
+        }
+        long state = START;
+        for (int i = 0, len = email.length(); i < len; i++) {
+            state = step(state, email.charAt(i));
+            if (isRejected(state)) {
+                return false;
+            }
+        }
+        return isAccepting(state);
+    }
+
+    /**
+     * @return VALID, EMPTYORNULL or INVALID
+     */
+    public static ValidationStatus check(CharSequence email) {
+        if (email == null || email.length() == 0) {
+            return ValidationStatus.EMPTYORNULL;
+        }
+        return isValid(email) ? ValidationStatus.VALID : ValidationStatus.INVALID;
+    }
+
+    /**
+     * Una transizione dell'automa. Una volta rifiutato, lo stato resta rifiutato.
+     */
+    static long step(long state, char c) {
+        int s = (int) (state & STATE_MASK);
+        if (s == REJECTED) {
+            return state;
+        }
+        int total = (int) (state >>> TOTAL_SHIFT) & 0x1FF;
+        if (total == MAX_LENGTH) {
+            return REJECTED;
+        }
+        state += 1L << TOTAL_SHIFT;
+        int part = (int) (state >>> PART_SHIFT) & 0xFF;
+        if ((state & PENDING_MASK) != 0) {
+            // seconda meta' di un carattere fuori dal BMP: si verifica il code point intero
+            char high = (char) (state >>> HIGH_SHIFT);
+            if (!Character.isLowSurrogate(c) || !isLabelCodePoint(Character.toCodePoint(high, c))) {
+                return REJECTED;
+            }
+            return labelChar(state & ~PENDING_MASK, part, c);
+        }
+        switch (s) {
+            case LOCAL_START:
+            case LOCAL_DOT:
+                return ATEXT.contains(c) ? localChar(state, part, LOCAL_ATOM) : REJECTED;
+            case LOCAL_ATOM:
+                if (c == '@') {
+                    return withState(withPart(state, 0), DOMAIN_START);
+                }
+                if (c == '.') {
+                    return localChar(state, part, LOCAL_DOT);
+                }
+                return ATEXT.contains(c) ? localChar(state, part, LOCAL_ATOM) : REJECTED;
+            case DOMAIN_START:
+                if (c == '[') {
+                    return withState(state, IP_OCTET_START);
+                }
+                return labelStart(state, part, c);
+            case LABEL_DOT:
+                return labelStart(state, part, c);
+            case LABEL:
+                if (c == '.') {
+                    return withState(withPart(state, 0) | DOTTED, LABEL_DOT);
+                }
+                return labelNext(state, part, c);
+            case LABEL_HYPHEN:
+                return labelNext(state, part, c);
+            case IP_OCTET_START:
+            case IP_OCTET:
+                return ipChar(state, s, c);
+            default:
+                // dopo la ']' non e' ammesso altro
+                return REJECTED;
+        }
+    }
+
+    /**
+     * True if the characters read so far form a valid address.
+     */
+    static boolean isAccepting(long state) {
+        int s = (int) (state & STATE_MASK);
+        if (s == IP_END) {
+            return true;
+        }
+        return s == LABEL && (state & DOTTED) != 0 && (state & LABEL_NOT_NUMERIC) != 0 && (state & PENDING_MASK) == 0;
+    }
+
+    /**
+     * True if no continuation of the characters read so far can be a valid address.
+     */
+    static boolean isRejected(long state) {
+        return (state & STATE_MASK) == REJECTED;
+    }
+
+    private static long localChar(long state, int part, int next) {
+        if (part == MAX_LOCAL_LENGTH) {
+            return REJECTED;
+        }
+        return withState(withPart(state, part + 1), next);
+    }
+
+    /**
+     * Primo carattere di un'etichetta: niente trattino.
+     */
+    private static long labelStart(long state, int part, char c) {
+        return isLabelChar(c) ? labelChar(withState(state & ~LABEL_NOT_NUMERIC, LABEL), part, c) : REJECTED;
+    }
+
+    private static long labelNext(long state, int part, char c) {
+        if (c == '-') {
+            return labelChar(withState(state, LABEL_HYPHEN), part, c);
+        }
+        return isLabelChar(c) ? labelChar(withState(state, LABEL), part, c) : REJECTED;
+    }
+
+    private static long labelChar(long state, int part, char c) {
+        if (part == MAX_LABEL_LENGTH) {
+            return REJECTED;
+        }
+        if (c < '0' || c > '9') {
+            state |= LABEL_NOT_NUMERIC;
+        }
+        if (Character.isHighSurrogate(c)) {
+            state |= PENDING_HIGH | (long) c << HIGH_SHIFT;
+        }
+        return withPart(state, part + 1);
+    }
+
+    private static long ipChar(long state, int s, char c) {
+        int octet = (int) (state >>> OCTET_SHIFT) & 0x1FF;
+        int digits = (int) (state >>> OCTET_DIGITS_SHIFT) & 0x3;
+        int octets = (int) (state >>> OCTETS_SHIFT) & 0x7;
+        if (c >= '0' && c <= '9') {
+            octet = octet * 10 + c - '0';
+            if (digits == 3 || octet > 255) {
+                return REJECTED;
+            }
+            return withIp(withState(state, IP_OCTET), octet, digits + 1, octets);
+        }
+        if (s == IP_OCTET && c == '.' && octets < 3) {
+            return withIp(withState(state, IP_OCTET_START), 0, 0, octets + 1);
+        }
+        if (s == IP_OCTET && c == ']' && octets == 3) {
+            return withState(state, IP_END);
+        }
+        return REJECTED;
+    }
+
+    private static boolean isLabelChar(char c) {
+        if (c < 128) {
+            return FastMatchers.isAlnum(c);
+        }
+        // il surrogato basso decide alla prossima transizione
+        return Character.isHighSurrogate(c) || isLabelCodePoint(c);
+    }
+
+    /**
+     * Lettere, cifre e segni combinanti Unicode, per le etichette IDN in forma Unicode.
+     */
+    private static boolean isLabelCodePoint(int cp) {
+        return Character.isLetterOrDigit(cp) || Character.getType(cp) == Character.NON_SPACING_MARK
+                || Character.getType(cp) == Character.COMBINING_SPACING_MARK;
+    }
+
+    private static long withState(long state, int s) {
+        return (state & ~(long) STATE_MASK) | s;
+    }
+
+    private static long withPart(long state, int part) {
+        return (state & ~(0xFFL << PART_SHIFT)) | (long) part << PART_SHIFT;
+    }
+
+    private static long withIp(long state, int octet, int digits, int octets) {
+        state &= ~((0x1FFL << OCTET_SHIFT) | (0x3L << OCTET_DIGITS_SHIFT) | (0x7L << OCTETS_SHIFT));
+        return state | (long) octet << OCTET_SHIFT | (long) digits << OCTET_DIGITS_SHIFT | (long) octets << OCTETS_SHIFT;
+    }
+
+}
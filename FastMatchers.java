@@ -0,0 +1,163 @@
+package it.alexpiex.mie;
+
+/**
+ * Scanner scritti a mano per i formati fissi di {@link InputValidator}.
+ * Ogni metodo fa un solo passaggio sulla sequenza con charAt, non alloca nulla e accetta
+ * esattamente le stesse stringhe della regex corrispondente.
+ * Il motore e' selezionabile per formato con {@link #setEngine(Format, MatchEngine)}.
+ */
+public final class FastMatchers {
+
+    /**
+     * Formati fissi per cui esiste uno scanner.
+     */
+    public enum Format {
+        COD_FISC, PHONE, MOBILE, EURO, IMPORTO, NUM,
+        /**
+         * @deprecated isIban verifica il mod-97 con {@link Iban} e non consulta piu' il motore.
+         */
+        @Deprecated
+        IBAN,
+        CREDIT_CARD
+    }
+
+    // L = lettera, D = cifra: "^[a-zA-Z]{6}[0-9]{2}[a-zA-Z]{1}[0-9]{2}[a-zA-Z]{1}[0-9]{3}[a-zA-Z]{1}"
+    static final String COD_FISC_LAYOUT = "LLLLLLDDLDDLDDDL";
+
+    private static volatile MatchEngine[] engines = initEngines();
+
+    private FastMatchers() {
+    }
+
+    private static MatchEngine[] initEngines() {
+        MatchEngine[] e = new MatchEngine[Format.values().length];
+        for (int i = 0; i < e.length; i++) {
+            e[i] = MatchEngine.SCANNER;
+        }
+        return e;
+    }
+
+    public static MatchEngine getEngine(Format format) {
+        return engines[format.ordinal()];
+    }
+
+    /**
+     * Selects the engine used by the validator of <code>format</code>. Default is SCANNER.
+     */
+    public static synchronized void setEngine(Format format, MatchEngine engine) {
+        if (engine == null) {
+            throw new IllegalArgumentException("engine is null");
+        }
+        MatchEngine[] e = engines.clone();
+        e[format.ordinal()] = engine;
+        engines = e;
+    }
+
+    static boolean useScanner(Format format) {
+        return engines[format.ordinal()] == MatchEngine.SCANNER;
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    static boolean isAlnum(char c) {
+        return isDigit(c) || isLetter(c);
+    }
+
+    private static boolean digits(CharSequence s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isDigit(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * [a-zA-Z]{6}[0-9]{2}[a-zA-Z][0-9]{2}[a-zA-Z][0-9]{3}[a-zA-Z]
+     */
+    public static boolean isCodFisc(CharSequence s) {
+        if (s.length() != 16) {
+            return false;
+        }
+        for (int i = 0; i < 16; i++) {
+            char c = s.charAt(i);
+            if (COD_FISC_LAYOUT.charAt(i) == 'L' ? !isLetter(c) : !isDigit(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * [0-9]{9,11}
+     */
+    public static boolean isPhone(CharSequence s) {
+        int len = s.length();
+        return len >= 9 && len <= 11 && digits(s, 0, len);
+    }
+
+    /**
+     * ^[0-9]{10}$
+     */
+    public static boolean isMobile(CharSequence s) {
+        return s.length() == 10 && digits(s, 0, 10);
+    }
+
+    /**
+     * -?\d+
+     */
+    public static boolean isNum(CharSequence s) {
+        int len = s.length();
+        int i = len > 0 && s.charAt(0) == '-' ? 1 : 0;
+        return len > i && digits(s, i, len);
+    }
+
+    /**
+     * ^(0|((\d{1,3})(\.\d{3})*))(,\d{1,2})?$
+     */
+    public static boolean isEuro(CharSequence s) {
+        return NumberSyntax.EURO.matches(s);
+    }
+
+    /**
+     * (^\d+)(\,\d{1,2})?$
+     */
+    public static boolean isImporto(CharSequence s) {
+        return NumberSyntax.IMPORTO.matches(s);
+    }
+
+    /**
+     * [a-zA-Z]{2}[0-9]{2}[a-zA-Z0-9]{4}[0-9]{7}([a-zA-Z0-9]?){0,16}: solo la forma, senza
+     * controllo del paese ne' mod-97; per la validazione completa vedi {@link Iban}.
+     */
+    public static boolean isIban(CharSequence s) {
+        int len = s.length();
+        if (len < 15 || len > 31) {
+            return false;
+        }
+        if (!isLetter(s.charAt(0)) || !isLetter(s.charAt(1)) || !digits(s, 2, 4)) {
+            return false;
+        }
+        for (int i = 4; i < 8; i++) {
+            if (!isAlnum(s.charAt(i))) {
+                return false;
+            }
+        }
+        if (!digits(s, 8, 15)) {
+            return false;
+        }
+        for (int i = 15; i < len; i++) {
+            if (!isAlnum(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,246 @@
+package it.alexpiex.mie;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Validazione in streaming di file delimitati (CSV e simili) di qualsiasi dimensione.
+ * Il file e' letto a finestre in un solo buffer, riusato per tutto il file; record e campi
+ * sono individuati sui byte. I campi ASCII sono passati alle regole tramite una vista
+ * riutilizzabile, senza copie; gli altri sono decodificati in un CharBuffer riusato, cosi'
+ * gli esiti sono quelli dei validatori sulle String. La memoria usata non dipende dalla
+ * dimensione del file.
+ * <p>
+ * I record sono separati da '\n' (un '\r' finale viene ignorato), i campi dal delimitatore;
+ * i valori tra virgolette non sono gestiti. La codifica e' UTF-8 se non indicata, e deve
+ * scrivere i caratteri ASCII su un byte (UTF-8, ISO-8859-x, windows-1252...). I byte non validi nella codifica diventano U+FFFD.
+ * Le istanze sono immutabili e possono essere usate da piu' thread.
+ */
+public final class FileValidator {
+
+    public static final int DEFAULT_WINDOW_SIZE = 64 << 20;
+
+    private static final CharClass ASCII = CharClass.range('\u0000', '\u007F');
+
+    private final byte delimiter;
+    private final boolean header;
+    private final Rule[] columns;
+    private final int windowSize;
+    private final Charset charset;
+
+    /**
+     * A validator for UTF-8 files.
+     *
+     * @param delimiter the field separator, an ASCII character
+     * @param header    true if the first line is a header and must not be validated
+     * @param columns   the rule of each column; null for columns that are not checked
+     */
+    public FileValidator(char delimiter, boolean header, Rule... columns) {
+        this(delimiter, header, StandardCharsets.UTF_8, columns);
+    }
+
+    /**
+     * @param delimiter the field separator, a single byte in <code>charset</code>
+     * @param header    true if the first line is a header and must not be validated
+     * @param charset   the encoding of the file
+     * @param columns   the rule of each column; null for columns that are not checked
+     * @throws IllegalArgumentException if <code>charset</code> does not write '\n' and the
+     *         delimiter as single bytes, e.g. UTF-16
+     */
+    public FileValidator(char delimiter, boolean header, Charset charset, Rule... columns) {
+        this(delimiter, header, DEFAULT_WINDOW_SIZE, charset, columns.clone());
+    }
+
+    private FileValidator(char delimiter, boolean header, int windowSize, Charset charset, Rule[] columns) {
+        if (delimiter > 0xFF || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("invalid delimiter: " + (int) delimiter);
+        }
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("windowSize < 1: " + windowSize);
+        }
+        // '\n' e il delimitatore vanno cercati come singoli byte
+        byte[] probe = ("\n" + delimiter).getBytes(charset);
+        if (probe.length != 2 || probe[0] != '\n' || probe[1] != (byte) delimiter) {
+            throw new IllegalArgumentException("delimiter " + (int) delimiter + " is not a single byte in " + charset);
+        }
+        this.delimiter = (byte) delimiter;
+        this.header = header;
+        this.windowSize = windowSize;
+        this.charset = charset;
+        this.columns = columns;
+    }
+
+    /**
+     * Returns a validator that reads <code>windowSize</code> bytes at a time. A single record
+     * must fit in a window.
+     */
+    public FileValidator withWindowSize(int windowSize) {
+        return new FileValidator((char) (delimiter & 0xFF), header, windowSize, charset, columns);
+    }
+
+    /**
+     * Validates every record of <code>file</code>, reporting rejected fields to
+     * <code>handler</code> as soon as they are found.
+     *
+     * @return the number of records validated, header and blank lines excluded
+     * @throws IOException if the file cannot be read or a record is longer than the window
+     */
+    public long validate(Path file, RejectHandler handler) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return validate(channel, handler);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private long validate(FileChannel channel, RejectHandler handler) throws IOException {
+        long size = channel.size();
+        ByteBuffer window = ByteBuffer.allocate((int) Math.max(1, Math.min(windowSize, size)));
+        byte[] a = window.array();
+        Fields fields = new Fields(charset);
+        long pos = 0;
+        int filled = 0;
+        long line = 0;
+        long validated = 0;
+        while (true) {
+            // tramite Buffer: compilato con JDK 9+ resta eseguibile su Java 8
+            ((Buffer) window).limit(a.length);
+            ((Buffer) window).position(filled);
+            while (window.hasRemaining() && pos < size) {
+                int n = channel.read(window, pos);
+                if (n < 0) {
+                    break;
+                }
+                pos += n;
+            }
+            filled = window.position();
+            boolean last = pos >= size || window.hasRemaining();
+            int start = 0;
+            while (start < filled) {
+                int eol = indexOf(a, (byte) '\n', start, filled);
+                if (eol < 0) {
+                    if (!last) {
+                        // record incompleto: si completa con la lettura successiva
+                        break;
+                    }
+                    eol = filled;
+                }
+                line++;
+                int end = eol;
+                if (end > start && a[end - 1] == '\r') {
+                    end--;
+                }
+                if (end > start && !(header && line == 1)) {
+                    validateRecord(a, start, end, line, fields, handler);
+                    validated++;
+                }
+                start = eol + 1;
+            }
+            if (last) {
+                return validated;
+            }
+            if (start == 0) {
+                throw new IOException("record " + (line + 1) + " is longer than " + windowSize + " bytes");
+            }
+            // il record incompleto passa in testa al buffer
+            filled -= start;
+            System.arraycopy(a, start, a, 0, filled);
+        }
+    }
+
+    private void validateRecord(byte[] a, int start, int end, long line, Fields fields, RejectHandler handler) {
+        int column = 0;
+        int from = start;
+        while (column < columns.length) {
+            int to = indexOf(a, delimiter, from, end);
+            if (to < 0) {
+                to = end;
+            }
+            Rule rule = columns[column];
+            if (rule != null) {
+                CharSequence field = fields.get(a, from, to);
+                ValidationStatus status = rule.status(field);
+                if (status != ValidationStatus.VALID) {
+                    handler.reject(line, column, rule, status, field);
+                }
+            }
+            column++;
+            if (to == end) {
+                break;
+            }
+            from = to + 1;
+        }
+        // colonne mancanti
+        for (; column < columns.length; column++) {
+            if (columns[column] != null) {
+                handler.reject(line, column, columns[column], ValidationStatus.EMPTYORNULL, fields.get(a, end, end));
+            }
+        }
+    }
+
+    private static int indexOf(byte[] a, byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (a[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * I campi di una validazione: la vista sui byte per quelli ASCII, il decoder e il suo
+     * CharBuffer per gli altri. Uno per chiamata, come il buffer della finestra.
+     */
+    private static final class Fields {
+
+        private final ByteSequence view = new ByteSequence();
+        private final boolean latin1;
+        private final CharsetDecoder decoder;
+        private ByteBuffer in;
+        private CharBuffer chars = CharBuffer.allocate(256);
+
+        Fields(Charset charset) {
+            latin1 = charset.equals(StandardCharsets.ISO_8859_1);
+            decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        CharSequence get(byte[] a, int from, int to) {
+            // ByteSequence legge i byte come ISO-8859-1, che per l'ASCII vale in ogni codifica ammessa
+            if (latin1 || ASCII.indexNotIn(a, from, to) < 0) {
+                return view.wrap(a, from, to - from);
+            }
+            if (in == null || in.array() != a) {
+                in = ByteBuffer.wrap(a);
+            }
+            ((Buffer) in).limit(to);
+            ((Buffer) in).position(from);
+            int capacity = (int) Math.ceil((to - from) * (double) decoder.maxCharsPerByte());
+            if (chars.capacity() < capacity) {
+                chars = CharBuffer.allocate(capacity);
+            }
+            ((Buffer) chars).clear();
+            decoder.reset();
+            CoderResult result = decoder.decode(in, chars, true);
+            if (!result.isUnderflow()) {
+                throw new IllegalStateException(result.toString());
+            }
+            decoder.flush(chars);
+            ((Buffer) chars).flip();
+            return chars;
+        }
+    }
+
+}
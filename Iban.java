@@ -0,0 +1,309 @@
+package it.alexpiex.mie;
+
+/**
+ * Validazione IBAN secondo ISO 13616: paese, lunghezza e struttura del BBAN dalla tabella dei
+ * paesi, poi il controllo mod-97 calcolato cifra per cifra durante la stessa scansione, senza
+ * BigInteger e senza spostare i primi quattro caratteri in fondo.
+ * Gli spazi (formato stampa, gruppi di quattro) sono ignorati e le minuscole accettate senza
+ * copiare la stringa: nessuna allocazione per chiamata.
+ * La stessa verifica e' disponibile un carattere alla volta con {@link #step(long, char)}, per
+ * la validazione durante la digitazione (vedi {@link IncrementalValidator}).
+ */
+public final class Iban {
+
+    /** Lunghezza massima di un IBAN nel registro. */
+    public static final int MAX_LENGTH = 34;
+
+    // classi dei caratteri nella struttura del BBAN, come nel registro SWIFT
+    private static final byte DIGIT = 1;     // n
+    private static final byte LETTER = 2;    // a
+    private static final byte ALNUM = 3;     // c
+
+    /**
+     * Struttura del BBAN per paese, nella notazione del registro SWIFT (4a = quattro lettere,
+     * 5n = cinque cifre, 12c = dodici alfanumerici).
+     */
+    private static final String[][] REGISTRY = {
+        {"AD", "4n,4n,12c"}, {"AE", "3n,16n"}, {"AL", "8n,16c"}, {"AT", "5n,11n"},
+        {"AZ", "4a,20c"}, {"BA", "3n,3n,8n,2n"}, {"BE", "3n,7n,2n"}, {"BG", "4a,4n,2n,8c"},
+        {"BH", "4a,14c"}, {"BI", "5n,5n,11n,2n"}, {"BR", "8n,5n,10n,1a,1c"}, {"BY", "4c,4n,16c"},
+        {"CH", "5n,12c"}, {"CR", "4n,14n"}, {"CY", "3n,5n,16c"}, {"CZ", "4n,6n,10n"},
+        {"DE", "8n,10n"}, {"DJ", "5n,5n,11n,2n"}, {"DK", "4n,9n,1n"}, {"DO", "4c,20n"},
+        {"EE", "2n,2n,11n,1n"}, {"EG", "4n,4n,17n"}, {"ES", "4n,4n,1n,1n,10n"}, {"FI", "3n,11n"},
+        {"FK", "2a,12n"}, {"FO", "4n,9n,1n"}, {"FR", "5n,5n,11c,2n"}, {"GB", "4a,6n,8n"},
+        {"GE", "2a,16n"}, {"GI", "4a,15c"}, {"GL", "4n,9n,1n"}, {"GR", "3n,4n,16c"},
+        {"GT", "4c,20c"}, {"HR", "7n,10n"}, {"HU", "3n,4n,1n,15n,1n"}, {"IE", "4a,6n,8n"},
+        {"IL", "3n,3n,13n"}, {"IQ", "4a,3n,12n"}, {"IS", "4n,2n,6n,10n"}, {"IT", "1a,5n,5n,12c"},
+        {"JO", "4a,4n,18c"}, {"KW", "4a,22c"}, {"KZ", "3n,13c"}, {"LB", "4n,20c"},
+        {"LC", "4a,24c"}, {"LI", "5n,12c"}, {"LT", "5n,11n"}, {"LU", "3n,13c"},
+        {"LV", "4a,13c"}, {"LY", "3n,3n,15n"}, {"MC", "5n,5n,11c,2n"}, {"MD", "2c,18c"},
+        {"ME", "3n,13n,2n"}, {"MK", "3n,10c,2n"}, {"MN", "4n,12n"}, {"MR", "5n,5n,11n,2n"},
+        {"MT", "4a,5n,18c"}, {"MU", "4a,2n,2n,12n,3n,3a"}, {"NI", "4a,20n"}, {"NL", "4a,10n"},
+        {"NO", "4n,6n,1n"}, {"OM", "3n,16c"}, {"PK", "4a,16c"}, {"PL", "8n,16n"},
+        {"PS", "4a,21c"}, {"PT", "4n,4n,11n,2n"}, {"QA", "4a,21c"}, {"RO", "4a,16c"},
+        {"RS", "3n,13n,2n"}, {"RU", "9n,5n,15c"}, {"SA", "2n,18c"}, {"SC", "4a,2n,2n,16n,3a"},
+        {"SD", "2n,12n"}, {"SE", "3n,16n,1n"}, {"SI", "5n,8n,2n"}, {"SK", "4n,6n,10n"},
+        {"SM", "1a,5n,5n,12c"}, {"SO", "4n,3n,12n"}, {"ST", "8n,11n,2n"}, {"SV", "4a,20n"},
+        {"TL", "3n,14n,2n"}, {"TN", "2n,3n,13n,2n"}, {"TR", "5n,1n,16c"}, {"UA", "6n,19c"},
+        {"VA", "3n,15n"}, {"VG", "4a,16n"}, {"XK", "4n,10n,2n"}
+    };
+
+    /** Struttura compilata del BBAN, indicizzata per codice paese (26 * 26); null se sconosciuto. */
+    private static final byte[][] BBAN = new byte[26 * 26][];
+
+    /** Prime lettere dei paesi nel registro. */
+    private static final boolean[] FIRST_LETTER = new boolean[26];
+
+    /** 10^6 mod 97: i primi quattro caratteri valgono sempre sei cifre. */
+    private static final int SHIFT_6 = 1000000 % 97;
+
+    // layout dello stato di step(): posizione senza gli spazi (6 bit), paese (10 bit, dopo il
+    // primo carattere la sola prima lettera), paese e cifre di controllo (19 bit), BBAN mod 97 (7 bit)
+    private static final int POS_MASK = 0x3F;
+    private static final int COUNTRY_SHIFT = 6;
+    private static final int PREFIX_SHIFT = 16;
+    private static final int REST_SHIFT = 35;
+    private static final long REJECTED = -1;
+
+    /** Stato iniziale per {@link #step(long, char)}. */
+    static final long START = 0;
+
+    static {
+        for (String[] entry : REGISTRY) {
+            BBAN[country(entry[0].charAt(0), entry[0].charAt(1))] = compile(entry[1]);
+            FIRST_LETTER[entry[0].charAt(0) - 'A'] = true;
+        }
+    }
+
+    private Iban() {
+    }
+
+    private static byte[] compile(String structure) {
+        String[] parts = structure.split(",");
+        int length = 0;
+        for (String part : parts) {
+            length += Integer.parseInt(part.substring(0, part.length() - 1));
+        }
+        byte[] bban = new byte[length];
+        int pos = 0;
+        for (String part : parts) {
+            int n = Integer.parseInt(part.substring(0, part.length() - 1));
+            char type = part.charAt(part.length() - 1);
+            byte cls = type == 'n' ? DIGIT : type == 'a' ? LETTER : ALNUM;
+            for (int i = 0; i < n; i++) {
+                bban[pos++] = cls;
+            }
+        }
+        return bban;
+    }
+
+    /**
+     * Indice del paese nella tabella, -1 se i due caratteri non sono lettere.
+     */
+    private static int country(char c0, char c1) {
+        int i0 = letterValue(c0);
+        int i1 = letterValue(c1);
+        return i0 < 0 || i1 < 0 ? -1 : i0 * 26 + i1;
+    }
+
+    /**
+     * 0-25 per A-Z e a-z, -1 altrimenti.
+     */
+    private static int letterValue(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the IBAN length of <code>country</code> (ISO 3166 alpha-2), or 0 if the country
+     * does not use IBAN.
+     */
+    public static int lengthOf(String country) {
+        if (country == null || country.length() != 2) {
+            return 0;
+        }
+        int index = country(country.charAt(0), country.charAt(1));
+        return index < 0 || BBAN[index] == null ? 0 : BBAN[index].length + 4;
+    }
+
+    public static boolean isValid(CharSequence iban) {
+        return check(iban) == ValidationStatus.VALID;
+    }
+
+    /**
+     * Validates an IBAN in electronic (IT60X0542811101000000123456) or print
+     * (IT60 X054 2811 1010 0000 0123 456) format, upper or lower case.
+     *
+     * @return VALID; EMPTYORNULL; INVALID if the country is unknown or length and structure do
+     *         not match it; INVALIDCHECKDIGIT if the mod-97 check fails
+     */
+    public static ValidationStatus check(CharSequence iban) {
+        if (iban == null) {
+            return ValidationStatus.EMPTYORNULL;
+        }
+        int len = iban.length();
+        byte[] bban = null;
+        int first = 0;
+        int prefix = 0;     // valore mod 97 di paese e cifre di controllo
+        int rest = 0;       // valore mod 97 del BBAN
+        int pos = 0;        // posizione senza gli spazi
+        for (int i = 0; i < len; i++) {
+            char c = iban.charAt(i);
+            if (c == ' ') {
+                continue;
+            }
+            if (pos < 4) {
+                if (pos < 2) {
+                    int letter = letterValue(c);
+                    if (letter < 0) {
+                        return ValidationStatus.INVALID;
+                    }
+                    prefix = prefix * 100 + letter + 10;
+                    if (pos == 0) {
+                        first = letter;
+                    } else {
+                        bban = BBAN[first * 26 + letter];
+                        if (bban == null) {
+                            return ValidationStatus.INVALID;
+                        }
+                    }
+                } else {
+                    if (c < '0' || c > '9') {
+                        return ValidationStatus.INVALID;
+                    }
+                    prefix = prefix * 10 + c - '0';
+                }
+            } else {
+                int k = pos - 4;
+                if (k >= bban.length) {
+                    return ValidationStatus.INVALID;
+                }
+                rest = bbanChar(bban[k], rest, c);
+                if (rest < 0) {
+                    return ValidationStatus.INVALID;
+                }
+            }
+            pos++;
+        }
+        if (pos == 0) {
+            return ValidationStatus.EMPTYORNULL;
+        }
+        if (bban == null || pos != bban.length + 4) {
+            return ValidationStatus.INVALID;
+        }
+        return (rest * SHIFT_6 + prefix) % 97 == 1 ? ValidationStatus.VALID : ValidationStatus.INVALIDCHECKDIGIT;
+    }
+
+    /**
+     * Una transizione di {@link #check(CharSequence)}: gli spazi lasciano lo stato com'e'. Lo stato
+     * e' rifiutato appena nessuna continuazione puo' dare un IBAN valido, anche per le cifre di
+     * controllo: all'ultimo carattere del BBAN, o al penultimo se nessun carattere ammesso
+     * all'ultimo posto chiude il mod-97.
+     */
+    static long step(long state, char c) {
+        if (state == REJECTED || c == ' ') {
+            return state;
+        }
+        int pos = (int) state & POS_MASK;
+        int country = (int) (state >>> COUNTRY_SHIFT) & 0x3FF;
+        int prefix = (int) (state >>> PREFIX_SHIFT) & 0x7FFFF;
+        int rest = (int) (state >>> REST_SHIFT) & 0x7F;
+        if (pos < 2) {
+            int letter = letterValue(c);
+            if (letter < 0) {
+                return REJECTED;
+            }
+            prefix = prefix * 100 + letter + 10;
+            if (pos == 0) {
+                if (!FIRST_LETTER[letter]) {
+                    return REJECTED;
+                }
+                country = letter;
+            } else {
+                country = country * 26 + letter;
+                if (BBAN[country] == null) {
+                    return REJECTED;
+                }
+            }
+        } else if (pos < 4) {
+            if (c < '0' || c > '9') {
+                return REJECTED;
+            }
+            prefix = prefix * 10 + c - '0';
+        } else {
+            byte[] bban = BBAN[country];
+            int k = pos - 4;
+            if (k >= bban.length) {
+                return REJECTED;
+            }
+            rest = bbanChar(bban[k], rest, c);
+            if (rest < 0) {
+                return REJECTED;
+            }
+            int left = bban.length - k - 1;
+            if (left == 0 && (rest * SHIFT_6 + prefix) % 97 != 1) {
+                return REJECTED;
+            }
+            if (left == 1 && !canComplete(bban[k + 1], rest, prefix)) {
+                return REJECTED;
+            }
+        }
+        return pos + 1 | (long) country << COUNTRY_SHIFT | (long) prefix << PREFIX_SHIFT | (long) rest << REST_SHIFT;
+    }
+
+    /**
+     * True if the characters read so far form a valid IBAN.
+     */
+    static boolean isAccepting(long state) {
+        if (state == REJECTED) {
+            return false;
+        }
+        int pos = (int) state & POS_MASK;
+        // con il BBAN completo le cifre di controllo sono gia' state verificate da step
+        return pos > 4 && pos == BBAN[(int) (state >>> COUNTRY_SHIFT) & 0x3FF].length + 4;
+    }
+
+    /**
+     * True if no continuation of the characters read so far can be a valid IBAN.
+     */
+    static boolean isRejected(long state) {
+        return state == REJECTED;
+    }
+
+    /**
+     * Aggiunge un carattere del BBAN di classe <code>cls</code> al resto mod 97; -1 se il
+     * carattere non e' ammesso.
+     */
+    private static int bbanChar(byte cls, int rest, char c) {
+        if (c >= '0' && c <= '9') {
+            return cls == LETTER ? -1 : (rest * 10 + c - '0') % 97;
+        }
+        int letter = letterValue(c);
+        return letter < 0 || cls == DIGIT ? -1 : (rest * 100 + letter + 10) % 97;
+    }
+
+    /**
+     * True if some character of class <code>cls</code> completes the mod-97 check.
+     */
+    private static boolean canComplete(byte cls, int rest, int prefix) {
+        for (char c = '0'; c <= '9'; c++) {
+            int r = bbanChar(cls, rest, c);
+            if (r >= 0 && (r * SHIFT_6 + prefix) % 97 == 1) {
+                return true;
+            }
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            int r = bbanChar(cls, rest, c);
+            if (r >= 0 && (r * SHIFT_6 + prefix) % 97 == 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
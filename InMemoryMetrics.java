@@ -0,0 +1,175 @@
+package it.alexpiex.mie;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro delle metriche in memoria, per i test e per una diagnosi senza dipendenze esterne.
+ * Per ogni validatore conta chiamate, rifiuti e match lenti e tiene un istogramma delle durate
+ * a bucket log-lineari (16 per potenza di due, errore relativo sotto il 7%, come HdrHistogram
+ * con una cifra significativa). Tutti i contatori sono LongAdder: nessun lock sul percorso di
+ * registrazione, anche con molti thread sullo stesso validatore.
+ */
+public final class InMemoryMetrics implements ValidationMetrics {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    /** Durate oltre 2^40 ns (circa 18 minuti) finiscono nell'ultimo bucket. */
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final ConcurrentMap<String, Stats> stats = new ConcurrentHashMap<String, Stats>();
+
+    @Override
+    public void record(String name, boolean accepted, long nanos) {
+        stats(name).record(accepted, nanos);
+    }
+
+    @Override
+    public void slowMatch(String regex, int inputLength, long nanos) {
+        stats(regex).slow.increment();
+    }
+
+    /**
+     * Returns the statistics of <code>name</code>, or null if it was never recorded.
+     */
+    public Stats get(String name) {
+        return stats.get(name);
+    }
+
+    public Set<String> names() {
+        return Collections.unmodifiableSet(stats.keySet());
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    private Stats stats(String name) {
+        Stats s = stats.get(name);
+        if (s == null) {
+            Stats created = new Stats();
+            s = stats.putIfAbsent(name, created);
+            if (s == null) {
+                s = created;
+            }
+        }
+        return s;
+    }
+
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return nanos < 0 ? 0 : (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Valore piu' basso del bucket.
+     */
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BITS);
+    }
+
+    public static final class Stats {
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder rejects = new LongAdder();
+        private final LongAdder slow = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+        private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+        private Stats() {
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] = new LongAdder();
+            }
+        }
+
+        void record(boolean accepted, long nanos) {
+            calls.increment();
+            if (!accepted) {
+                rejects.increment();
+            }
+            totalNanos.add(nanos);
+            histogram[bucket(nanos)].increment();
+            long m;
+            while (nanos > (m = max.get()) && !max.compareAndSet(m, nanos)) {
+                // un altro thread ha aggiornato il massimo, si riprova
+            }
+        }
+
+        public long calls() {
+            return calls.sum();
+        }
+
+        public long rejects() {
+            return rejects.sum();
+        }
+
+        /**
+         * Rejected calls over all calls, 0 if there were none.
+         */
+        public double rejectRate() {
+            long n = calls.sum();
+            return n == 0 ? 0 : (double) rejects.sum() / n;
+        }
+
+        public long slowMatches() {
+            return slow.sum();
+        }
+
+        public long maxNanos() {
+            return max.get();
+        }
+
+        public double meanNanos() {
+            long n = calls.sum();
+            return n == 0 ? 0 : (double) totalNanos.sum() / n;
+        }
+
+        /**
+         * Returns the duration under which <code>quantile</code> (0-1) of the calls fall, within
+         * the bucket resolution; 0 if there were no calls.
+         */
+        public long percentileNanos(double quantile) {
+            if (quantile < 0 || quantile > 1) {
+                throw new IllegalArgumentException("quantile: " + quantile);
+            }
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = histogram[i].sum();
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    // estremo superiore del bucket, senza superare il massimo osservato
+                    long upper = i + 1 < BUCKETS ? lowerBound(i + 1) - 1 : Long.MAX_VALUE;
+                    return Math.min(upper, max.get());
+                }
+            }
+            return max.get();
+        }
+    }
+
+}
@@ -0,0 +1,421 @@
+package it.alexpiex.mie;
+
+import java.util.Arrays;
+
+/**
+ * Validazione durante la digitazione: uno stato per campo che riceve i caratteri aggiunti o
+ * cancellati e aggiorna l'esito senza rileggere tutto il valore.
+ * <pre>
+ * IncrementalValidator iban = IncrementalValidator.iban();
+ * iban.append("IT60 X054");       // VALID_PREFIX
+ * iban.append('Q');               // INVALID: nessun IBAN italiano continua cosi'
+ * iban.deleteLast();              // di nuovo VALID_PREFIX
+ * iban.update(valoreDalClient);   // riparte dal prefisso comune con il valore precedente
+ * </pre>
+ * Ogni validatore e' un automa (lo step di {@link EmailValidator}, {@link Iban} e
+ * {@link CodiceFiscale}, il DFA di {@link LinearRegex}) di cui si tiene lo stato dopo ogni
+ * carattere: aggiungere un carattere costa una transizione, cancellare l'ultimo ne ripristina
+ * lo stato precedente, entrambi O(1) ammortizzato. L'esito distingue un valore incompleto
+ * ({@link Verdict#VALID_PREFIX}) da uno che nessuna aggiunta puo' rendere valido
+ * ({@link Verdict#INVALID}).
+ * <p>
+ * Le istanze non sono thread-safe: una per campo e per sessione.
+ */
+public final class IncrementalValidator {
+
+    /** Esito del valore corrente. */
+    public enum Verdict {
+        /** Il valore e' valido. */
+        VALID,
+        /** Il valore non e' valido, ma qualche continuazione lo e'. */
+        VALID_PREFIX,
+        /** Nessuna continuazione puo' essere valida: va cancellato qualcosa. */
+        INVALID
+    }
+
+    /** Oltre questo numero di stati il DFA di una regex viene ricostruito al reset. */
+    private static final int MAX_DFA_STATES = 2048;
+
+    private static final Automaton EMAIL = new Automaton() {
+        @Override
+        long start() {
+            return EmailValidator.START;
+        }
+
+        @Override
+        long step(long state, char c) {
+            return EmailValidator.step(state, c);
+        }
+
+        @Override
+        boolean isAccepting(long state) {
+            return EmailValidator.isAccepting(state);
+        }
+
+        @Override
+        boolean isRejected(long state) {
+            return EmailValidator.isRejected(state);
+        }
+    };
+
+    private static final Automaton IBAN = new Automaton() {
+        @Override
+        long start() {
+            return Iban.START;
+        }
+
+        @Override
+        long step(long state, char c) {
+            return Iban.step(state, c);
+        }
+
+        @Override
+        boolean isAccepting(long state) {
+            return Iban.isAccepting(state);
+        }
+
+        @Override
+        boolean isRejected(long state) {
+            return Iban.isRejected(state);
+        }
+    };
+
+    private static final Automaton COD_FISC_FULL = new Automaton() {
+        @Override
+        long start() {
+            return CodiceFiscale.START;
+        }
+
+        @Override
+        long step(long state, char c) {
+            return CodiceFiscale.step(state, c);
+        }
+
+        @Override
+        boolean isAccepting(long state) {
+            return CodiceFiscale.isAccepting(state);
+        }
+
+        @Override
+        boolean isRejected(long state) {
+            return CodiceFiscale.isRejected(state);
+        }
+    };
+
+    /** Solo la struttura, come {@link InputValidator#isCodFisc(String)}: lo stato e' la posizione. */
+    private static final Automaton COD_FISC = new Automaton() {
+        @Override
+        long start() {
+            return 0;
+        }
+
+        @Override
+        long step(long state, char c) {
+            if (state < 0 || state == CodiceFiscale.LENGTH) {
+                return -1;
+            }
+            boolean letter = FastMatchers.COD_FISC_LAYOUT.charAt((int) state) == 'L';
+            return (letter ? FastMatchers.isLetter(c) : FastMatchers.isDigit(c)) ? state + 1 : -1;
+        }
+
+        @Override
+        boolean isAccepting(long state) {
+            return state == CodiceFiscale.LENGTH;
+        }
+
+        @Override
+        boolean isRejected(long state) {
+            return state < 0;
+        }
+    };
+
+    private final Automaton automaton;
+    // states[i] e' lo stato dopo i primi i caratteri
+    private long[] states = new long[16];
+    private char[] chars = new char[16];
+    private int length;
+
+    private IncrementalValidator(Automaton automaton) {
+        this.automaton = automaton;
+        states[0] = automaton.start();
+    }
+
+    /**
+     * As {@link InputValidator#isEmail(String)}.
+     */
+    public static IncrementalValidator email() {
+        return new IncrementalValidator(EMAIL);
+    }
+
+    /**
+     * As {@link InputValidator#isIban(String)}, spaces included.
+     */
+    public static IncrementalValidator iban() {
+        return new IncrementalValidator(IBAN);
+    }
+
+    /**
+     * As {@link InputValidator#isCodFisc(String)}: structure only.
+     */
+    public static IncrementalValidator codFisc() {
+        return new IncrementalValidator(COD_FISC);
+    }
+
+    /**
+     * As {@link CodiceFiscale#isValid(CharSequence)}: date and check character too.
+     */
+    public static IncrementalValidator codFiscFull() {
+        return new IncrementalValidator(COD_FISC_FULL);
+    }
+
+    /**
+     * As {@link InputValidator#isValid(String, int, int, boolean)}.
+     */
+    public static IncrementalValidator text(int min, int max, boolean controlSpecialCharacter) {
+        if (min < 0 || min > max) {
+            throw new IllegalArgumentException("length: " + min + "-" + max);
+        }
+        return new IncrementalValidator(new Text(min == 0 ? 1 : min, max, controlSpecialCharacter));
+    }
+
+    /**
+     * As {@link InputValidator#check(String, String)}, for the regexes that {@link LinearRegex}
+     * supports. Characters are matched one UTF-16 unit at a time.
+     *
+     * @throws IllegalArgumentException if the regex uses unsupported syntax, or a <code>$</code>
+     *         followed by more input
+     */
+    public static IncrementalValidator regex(String regex) {
+        LinearRegex linear = LinearRegex.compile(regex);
+        LinearRegex.Dfa dfa = linear == null ? null : linear.dfa();
+        if (dfa == null) {
+            throw new IllegalArgumentException("regex not supported incrementally: " + regex);
+        }
+        return new IncrementalValidator(new Regex(linear, dfa));
+    }
+
+    /**
+     * The validator of <code>rule</code>: EMAIL, IBAN, COD_FISC or COD_FISC_FULL.
+     */
+    public static IncrementalValidator of(Rule rule) {
+        switch (rule) {
+            case EMAIL:
+                return email();
+            case IBAN:
+                return iban();
+            case COD_FISC:
+                return codFisc();
+            case COD_FISC_FULL:
+                return codFiscFull();
+            default:
+                throw new IllegalArgumentException("no incremental form for " + rule);
+        }
+    }
+
+    public Verdict append(char c) {
+        if (length + 1 == chars.length) {
+            chars = Arrays.copyOf(chars, 2 * chars.length);
+            states = Arrays.copyOf(states, 2 * states.length);
+        }
+        chars[length] = c;
+        states[length + 1] = automaton.step(states[length], c);
+        length++;
+        return verdict();
+    }
+
+    public Verdict append(CharSequence s) {
+        for (int i = 0, len = s.length(); i < len; i++) {
+            append(s.charAt(i));
+        }
+        return verdict();
+    }
+
+    /**
+     * Removes the last character, if any.
+     */
+    public Verdict deleteLast() {
+        return delete(1);
+    }
+
+    /**
+     * Removes the last <code>n</code> characters, or all of them if there are fewer.
+     */
+    public Verdict delete(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n: " + n);
+        }
+        length -= Math.min(n, length);
+        return verdict();
+    }
+
+    /**
+     * Replaces the value with <code>value</code> (null is empty), for clients that send the whole
+     * field: the states of the common prefix are kept, only the rest is read.
+     */
+    public Verdict update(CharSequence value) {
+        int len = value == null ? 0 : value.length();
+        int common = 0;
+        int max = Math.min(len, length);
+        while (common < max && chars[common] == value.charAt(common)) {
+            common++;
+        }
+        if (common == 0) {
+            reset();
+        } else {
+            length = common;
+        }
+        return appendFrom(value, common, len);
+    }
+
+    public Verdict reset() {
+        length = 0;
+        automaton.reset();
+        states[0] = automaton.start();
+        return verdict();
+    }
+
+    public Verdict verdict() {
+        long state = states[length];
+        if (automaton.isAccepting(state)) {
+            return Verdict.VALID;
+        }
+        return automaton.isRejected(state) ? Verdict.INVALID : Verdict.VALID_PREFIX;
+    }
+
+    public boolean isValid() {
+        return verdict() == Verdict.VALID;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the current value.
+     */
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+
+    private Verdict appendFrom(CharSequence value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            append(value.charAt(i));
+        }
+        return verdict();
+    }
+
+    /**
+     * Automa con lo stato in un <code>long</code>. Uno stato rifiutato resta rifiutato.
+     */
+    private abstract static class Automaton {
+
+        abstract long start();
+
+        abstract long step(long state, char c);
+
+        abstract boolean isAccepting(long state);
+
+        /**
+         * True if no continuation can be accepted.
+         */
+        abstract boolean isRejected(long state);
+
+        /**
+         * Chiamato quando non ci sono piu' stati in uso.
+         */
+        void reset() {
+        }
+    }
+
+    /**
+     * {@link InputValidator#isValid(String, int, int, boolean)}: lunghezza (32 bit), almeno un
+     * carattere non blank, almeno un carattere speciale.
+     */
+    private static final class Text extends Automaton {
+
+        private static final long LENGTH_MASK = 0xFFFFFFFFL;
+        private static final long NOT_BLANK = 1L << 32;
+        private static final long SPECIAL = 1L << 33;
+
+        private final int min;
+        private final int max;
+        private final boolean controlSpecialCharacter;
+
+        Text(int min, int max, boolean controlSpecialCharacter) {
+            this.min = min;
+            this.max = max;
+            this.controlSpecialCharacter = controlSpecialCharacter;
+        }
+
+        @Override
+        long start() {
+            return 0;
+        }
+
+        @Override
+        long step(long state, char c) {
+            if ((state & LENGTH_MASK) <= max) {
+                state++;
+            }
+            if (c > ' ') {
+                state |= NOT_BLANK;
+                if (controlSpecialCharacter && InputValidator.SPECIAL.contains(c)) {
+                    state |= SPECIAL;
+                }
+            }
+            return state;
+        }
+
+        @Override
+        boolean isAccepting(long state) {
+            long len = state & LENGTH_MASK;
+            return len >= min && len <= max && (state & NOT_BLANK) != 0 && (state & SPECIAL) == 0;
+        }
+
+        @Override
+        boolean isRejected(long state) {
+            return (state & LENGTH_MASK) > max || (state & SPECIAL) != 0;
+        }
+    }
+
+    private static final class Regex extends Automaton {
+
+        private final LinearRegex linear;
+        private LinearRegex.Dfa dfa;
+
+        Regex(LinearRegex linear, LinearRegex.Dfa dfa) {
+            this.linear = linear;
+            this.dfa = dfa;
+        }
+
+        @Override
+        long start() {
+            return LinearRegex.Dfa.START;
+        }
+
+        @Override
+        long step(long state, char c) {
+            return dfa.step((int) state, c);
+        }
+
+        @Override
+        boolean isAccepting(long state) {
+            return dfa.isAccepting((int) state);
+        }
+
+        @Override
+        boolean isRejected(long state) {
+            return dfa.isDead((int) state);
+        }
+
+        @Override
+        void reset() {
+            // gli stati restano in memoria finche' si usa il validatore
+            if (dfa.size() > MAX_DFA_STATES) {
+                dfa = linear.dfa();
+            }
+        }
+    }
+
+}
@@ -1,9 +1,7 @@
 package it.alexpiex.mie;
 
-import java.text.DecimalFormat;
-import java.text.ParseException;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.util.Locale;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -21,65 +19,92 @@ public class InputValidator extends DateUtil {
     public static final String COD_FISC = "[a-zA-Z]{6}[0-9]{2}[a-zA-Z][0-9]{2}[a-zA-Z][0-9]{3}[a-zA-Z]";
     public static final String IMPORT = "^([0-9]{1})+((\\,)[0-9]{1,2})?$";
     public static final String ATOM = "[a-zA-Z0-9!#$%&'*+/=?^_`{|}~-]";
-    public static final String DOMAIN = "(" + ATOM + "+(\\." + ATOM + "+)+";
+    public static final String DOMAIN = "(" + ATOM + "+(\\." + ATOM + "+)+)";
     public static final String IP_DOMAIN = "\\[[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\]";
 
-    private static Pattern patternDate      = Pattern.compile("[0-9]{1,2}/[0-9]{1,2}/[0-9]{4}");
-    private static Pattern patternDateTime  = Pattern.compile("[0-9]{1,2}/[0-9]{1,2}/[0-9]{4} [0-9]{2}:[0-9]{2}:[0-9]{2}");
     private static Pattern patternString    = Pattern.compile("[a-zA-Z0-9_.-]*");
     private static Pattern patternQualita   = Pattern.compile("[a-zA-Z0-9_.,-]*");
     private static Pattern patternNote      = Pattern.compile("[a-zA-Z0-9_.,\\s'-]*");
     private static Pattern patternPhone      = Pattern.compile("[0-9]{9,11}");
     private static Pattern patternEuro      = Pattern.compile("^(0|((\\d{1,3})(\\.\\d{3})*))(,\\d{1,2})?$");
     private static Pattern patternEuro2     = Pattern.compile("(^\\d+)(\\,\\d{1,2})?$");
-    private static Pattern patternEmail     = Pattern.compile("^[0-9a-z]([-_.]?[0-9a-z])*@[0-9a-z]([-.]?[0-9a-z])*\\.([a-z]{2,4})$");
-    private static Pattern patternEmail2    = Pattern.compile("[a-zA-Z0-9_.-]{3,50}@[a-zA-Z1-9-]{3,30}[.][a-z1-9]{2,5}([.][a-z1-9]{2,5})?");
+    private static Pattern patternMobile    = Pattern.compile("^[0-9]{10}$");
+    private static Pattern patternNum       = Pattern.compile("-?\\d+");
+    private static Pattern patternResource  = Pattern.compile("[a-zA-Z0-9\\/\\.\\-\\_]{0,}");
 
-    private static Pattern patternAlphabetic= Pattern.compile("([a-zA-Z-])+((\'(\\s)*){0,1}([a-zA-Z-])*)*");
+    // stesse stringhe di ([a-zA-Z-])+((\'(\\s)*){0,1}([a-zA-Z-])*)*, senza backtracking catastrofico
+    private static Pattern patternAlphabetic= Pattern.compile("[a-zA-Z-]++(?:'\\s*+|[a-zA-Z-]++)*+");
     private static Pattern codiceFiscale    = Pattern.compile("^[a-zA-Z]{6}[0-9]{2}[a-zA-Z]{1}[0-9]{2}[a-zA-Z]{1}[0-9]{3}[a-zA-Z]{1}");
-    private static Pattern patternField     = Pattern.compile("[a-zA-Z-0-9.,'\\s]*");
 
     private final static String SPECIALCHARS = "/*!@#$%^&*()\"{}_[]|\\?<>,.'";
-    private static final char [] SPECIAL_CHAR  = new char[]{'/','*','!','@','#','$','%','^','&','*','','','(',')','\"','{','}','_','[',']','|','\\','?','<','>',',','.','\'' } ;
-    private static StringBuilder _errorMsg = new StringBuilder();
-    private static Map<String, String> _error = new HashMap<String, String>();
+    static final CharClass SPECIAL = CharClass.of(SPECIALCHARS);
+
+    // whitelist delle regex "[...]*" come CharClass: sugli input lunghi si verificano a blocchi
+    private static final CharClass WHITESPACE = CharClass.of(" \t\n\u000B\f\r");
+    private static final CharClass FIELD_CHARS = CharClass.range('a', 'z').union(CharClass.range('A', 'Z'))
+            .union(CharClass.range('\u00E0', '\u00F9')).union(CharClass.range('0', '9'))
+            .union(CharClass.of(".,'")).union(WHITESPACE);
+    private static final CharClass ALFANUMERIC_CHARS = CharClass.range('A', 'Z').union(CharClass.range('a', 'z'))
+            .union(CharClass.range('0', '9')).union(WHITESPACE)
+            .union(CharClass.of("[]\u00E0\u00E8\u00EC\u00F2\u00F9\u00C0\u00C8\u00CC\u00D2\u00D9\u00E1\u00E9\u00ED\u00F3\u00FA\u00FD"
+                    + "\u00C1\u00C9\u00CD\u00D3\u00DA\u00DD\u00E2\u00EA\u00EE\u00F4\u00FB\u00C2\u00CA\u00CE\u00D4\u00DB"
+                    + "\u00E3\u00F1\u00F5\u00C3\u00D1\u00D5\u00E4\u00EB\u00EF\u00F6\u00FC\u00FF\u00C4\u00CB\u00CF\u00D6\u00DC\u0178"
+                    + "\u00E7\u00C7\u00DF\u00D8\u00F8\u00C5\u00E5\u00C6\u00E6\u0153"
+                    + ".@:'-/,<>_*"));
+    private static final CharClass DOT = CharClass.of(".");
+    /** Cifre ASCII e separatori di matchesNumbers e matchesTelFax. */
+    private static final CharClass NUMBERS_CHARS = CharClass.range('0', '9').union(CharClass.of("."));
+    private static final CharClass TEL_FAX_CHARS = CharClass.range('0', '9').union(CharClass.of(". \\/-"));
 
-    public static String getErrorMsg() {
+    /**
+     * Errori dei metodi senza {@link ValidationErrors} esplicito: uno per thread, nessun lock.
+     * Con thread riutilizzati (pool del servlet container) va svuotato con {@link #clearErrors()}
+     * all'inizio di ogni richiesta.
+     */
+    private static final ThreadLocal<ValidationErrors> _error = new ThreadLocal<ValidationErrors>() {
+        @Override
+        protected ValidationErrors initialValue() {
+            return new ValidationErrors();
+        }
+    };
 
-        String strOut = "";
-        if(!_error.isEmpty()){
-            for (Map.Entry entry : _error.entrySet()) {
-                //System.out.println("Key: " + entry.getKey() + " Object: " + entry.getValue());
-                _errorMsg.append(entry.getValue());
-                _errorMsg.append("#");
-            }
+    /**
+     * Returns the error collector of the current thread.
+     */
+    public static ValidationErrors getErrors() {
+        return _error.get();
+    }
 
-            String[] lines = _errorMsg.toString().split("#");
+    public static void clearErrors() {
+        _error.get().clear();
+    }
 
-            for(String s: lines){
-                //System.out.println("Content = " + s);
-                //System.out.println("Length = " + s.length());
-                strOut += s + "<br />";
-            }
-        }
-        return strOut;
+    public static String getErrorMsg() {
+        return _error.get().getErrorMsg();
     }
 
     public static boolean hasErrors(){
-        //return (errorMsg.toString().length()>0)?true:false;
-        if(_error.isEmpty()){
-           return false;
-        } else {
-            return true;
-        }
+        return _error.get().hasErrors();
     }
 
     public static boolean isEmptyString(String s) {
-        if (s == null || s.trim().equals("") || s.length() == 0) {
+        // come s.trim().equals(""), senza la copia
+        return isBlank(s);
+    }
+
+    /**
+     * Come {@link #isEmptyString(String)} per qualsiasi CharSequence.
+     */
+    static boolean isBlank(CharSequence s) {
+        if (s == null) {
             return true;
-        } else {
-            return false;
         }
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -90,47 +115,94 @@ public class InputValidator extends DateUtil {
      * @return Boolean	True if can be transformed to requested type. False otherwise.
      */
     private static Boolean isType(String testStr, TypeEnum type) {
-        try {
-
-            if (type.getType().equalsIgnoreCase("float")) {
-                Float.parseFloat(testStr);
-            } else if (type.getType().equalsIgnoreCase("int")) {
-                Integer.parseInt(testStr);
-            } else if (type.getType().equalsIgnoreCase("double")) {
-                Double.parseDouble(testStr);
-            }
-            return true;
+        return NumericParser.check(testStr, type) == ValidationStatus.VALID;
+    }
 
-        } catch(Exception e) {
-            return false;
+    /**
+     * Verifica <code>input</code> contro <code>regex</code>; la regex viene compilata una sola volta
+     * tramite {@link PatternRegistry}.
+     */
+    public static boolean check(String regex, String input) {
+        if (!Metrics.isEnabled()) {
+            return cachedMatch(regex, input);
         }
+        long start = System.nanoTime();
+        boolean matched = cachedMatch(regex, input);
+        Metrics.recordMatch(regex, input, matched, start);
+        return matched;
+    }
 
+    private static boolean cachedMatch(String regex, String input) {
+        ValidationCache cache = ValidationCache.installed();
+        if (cache == null || !cache.cachesRegex()) {
+            return match(regex, input);
+        }
+        ValidationCache.Key key = cache.key(regex, input, false);
+        int cached = cache.get(key);
+        if (cached != ValidationCache.MISS) {
+            return cached != 0;
+        }
+        boolean matched = match(regex, input);
+        cache.put(key, matched ? 1 : 0);
+        return matched;
     }
 
-    public static boolean check(String regex, String input) {
-        if (Pattern.matches(regex, input)) {
+    private static boolean match(String regex, String input) {
+        if (SafeRegex.isSafeMode()) {
+            return PatternRegistry.getSafe(regex).matches(input);
+        }
+        if (DATE.equals(regex)) {
+            // stesse date della regex, senza l'alternanza
+            return DateValidator.DATE.isValid(input);
+        }
+        if (ALFANUMERIC.equals(regex)) {
+            return ALFANUMERIC_CHARS.matchesAllOf(input);
+        }
+        if (PatternRegistry.matches(regex, input)) {
             return true;
         } else {
             return false;
         }
     }
 
-    /**
-     *  Counts the number of special characters in s.
-     */
-    private static int countSpecialCharacterCount(String s) {
-        if (s == null || s.trim().isEmpty()) {
-            return 0;
+    private static CharSequence ascii(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length + ", size: " + bytes.length);
         }
-        int theCount = 0;
+        return new ByteSequence().wrap(bytes, offset, length);
+    }
 
-        for (int i = 0; i < s.length(); i++) {
-            //String car = s.substring(i, i+1);
-            if (SPECIALCHARS.contains(s.substring(i, i+1))) {
-                theCount++;
+    private static CharSequence ascii(ByteBuffer buffer, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > buffer.limit() - length) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length + ", limit: " + buffer.limit());
+        }
+        return new ByteSequence().wrap(buffer, offset, length);
+    }
+
+    static CharClass specialCharacters() {
+        return SPECIAL;
+    }
+
+    /**
+     * Controlli comuni dei metodi isValid in un solo passaggio: stringa non vuota, lunghezza
+     * compresa tra min e max e, se richiesto, nessun carattere speciale.
+     */
+    private static boolean isValidText(String str, int min, int max, boolean controlSpecialCharacter) {
+        if (str == null) return false;
+
+        int len = str.length();
+        if (len < min || len > max) return false;
+
+        boolean blank = true;
+        for (int i = 0; i < len; i++) {
+            char c = str.charAt(i);
+            if (c > ' ') {
+                if (!controlSpecialCharacter) return true;
+                if (SPECIAL.contains(c)) return false;
+                blank = false;
             }
         }
-        return theCount;
+        return !blank;
     }
 
     public static boolean isNotNullString(String str){
@@ -143,96 +215,78 @@ public class InputValidator extends DateUtil {
     }
 
     public static boolean isValid(String str, boolean controlSpecialCharacter){
-
-        if(isEmptyString(str)){
-            return false;
-        }
-
-        if(controlSpecialCharacter){
-            if(countSpecialCharacterCount(str)>0){
-                return false;
-            }
-        }
-
-        return true;
+        return isValidText(str, 0, Integer.MAX_VALUE, controlSpecialCharacter);
     }
 
     public static boolean isValid(String str, int min, int max){
 
-        if(isEmptyString(str)) return false;
-
         if ( min == 0) min++;
 
-        if(str.length()>=min && str.length()<=max){
-            return true;
-        } else {
-            return false;
-        }
-
+        return isValidText(str, min, max, false);
     }
 
     public static boolean isValid(String str, int max){
-
-        if(isEmptyString(str)) return false;
-
-        if(str.length()<=max){
-            return true;
-        } else {
-            return false;
-        }
-
+        return isValidText(str, 0, max, false);
     }
 
     public static boolean isValid(String str, int max, boolean ControlSpecialCharacter){
-
-        if(isEmptyString(str)) return false;
-
-        if(ControlSpecialCharacter){
-            if(countSpecialCharacterCount(str)>0){
-                return false;
-            }
-        }
-
-        if(str.length()<=max){
-            return true;
-        } else {
-            return false;
-        }
-
+        return isValidText(str, 0, max, ControlSpecialCharacter);
     }
 
     public static boolean isValid(String str, int min, int max, boolean ControlSpecialCharacter){
 
-        if(isEmptyString(str)) return false;
-
-        if(ControlSpecialCharacter){
-            if(countSpecialCharacterCount(str)>0){
-                return false;
-            }
-        }
-
         if ( min == 0) {
             min++;
         }
 
-        if(str.length()>=min && str.length()<=max){
-            return true;
-        } else {
-            return false;
-        }
+        return isValidText(str, min, max, ControlSpecialCharacter);
     }
 
     public static boolean isNum(String num){
-
-        if(isEmptyString(num)) return false;
         //boolean b = num.matches("^[+-]?(?=.)\\d*(\\.\\d+)?$");
-        boolean b = num.matches("-?\\d+");
-        return b;
+        return isNum((CharSequence) num);
+    }
+
+    public static boolean isNum(CharSequence num) {
+        return !isBlank(num) && Rule.NUM.evaluate(num);
+    }
+
+    /**
+     * Come {@link #isNum(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code>, senza decodificarli.
+     */
+    public static boolean isNum(byte[] bytes, int offset, int length) {
+        return isNum(ascii(bytes, offset, length));
+    }
+
+    /**
+     * Come {@link #isNum(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code> (indici assoluti, la posizione del buffer non cambia).
+     */
+    public static boolean isNum(ByteBuffer buffer, int offset, int length) {
+        return isNum(ascii(buffer, offset, length));
+    }
+
+    static boolean matchesNum(CharSequence num) {
+        if (FastMatchers.useScanner(FastMatchers.Format.NUM)) return FastMatchers.isNum(num);
+        return patternNum.matcher(num).matches();
     }
 
     public static boolean isNumbers(String str) {
 
         if(isEmptyString(str)) return false;
+        return Rule.NUMBERS.evaluate(str);
+    }
+
+    static boolean matchesNumbers(CharSequence str) {
+
+        // solo cifre ASCII e al piu' un punto: basta la scansione a blocchi
+        if (str != null && str.length() >= CharClass.VECTOR_THRESHOLD) {
+            int start = str.charAt(0) == '-' || str.charAt(0) == '+' ? 1 : 0;
+            if (NUMBERS_CHARS.indexNotIn(str, start) < 0) {
+                return DOT.count(str) <= 1;
+            }
+        }
 
         boolean esito = true;
         int countSeparator = 0;
@@ -261,18 +315,58 @@ public class InputValidator extends DateUtil {
     }
 
     public static boolean isEuro(String str) {
-        if(isEmptyString(str)) return false;
+        return isEuro((CharSequence) str);
+    }
+
+    public static boolean isEuro(CharSequence str) {
+        return !isBlank(str) && Rule.EURO.evaluate(str);
+    }
+
+    /**
+     * Come {@link #isEuro(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code>, senza decodificarli.
+     */
+    public static boolean isEuro(byte[] bytes, int offset, int length) {
+        return isEuro(ascii(bytes, offset, length));
+    }
+
+    /**
+     * Come {@link #isEuro(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code> (indici assoluti, la posizione del buffer non cambia).
+     */
+    public static boolean isEuro(ByteBuffer buffer, int offset, int length) {
+        return isEuro(ascii(buffer, offset, length));
+    }
+
+    static boolean matchesEuro(CharSequence str) {
+        if (FastMatchers.useScanner(FastMatchers.Format.EURO)) return FastMatchers.isEuro(str);
         return patternEuro.matcher(str).matches();
     }
 
     public static boolean isEmail(String str) {
         if(isEmptyString(str)) return false;
-        return patternEmail2.matcher(str).matches();
+        return Rule.EMAIL.evaluate(str);
+    }
+
+    /**
+     * Dot-atom@dominio (anche IDN) o dot-atom@[IPv4], in tempo lineare: vedi {@link EmailValidator}.
+     */
+    static boolean matchesEmail(CharSequence str) {
+        return EmailValidator.isValid(str);
     }
 
     public static boolean isTelFax(String telFax){
 
         if(isEmptyString(telFax)) return false;
+        return Rule.TEL_FAX.evaluate(telFax);
+    }
+
+    static boolean matchesTelFax(CharSequence telFax) {
+
+        if (TEL_FAX_CHARS.matchesAllOf(telFax)) {
+            return true;
+        }
+        // le cifre non ASCII (Character.isDigit) passano dal ciclo
 
         if(telFax.length() != 0){
             for (int i = 0; i < telFax.length(); i++) {
@@ -286,18 +380,67 @@ public class InputValidator extends DateUtil {
     }
 
     public static boolean isPhone(String phone){
-        if(isEmptyString(phone)) return false;
+        return isPhone((CharSequence) phone);
+    }
+
+    public static boolean isPhone(CharSequence phone) {
+        return !isBlank(phone) && Rule.PHONE.evaluate(phone);
+    }
+
+    /**
+     * Come {@link #isPhone(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code>, senza decodificarli.
+     */
+    public static boolean isPhone(byte[] bytes, int offset, int length) {
+        return isPhone(ascii(bytes, offset, length));
+    }
+
+    /**
+     * Come {@link #isPhone(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code> (indici assoluti, la posizione del buffer non cambia).
+     */
+    public static boolean isPhone(ByteBuffer buffer, int offset, int length) {
+        return isPhone(ascii(buffer, offset, length));
+    }
+
+    static boolean matchesPhone(CharSequence phone) {
+        if (FastMatchers.useScanner(FastMatchers.Format.PHONE)) return FastMatchers.isPhone(phone);
         return patternPhone.matcher(phone).matches();
     }
 
     public static boolean isMobile(String mobile) {
-        if(isEmptyString(mobile)) return false;
-        return Pattern.matches("^[0-9]{10}$", mobile);
+        return isMobile((CharSequence) mobile);
+    }
+
+    public static boolean isMobile(CharSequence mobile) {
+        return !isBlank(mobile) && Rule.MOBILE.evaluate(mobile);
+    }
+
+    /**
+     * Come {@link #isMobile(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code>, senza decodificarli.
+     */
+    public static boolean isMobile(byte[] bytes, int offset, int length) {
+        return isMobile(ascii(bytes, offset, length));
+    }
+
+    /**
+     * Come {@link #isMobile(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code> (indici assoluti, la posizione del buffer non cambia).
+     */
+    public static boolean isMobile(ByteBuffer buffer, int offset, int length) {
+        return isMobile(ascii(buffer, offset, length));
+    }
+
+    static boolean matchesMobile(CharSequence mobile) {
+        if (FastMatchers.useScanner(FastMatchers.Format.MOBILE)) return FastMatchers.isMobile(mobile);
+        return patternMobile.matcher(mobile).matches();
     }
 
     /**
      * Returns true if the specified number string represents a valid integer in
-     * the specified range, using the default Locale.
+     * the specified range, using the default Locale. Grouping separators are
+     * allowed and decimals are truncated; the whole string must be a number.
      *
      * @param numberString a String representing an integer
      * @param min the minimal value in the valid range
@@ -305,40 +448,87 @@ public class InputValidator extends DateUtil {
      * @return true if valid, false otherwise
      */
     public static boolean isInteger(String numberString, int min, int max) {
+        return isInteger(numberString, min, max, _error.get());
+    }
+
+    /**
+     * Come {@link #isInteger(String, int, int)}, registrando gli errori in <code>errors</code>.
+     */
+    public static boolean isInteger(String numberString, int min, int max, ValidationErrors errors) {
 
         if(isEmptyString(numberString)) return false;
 
-        DecimalFormat numberFormat = new DecimalFormat();
-        Integer validInteger = null;
-        try {
-            Number aNumber = numberFormat.parse(numberString);
-            int anInt = aNumber.intValue();
-            if (anInt >= min && anInt <= max) {
-                validInteger = new Integer(anInt);
-            }
-        } catch (ParseException e) {
-            _error.put("isInteger(...)", e.getMessage());
+        NumberSyntax syntax = NumberSyntax.forLocale(Locale.getDefault(Locale.Category.FORMAT));
+        ValidationStatus status = syntax.checkRange(numberString, min, max);
+        if (status == ValidationStatus.NOTANUMBER) {
+            errors.put("isInteger(...)", status);
         }
-        return validInteger != null;
+        return status == ValidationStatus.VALID;
     }
 
     public static boolean isCodFisc(String codicefiscale) {
+        return isCodFisc(codicefiscale, _error.get());
+    }
 
-        if(isEmptyString(codicefiscale)){
+    public static boolean isCodFisc(String codicefiscale, ValidationErrors errors) {
+        return isCodFisc((CharSequence) codicefiscale, errors);
+    }
+
+    public static boolean isCodFisc(CharSequence codicefiscale) {
+        return isCodFisc(codicefiscale, _error.get());
+    }
+
+    /**
+     * Come {@link #isCodFisc(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code>, senza decodificarli.
+     */
+    public static boolean isCodFisc(byte[] bytes, int offset, int length) {
+        return isCodFisc(ascii(bytes, offset, length));
+    }
+
+    /**
+     * Come {@link #isCodFisc(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code> (indici assoluti, la posizione del buffer non cambia).
+     */
+    public static boolean isCodFisc(ByteBuffer buffer, int offset, int length) {
+        return isCodFisc(ascii(buffer, offset, length));
+    }
+
+    public static boolean isCodFisc(CharSequence codicefiscale, ValidationErrors errors) {
+
+        if(isBlank(codicefiscale)){
             //appendError("La codice fiscale immesso vuoto!");
-            _error.put("isCodFisc(...)", "Codice fiscale non valorizzato");
+            errors.put("isCodFisc(...)", "Codice fiscale non valorizzato");
             return false;
         }
 
-        Boolean b = false;
-        try {
-            //String codiceFiscaleReg = "^[a-zA-Z]{6}[0-9]{2}[a-zA-Z]{1}[0-9]{2}[a-zA-Z]{1}[0-9]{3}[a-zA-Z]{1}";
-            b = codicefiscale.matches(codiceFiscale.pattern());
-        } catch (Exception e) {
-            //appendError("Error isValidCodFisc(): " + e.getMessage());
-            _error.put("isCodFisc(...)", e.getMessage());
+        return Rule.COD_FISC.evaluate(codicefiscale);
+    }
+
+    /**
+     * Verifica completa del codice fiscale: oltre alla struttura controllata da
+     * {@link #isCodFisc(String)}, mese, giorno e carattere di controllo (vedi {@link CodiceFiscale}).
+     */
+    public static boolean isCodFiscValid(String codicefiscale) {
+        return isCodFiscValid(codicefiscale, _error.get());
+    }
+
+    public static boolean isCodFiscValid(String codicefiscale, ValidationErrors errors) {
+        if (isEmptyString(codicefiscale)) {
+            errors.put("isCodFiscValid(...)", "Codice fiscale non valorizzato");
+            return false;
         }
-        return b;
+        ValidationStatus status = CodiceFiscale.check(codicefiscale);
+        if (status != ValidationStatus.VALID) {
+            errors.put("isCodFiscValid(...)", status);
+            return false;
+        }
+        return true;
+    }
+
+    static boolean matchesCodFisc(CharSequence codicefiscale) {
+        if (FastMatchers.useScanner(FastMatchers.Format.COD_FISC)) return FastMatchers.isCodFisc(codicefiscale);
+        return codiceFiscale.matcher(codicefiscale).matches();
     }
 
     /**
@@ -349,39 +539,35 @@ public class InputValidator extends DateUtil {
      */
     public static boolean isAlphabetic(String str) {
         if(isEmptyString(str)) return false;
+        return Rule.ALPHABETIC.evaluate(str);
+    }
+
+    static boolean matchesAlphabetic(CharSequence str) {
         return patternAlphabetic.matcher(str).matches();
     }
 
     public static boolean isValidField(String str) {
         if(isEmptyString(str)) return false;
-        return patternField.matcher(str).matches();
+        return Rule.FIELD.evaluate(str);
+    }
+
+    static boolean matchesField(CharSequence str) {
+        return FIELD_CHARS.matchesAllOf(str);
     }
 
 
     /**
      * Restituisce la stringa s trasformando le lettere accentate in non accentate,
-     * ad esempio "and" viene trasformata "ando".
+     * ad esempio "and" viene trasformata "ando". Vale per ogni lettera accentata Unicode,
+     * non solo per le dodici vocali italiane () delle versioni precedenti: anche
+     * "" diventa "n", "" "c", "" "ss", "" "AE", e i segni diacritici combinanti sono
+     * eliminati. Vedi {@link TextNormalizer#NO_ACCENTS}.
      *
      * @param s
      * @return
      */
     public static String noStressedLetters(String s) {
-
-        final String ACCENTATE = "";
-        final String NOACCENTO = "AEEIOUaeeiou";
-        int i = 0;
-        //scorre la stringa originale
-        while (i < s.length()) {
-            int p = ACCENTATE.indexOf(s.charAt(i));
-            //se ha trovato una lettera accentata
-            if (p > -1) {
-                //sostituisce con la relativa non accentata
-                s = s.substring(0, i) + NOACCENTO.charAt(p) + s.substring(i + 1);
-            }
-            i++;
-        }
-
-        return s;
+        return TextNormalizer.NO_ACCENTS.normalize(s);
     }
 
      /**
@@ -412,10 +598,24 @@ public class InputValidator extends DateUtil {
          return isValid;
      }
 
+    /**
+     * Returns true if <code>value</code> is one of <code>validCodes</code>. Unlike
+     * {@link #isRange(String, String[], boolean)} the lookup takes constant time: build the
+     * CodeSet once, e.g. <code>CodeSet.of(true, provinces)</code>, and reuse it.
+     *
+     * @param value the value to validate
+     * @param validCodes the valid codes, case is ignored if the set was built so
+     * @return true if valid, false otherwise
+     */
+    public static boolean isRange(CharSequence value, CodeSet validCodes) {
+        return validCodes.contains(value);
+    }
+
     /**
      * Data una stringa con nome e cognome, lo trasforma con le iniziali in mauiscolo.
      * Esempio: maria adele mandela -> Maria Adele Mandela
      *          dell'orco adele     -> Dell'Orco Adele
+     * Gli spazi ripetuti sono ridotti a uno, vedi {@link TextNormalizer#NAME}.
      *
      * @param name
      * @return
@@ -423,58 +623,58 @@ public class InputValidator extends DateUtil {
     public static String formatName(String name){
 
         if(isEmptyString(name)) return "";
+        if (name.length() <= 2) return "";
 
-        String ret= "";
-        if (name != null && name.length() > 2) {
-            name = name.replaceAll("\'", "\' ");
-			//System.out.println("nuovo name: "+name);
-            String[] nomi = name.split(" ");
-            for (int i=0; i<nomi.length; i++) {
-                String finalName = (""+nomi[i].charAt(0)).toUpperCase()+nomi[i].substring(1).toLowerCase();
-                ret += finalName+" ";
-                ret = ret.replaceAll("\' ", "\'");
-            }
-        }
-
-
-        return ret.trim();
+        return TextNormalizer.NAME.normalize(name);
     }
 
     public static boolean isIban(String input) {
+        return isIban((CharSequence) input);
+    }
 
-        if(isEmptyString(input)) return false;
-
-        input.replaceAll(" ", "").trim();
-        if (input.length() < 27) return false;
-
-        if (!isOnlyString(input.substring(0, 2)))return false; // Posizioni 1 e 2 non possono contenere cifre
+    public static boolean isIban(CharSequence input) {
+        return !isBlank(input) && Rule.IBAN.evaluate(input);
+    }
 
-        String regex="[a-zA-Z]{2}[0-9]{2}[a-zA-Z0-9]{4}[0-9]{7}([a-zA-Z0-9]?){0,16}";
+    /**
+     * Come {@link #isIban(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code>, senza decodificarli.
+     */
+    public static boolean isIban(byte[] bytes, int offset, int length) {
+        return isIban(ascii(bytes, offset, length));
+    }
 
-        if (!Pattern.matches(regex, input)) return false;
+    /**
+     * Come {@link #isIban(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code> (indici assoluti, la posizione del buffer non cambia).
+     */
+    public static boolean isIban(ByteBuffer buffer, int offset, int length) {
+        return isIban(ascii(buffer, offset, length));
+    }
 
-        return true;
+    /**
+     * Paese, lunghezza, struttura e mod-97; gli spazi del formato stampa sono ammessi (vedi {@link Iban}).
+     */
+    static boolean matchesIban(CharSequence input) {
+        return Iban.isValid(input);
     }
 
     public static boolean isOnlyString(String value){
-        for (int k = 0; k< value.length(); k++){
-            for (int j=0; j<SPECIAL_CHAR.length; j++){
-                if(value.charAt(k) == SPECIAL_CHAR[j]){
-                    return false;
-                }
-            }
-        }
-        return true;
+        return !SPECIAL.matchesAnyOf(value);
     }
 
     public static boolean isYear(String annoInput) {
-        int annoI = -1;
-        try {
-            annoI = Integer.parseInt(annoInput);
-        } catch (NumberFormatException ne) {
-            _error.put("isYear(...)", ne.getMessage());
+        return isYear(annoInput, _error.get());
+    }
+
+    public static boolean isYear(String annoInput, ValidationErrors errors) {
+        ParsedNumber anno = new ParsedNumber();
+        ValidationStatus status = NumericParser.parse(annoInput, Integer.MIN_VALUE, Integer.MAX_VALUE, anno);
+        if (status != ValidationStatus.VALID) {
+            errors.put("isYear(...)", status);
             return false;
         }
+        long annoI = anno.getUnscaledValue();
         //int anno = GregorianCalendar.getInstance().get(GregorianCalendar.YEAR);
         //Lanno di riferimento deve essere compreso tra 1900 e 4712
         if (annoI < 1900) {
@@ -487,12 +687,31 @@ public class InputValidator extends DateUtil {
     }
 
     public static boolean isResource(String numeroRisorsa){
+        return isResource((CharSequence) numeroRisorsa);
+    }
+
+    public static boolean isResource(CharSequence numeroRisorsa) {
+        return !isBlank(numeroRisorsa) && Rule.RESOURCE.evaluate(numeroRisorsa);
+    }
 
-        if(isEmptyString(numeroRisorsa)) return false;
+    /**
+     * Come {@link #isResource(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code>, senza decodificarli.
+     */
+    public static boolean isResource(byte[] bytes, int offset, int length) {
+        return isResource(ascii(bytes, offset, length));
+    }
 
-        String regex="[a-zA-Z0-9\\/\\.\\-\\_]{0,}";
+    /**
+     * Come {@link #isResource(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code> (indici assoluti, la posizione del buffer non cambia).
+     */
+    public static boolean isResource(ByteBuffer buffer, int offset, int length) {
+        return isResource(ascii(buffer, offset, length));
+    }
 
-        if (!Pattern.matches(regex, numeroRisorsa)){
+    static boolean matchesResource(CharSequence numeroRisorsa) {
+        if (!patternResource.matcher(numeroRisorsa).matches()){
             return false;
         }
         return true;
@@ -505,8 +724,55 @@ public class InputValidator extends DateUtil {
      * @return
      */
     public static boolean isImporto(String importo){
-        String regex= "(^\\d+)(\\,\\d{1,2})?$";
-        if (importo==null || !Pattern.matches(regex, importo))
+        return isImporto((CharSequence) importo);
+    }
+
+    public static boolean isImporto(CharSequence importo) {
+        return importo != null && Rule.IMPORTO.evaluate(importo);
+    }
+
+    /**
+     * Come {@link #isImporto(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code>, senza decodificarli.
+     */
+    public static boolean isImporto(byte[] bytes, int offset, int length) {
+        return isImporto(ascii(bytes, offset, length));
+    }
+
+    /**
+     * Come {@link #isImporto(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code> (indici assoluti, la posizione del buffer non cambia).
+     */
+    public static boolean isImporto(ByteBuffer buffer, int offset, int length) {
+        return isImporto(ascii(buffer, offset, length));
+    }
+
+    /**
+     * Numero di carta valido: circuito noto, lunghezza ammessa e Luhn, vedi {@link CardEngine#DEFAULT}.
+     */
+    public static boolean isCreditCard(CharSequence card) {
+        return !isBlank(card) && Rule.CREDIT_CARD.evaluate(card);
+    }
+
+    /**
+     * Come {@link #isCreditCard(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code>, senza decodificarli.
+     */
+    public static boolean isCreditCard(byte[] bytes, int offset, int length) {
+        return isCreditCard(ascii(bytes, offset, length));
+    }
+
+    /**
+     * Come {@link #isCreditCard(CharSequence)} sui byte ASCII/UTF-8 da <code>offset</code> a
+     * <code>offset + length</code> (indici assoluti, la posizione del buffer non cambia).
+     */
+    public static boolean isCreditCard(ByteBuffer buffer, int offset, int length) {
+        return isCreditCard(ascii(buffer, offset, length));
+    }
+
+    static boolean matchesImporto(CharSequence importo) {
+        if (FastMatchers.useScanner(FastMatchers.Format.IMPORTO)) return FastMatchers.isImporto(importo);
+        if (!patternEuro2.matcher(importo).matches())
             return false;
         return true;
     }
@@ -541,153 +807,29 @@ public class InputValidator extends DateUtil {
      * Needs to have at least one lower case letter
      * length of password should be at least 6
      * Needs to have at least one special character (%, $, #, @, !)
+     * Le regole sono quelle di {@link PasswordPolicy#DEFAULT}.
      * @param psw
-     * @return
+     * @return true if the password is valid
      */
     public static boolean validPassword (String psw) {
-
-        if(isEmptyString(psw)) return false;
-
-        int upperCaseCount = 0;
-        int lowerCaseCount = 0;
-        int digitCount = 0;
-        int specialCharacterCount = 0;
-        Boolean flag = false;
-
-        int length = psw.length();
-
-        if(length < 6) {
-            //System.out.println("The password is invalid. Ensure you have a password with atleast 6 characters");
-            _error.put("validPassword(...)", "The password is invalid. Ensure you have a password with atleast 6 characters");
-            return false;
-        }
-
-        upperCaseCount = 0;
-        lowerCaseCount = 0;
-        digitCount = 0;
-        specialCharacterCount = 0;
-
-        for (int i = 0; i < length; i++) {
-            char c = psw.charAt(i);
-
-            if (Character.isUpperCase(c)) {
-                upperCaseCount++;
-            }
-
-            if (Character.isLowerCase(c)) {
-                lowerCaseCount++;
-            }
-
-            if (Character.isDigit(c)) {
-                digitCount++;
-            }
-
-            if (c == '$' || c == '#' || c == '%' || c == '!' || c == '@') {
-                specialCharacterCount++;
-            }
-        }
-
-        if (upperCaseCount < 1) {
-            //System.out.println("Invalid password. Add more uppercase characters");
-            _error.put("validPassword(...)", "Invalid password. Add more uppercase characters");
-            return false;
-        }
-
-        if (lowerCaseCount < 1) {
-            //System.out.println("Invalid password. Add more lowercase characters");
-            _error.put("validPassword(...)", "Invalid password. Add more lowercase characters");
-            return false;
-        }
-
-        if (digitCount < 1) {
-            //System.out.println("Invalid password. Add more digits");
-            _error.put("validPassword(...)", "Invalid password. Add more digits");
-            return false;
-        }
-
-        if (specialCharacterCount < 1) {
-            //System.out.println("Invalid password. Add more special characters");
-            _error.put("validPassword(...)", "Invalid password. Add more special characters");
-            return false;
-        }
-
-        if (length >= 6 && upperCaseCount >= 1 && lowerCaseCount >= 1 && digitCount >= 1 && specialCharacterCount >= 1) {
-            //System.out.println("The password has been successfully validated");
-            _error.put("validPassword(...)", "The password has been successfully validated");
-            return false;
-        }
-
-
-        return true;
-    }
-
-} //Fine
-
-
-
-/**
- * Ogni enum ha una regex che definisce i numeri di una carta valida del suo genere.
- */
-enum CreditCard {
-    VISA("^4[0-9]{12}(?:[0-9]{3})?$"),
-    MASTER_CARD("^5[1-5][0-9]{14}$"),
-    AMERICAN_EXPRESS("^3[47][0-9]{13}$"),
-    DINERS("^3(?:0[0-5]|[68][0-9])[0-9]{11}$"),
-    DISCOVER("^6(?:011|5[0-9]{2})[0-9]{12}$"),
-    JCB("^(?:2131|1800|35\\d{3})\\d{11}$");
-
-    private String regex;
-
-    CreditCard(String regex) {
-        this.regex = regex;
+        return validPassword(psw, _error.get());
     }
 
-    public boolean matches(String card) {
-        return card.matches(this.regex);
-    }
-
-    public static String gleanCompany(String card) {
-        for (CreditCard cc : CreditCard.values()) {
-            if (cc.matches(card)) {
-                return String.valueOf(cc);
-            }
-        }
-        return null;
+    public static boolean validPassword (String psw, ValidationErrors errors) {
+        return validPassword(psw, PasswordPolicy.DEFAULT, errors);
     }
-}
-
-enum TypeEnum {
-
-    FLOAT("float"), INT("int"), DOUBLE("double");
 
-    private String tipo;
+    /**
+     * Verifica la password con le regole di <code>policy</code>; il motivo del rifiuto e'
+     * registrato in <code>errors</code>.
+     *
+     * @return true if the password complies with the policy
+     */
+    public static boolean validPassword (String psw, PasswordPolicy policy, ValidationErrors errors) {
 
-    private TypeEnum(String t) {
-        tipo = t;
-    }
+        if(isEmptyString(psw)) return false;
 
-    public String getType() {
-        return tipo;
+        return policy.check(psw, "validPassword(...)", errors) == ValidationStatus.VALIDPASSWORD;
     }
 
-}
-
-enum ValidationStatus {
-    EMPTYORNULL,
-    INVALIDUSERNAME,
-    VALIDUSERNAME,
-    INVALIDPASSWORD,
-    PASSWORDNOTMATCHING,
-    VALIDPASSWORD,
-    INVALIDDATE,
-    VALIDDATE,
-    INVALIDDOB,
-    VALIDDOB,
-    DOBTOOYOUNG,
-    INVALIDNAME,
-    VALIDNAME,
-    INVALIDPHONENUMBER,
-    VALIDPHONENUMBER,
-    INVALID,
-    VALID
-}
\ No newline at end of file
+} //Fine
@@ -0,0 +1,931 @@
+package it.alexpiex.mie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Motore regex in tempo lineare (automa di Thompson simulato alla Pike) per un sottoinsieme
+ * della sintassi di java.util.regex: letterali, classi <code>[...]</code> con intervalli e
+ * negazione, <code>.</code>, <code>\d \w \s</code> e negati, escape di caratteri, gruppi
+ * <code>(...)</code> e <code>(?:...)</code>, alternanza, quantificatori <code>* + ? {n} {n,}
+ * {n,m}</code> anche lazy, <code>^</code> e <code>$</code>.
+ * Ogni posizione dell'input e' visitata una volta per ogni stato dell'automa: il tempo e' al piu'
+ * lunghezza dell'input per dimensione del programma, qualunque sia l'input.
+ * Supporta solo il match dell'intera sequenza, come {@link java.util.regex.Matcher#matches()}.
+ * Per la verifica un carattere alla volta c'e' la forma DFA, {@link #dfa()}.
+ */
+final class LinearRegex {
+
+    /** Istruzioni oltre le quali la regex non e' compilata (ripetizioni molto grandi). */
+    static final int MAX_PROGRAM_SIZE = 10000;
+
+    private static final int CHAR = 0;
+    private static final int SPLIT = 1;
+    private static final int JMP = 2;
+    private static final int BOL = 3;
+    private static final int EOL = 4;
+    private static final int MATCH = 5;
+
+    private static final CharClass LINE_TERMINATORS = CharClass.of("\n\r\u0085\u2028\u2029");
+    private static final CharClass DOT = LINE_TERMINATORS.complement();
+    private static final CharClass DIGIT = CharClass.range('0', '9');
+    private static final CharClass WORD = CharClass.range('a', 'z').union(CharClass.range('A', 'Z'))
+            .union(DIGIT).union(CharClass.of("_"));
+    private static final CharClass SPACE = CharClass.of(" \t\n\u000B\f\r");
+
+    private final int[] ops;
+    private final int[] args1;
+    private final int[] args2;
+    private final CharClass[] sets;
+
+    private LinearRegex(int[] ops, int[] args1, int[] args2, CharClass[] sets) {
+        this.ops = ops;
+        this.args1 = args1;
+        this.args2 = args2;
+        this.sets = sets;
+    }
+
+    /**
+     * Compiles <code>regex</code>, or returns null if it uses syntax outside the supported subset.
+     */
+    static LinearRegex compile(String regex) {
+        Parser parser = new Parser(regex);
+        Node root;
+        try {
+            root = parser.parse();
+        } catch (Unsupported e) {
+            return null;
+        }
+        Emitter emitter = new Emitter();
+        if (!emitter.emit(root)) {
+            return null;
+        }
+        emitter.add(MATCH, 0, 0, null);
+        if (emitter.size > MAX_PROGRAM_SIZE) {
+            return null;
+        }
+        return emitter.toRegex();
+    }
+
+    /**
+     * True if all of <code>input</code> matches. Inputs with surrogate pairs are matched by
+     * code unit, not by code point: callers must check {@link #isBmp(CharSequence)} first.
+     */
+    boolean matches(CharSequence input) {
+        int n = ops.length;
+        int len = input.length();
+        int[] current = new int[n];
+        int[] next = new int[n];
+        // generazione in cui lo stato e' stato aggiunto alla lista: evita duplicati senza azzerare
+        int[] seen = new int[n];
+        // ogni stato entra nella pila al piu' una volta per ogni arco entrante
+        int[] stack = new int[2 * n + 1];
+        int generation = 1;
+        int count = addThread(current, 0, 0, seen, generation, stack, input, 0, len);
+        for (int pos = 0; pos < len; pos++) {
+            char c = input.charAt(pos);
+            generation++;
+            int nextCount = 0;
+            for (int i = 0; i < count; i++) {
+                int pc = current[i];
+                if (ops[pc] == CHAR && sets[pc].contains(c)) {
+                    nextCount = addThread(next, nextCount, pc + 1, seen, generation, stack, input, pos + 1, len);
+                }
+            }
+            if (nextCount == 0) {
+                return false;
+            }
+            int[] t = current;
+            current = next;
+            next = t;
+            count = nextCount;
+        }
+        for (int i = 0; i < count; i++) {
+            if (ops[current[i]] == MATCH) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Aggiunge lo stato e la sua chiusura (salti, biforcazioni e ancore soddisfatte in
+     * <code>pos</code>) alla lista.
+     */
+    private int addThread(int[] list, int count, int start, int[] seen, int generation, int[] stack,
+                          CharSequence input, int pos, int len) {
+        int sp = 0;
+        stack[sp++] = start;
+        while (sp > 0) {
+            int pc = stack[--sp];
+            if (seen[pc] == generation) {
+                continue;
+            }
+            seen[pc] = generation;
+            switch (ops[pc]) {
+                case JMP:
+                    stack[sp++] = args1[pc];
+                    break;
+                case SPLIT:
+                    stack[sp++] = args2[pc];
+                    stack[sp++] = args1[pc];
+                    break;
+                case BOL:
+                    if (pos == 0) {
+                        stack[sp++] = pc + 1;
+                    }
+                    break;
+                case EOL:
+                    if (isEnd(input, pos, len)) {
+                        stack[sp++] = pc + 1;
+                    }
+                    break;
+                default:
+                    list[count++] = pc;
+                    break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * <code>$</code> di java.util.regex: fine dell'input o prima del terminatore di riga finale.
+     */
+    private static boolean isEnd(CharSequence input, int pos, int len) {
+        if (pos == len) {
+            return true;
+        }
+        if (pos == len - 1) {
+            return LINE_TERMINATORS.contains(input.charAt(pos));
+        }
+        return pos == len - 2 && input.charAt(pos) == '\r' && input.charAt(pos + 1) == '\n';
+    }
+
+    /**
+     * Returns a new lazily built DFA of this regex, or null if the regex has a <code>$</code>
+     * followed by more input (its outcome depends on whether the input ends there).
+     */
+    Dfa dfa() {
+        boolean[] live = live();
+        for (int pc = 0; pc < ops.length; pc++) {
+            if (ops[pc] == EOL && live[pc] && consumesAfter(pc + 1, live)) {
+                return null;
+            }
+        }
+        return new Dfa(live);
+    }
+
+    /**
+     * Stati da cui si puo' arrivare a MATCH dopo il primo carattere (BOL non passa piu').
+     */
+    private boolean[] live() {
+        int n = ops.length;
+        // archi all'indietro, in liste concatenate
+        int[] head = new int[n];
+        int[] next = new int[2 * n];
+        int[] from = new int[2 * n];
+        Arrays.fill(head, -1);
+        int edges = 0;
+        for (int pc = 0; pc < n; pc++) {
+            switch (ops[pc]) {
+                case CHAR:
+                case EOL:
+                    from[edges] = pc;
+                    next[edges] = head[pc + 1];
+                    head[pc + 1] = edges++;
+                    break;
+                case JMP:
+                    from[edges] = pc;
+                    next[edges] = head[args1[pc]];
+                    head[args1[pc]] = edges++;
+                    break;
+                case SPLIT:
+                    from[edges] = pc;
+                    next[edges] = head[args1[pc]];
+                    head[args1[pc]] = edges++;
+                    from[edges] = pc;
+                    next[edges] = head[args2[pc]];
+                    head[args2[pc]] = edges++;
+                    break;
+                default:
+                    break;
+            }
+        }
+        boolean[] live = new boolean[n];
+        int[] stack = new int[n];
+        int sp = 0;
+        for (int pc = 0; pc < n; pc++) {
+            if (ops[pc] == MATCH) {
+                live[pc] = true;
+                stack[sp++] = pc;
+            }
+        }
+        while (sp > 0) {
+            for (int e = head[stack[--sp]]; e >= 0; e = next[e]) {
+                if (!live[from[e]]) {
+                    live[from[e]] = true;
+                    stack[sp++] = from[e];
+                }
+            }
+        }
+        return live;
+    }
+
+    /**
+     * True if a live CHAR can be reached from <code>start</code> without consuming input.
+     */
+    private boolean consumesAfter(int start, boolean[] live) {
+        boolean[] seen = new boolean[ops.length];
+        int[] stack = new int[2 * ops.length + 1];
+        int sp = 0;
+        stack[sp++] = start;
+        while (sp > 0) {
+            int pc = stack[--sp];
+            if (seen[pc]) {
+                continue;
+            }
+            seen[pc] = true;
+            switch (ops[pc]) {
+                case CHAR:
+                    if (live[pc]) {
+                        return true;
+                    }
+                    break;
+                case JMP:
+                    stack[sp++] = args1[pc];
+                    break;
+                case SPLIT:
+                    stack[sp++] = args2[pc];
+                    stack[sp++] = args1[pc];
+                    break;
+                case EOL:
+                    stack[sp++] = pc + 1;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return false;
+    }
+
+    static boolean isBmp(CharSequence input) {
+        for (int i = 0, len = input.length(); i < len; i++) {
+            if (Character.isSurrogate(input.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * DFA costruito al bisogno dall'automa: ogni stato e' l'insieme ordinato degli stati
+     * dell'automa vivi dopo i caratteri letti, con le chiusure gia' calcolate. Lo stato 0 e'
+     * l'insieme vuoto (nessuna continuazione puo' fare match), l'1 quello iniziale, che puo'
+     * essere vuoto a sua volta. Le transizioni
+     * dei caratteri ASCII sono memorizzate, le altre ricalcolate; al piu' lunghezza del programma
+     * operazioni per carattere. Non e' thread-safe.
+     */
+    final class Dfa {
+
+        static final int DEAD = 0;
+        static final int START = 1;
+
+        private final boolean[] live;
+        private final List<int[]> states = new ArrayList<int[]>();
+        private final List<int[]> transitions = new ArrayList<int[]>();
+        private final List<Boolean> accepting = new ArrayList<Boolean>();
+        private final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+        // liste di lavoro per le chiusure, come in matches
+        private final int[] seen = new int[ops.length];
+        private final int[] stack = new int[3 * ops.length + 1];
+        private final int[] list = new int[ops.length];
+        private int generation;
+
+        private Dfa(boolean[] live) {
+            this.live = live;
+            add(new int[0], false);
+            generation++;
+            int count = closure(0, 0, true);
+            add(Arrays.copyOf(list, count), true);
+        }
+
+        int step(int state, char c) {
+            int[] memo = c < 128 ? transitions.get(state) : null;
+            if (memo != null && memo[c] >= 0) {
+                return memo[c];
+            }
+            int[] from = states.get(state);
+            generation++;
+            int count = 0;
+            for (int pc : from) {
+                if (ops[pc] == CHAR && sets[pc].contains(c)) {
+                    count = closure(pc + 1, count, false);
+                }
+            }
+            int target = intern(count);
+            if (memo != null) {
+                memo[c] = target;
+            }
+            return target;
+        }
+
+        boolean isAccepting(int state) {
+            return accepting.get(state);
+        }
+
+        /**
+         * True if no continuation can match, i.e. the state has no live thread.
+         */
+        boolean isDead(int state) {
+            return states.get(state).length == 0;
+        }
+
+        /**
+         * Number of states built so far.
+         */
+        int size() {
+            return states.size();
+        }
+
+        /**
+         * Come addThread, senza l'input: BOL passa solo all'inizio e gli EOL restano nell'insieme,
+         * perche' solo alla fine dell'input si sa se sono soddisfatti. Gli stati morti sono scartati.
+         */
+        private int closure(int start, int count, boolean atStart) {
+            int sp = 0;
+            stack[sp++] = start;
+            while (sp > 0) {
+                int pc = stack[--sp];
+                if (seen[pc] == generation) {
+                    continue;
+                }
+                seen[pc] = generation;
+                switch (ops[pc]) {
+                    case JMP:
+                        stack[sp++] = args1[pc];
+                        break;
+                    case SPLIT:
+                        stack[sp++] = args2[pc];
+                        stack[sp++] = args1[pc];
+                        break;
+                    case BOL:
+                        if (atStart) {
+                            stack[sp++] = pc + 1;
+                        }
+                        break;
+                    default:
+                        // CHAR, EOL in attesa della fine dell'input, MATCH
+                        if (live[pc]) {
+                            list[count++] = pc;
+                        }
+                        break;
+                }
+            }
+            return count;
+        }
+
+        private int intern(int count) {
+            if (count == 0) {
+                return DEAD;
+            }
+            int[] set = Arrays.copyOf(list, count);
+            Arrays.sort(set);
+            // i pc stanno in un char (MAX_PROGRAM_SIZE)
+            char[] key = new char[count];
+            for (int i = 0; i < count; i++) {
+                key[i] = (char) set[i];
+            }
+            String k = new String(key);
+            Integer id = ids.get(k);
+            if (id == null) {
+                id = add(set, false);
+                ids.put(k, id);
+            }
+            return id;
+        }
+
+        private int add(int[] set, boolean atStart) {
+            states.add(set);
+            transitions.add(new int[128]);
+            Arrays.fill(transitions.get(transitions.size() - 1), -1);
+            accepting.add(matchesAtEnd(set, atStart));
+            return states.size() - 1;
+        }
+
+        /**
+         * True if MATCH is reachable from <code>set</code> at the end of the input, where every
+         * EOL is satisfied.
+         */
+        private boolean matchesAtEnd(int[] set, boolean atStart) {
+            generation++;
+            int sp = 0;
+            for (int pc : set) {
+                stack[sp++] = pc;
+            }
+            while (sp > 0) {
+                int pc = stack[--sp];
+                if (seen[pc] == generation) {
+                    continue;
+                }
+                seen[pc] = generation;
+                switch (ops[pc]) {
+                    case MATCH:
+                        return true;
+                    case JMP:
+                        stack[sp++] = args1[pc];
+                        break;
+                    case SPLIT:
+                        stack[sp++] = args2[pc];
+                        stack[sp++] = args1[pc];
+                        break;
+                    case BOL:
+                        if (atStart) {
+                            stack[sp++] = pc + 1;
+                        }
+                        break;
+                    case EOL:
+                        stack[sp++] = pc + 1;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Sintassi fuori dal sottoinsieme: la regex va eseguita con java.util.regex.
+     */
+    private static final class Unsupported extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class Node {
+
+        static final int SET = 0;
+        static final int CONCAT = 1;
+        static final int ALT = 2;
+        static final int REPEAT = 3;
+        static final int BOL = 4;
+        static final int EOL = 5;
+
+        final int type;
+        final CharClass set;
+        final List<Node> children;
+        final int min;
+        final int max;  // -1 = illimitato
+
+        Node(int type, CharClass set, List<Node> children, int min, int max) {
+            this.type = type;
+            this.set = set;
+            this.children = children;
+            this.min = min;
+            this.max = max;
+        }
+    }
+
+    private static final class Parser {
+
+        private static final int MAX_DEPTH = 100;
+
+        private final String regex;
+        private int pos;
+        private int depth;
+
+        Parser(String regex) {
+            this.regex = regex;
+        }
+
+        Node parse() throws Unsupported {
+            Node node = alternation();
+            if (pos != regex.length()) {
+                throw new Unsupported();
+            }
+            return node;
+        }
+
+        private Node alternation() throws Unsupported {
+            List<Node> branches = new ArrayList<Node>();
+            branches.add(concatenation());
+            while (pos < regex.length() && regex.charAt(pos) == '|') {
+                pos++;
+                branches.add(concatenation());
+            }
+            return branches.size() == 1 ? branches.get(0) : new Node(Node.ALT, null, branches, 0, 0);
+        }
+
+        private Node concatenation() throws Unsupported {
+            List<Node> items = new ArrayList<Node>();
+            while (pos < regex.length() && regex.charAt(pos) != '|' && regex.charAt(pos) != ')') {
+                items.add(repetition());
+            }
+            return new Node(Node.CONCAT, null, items, 0, 0);
+        }
+
+        private Node repetition() throws Unsupported {
+            Node atom = atom();
+            if (pos == regex.length()) {
+                return atom;
+            }
+            int min;
+            int max;
+            char c = regex.charAt(pos);
+            if (c == '*') {
+                min = 0;
+                max = -1;
+                pos++;
+            } else if (c == '+') {
+                min = 1;
+                max = -1;
+                pos++;
+            } else if (c == '?') {
+                min = 0;
+                max = 1;
+                pos++;
+            } else if (c == '{') {
+                pos++;
+                min = number();
+                max = min;
+                if (pos < regex.length() && regex.charAt(pos) == ',') {
+                    pos++;
+                    max = pos < regex.length() && regex.charAt(pos) == '}' ? -1 : number();
+                }
+                if (pos == regex.length() || regex.charAt(pos) != '}' || (max >= 0 && max < min)) {
+                    throw new Unsupported();
+                }
+                pos++;
+            } else {
+                return atom;
+            }
+            if (hasAnchor(atom)) {
+                // java.util.regex tratta a modo suo le iterazioni vuote di gruppi con ancore
+                throw new Unsupported();
+            }
+            if (pos < regex.length()) {
+                c = regex.charAt(pos);
+                if (c == '?') {
+                    // lazy: per il match dell'intera sequenza non cambia nulla
+                    pos++;
+                } else if (c == '+' || c == '*' || c == '{') {
+                    // possessivo, o quantificatore ripetuto
+                    throw new Unsupported();
+                }
+            }
+            return new Node(Node.REPEAT, null, single(atom), min, max);
+        }
+
+        private static boolean hasAnchor(Node node) {
+            if (node.type == Node.BOL || node.type == Node.EOL) {
+                return true;
+            }
+            if (node.children != null) {
+                for (Node child : node.children) {
+                    if (hasAnchor(child)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private int number() throws Unsupported {
+            int start = pos;
+            int n = 0;
+            while (pos < regex.length() && regex.charAt(pos) >= '0' && regex.charAt(pos) <= '9') {
+                n = n * 10 + regex.charAt(pos) - '0';
+                if (n > MAX_PROGRAM_SIZE) {
+                    throw new Unsupported();
+                }
+                pos++;
+            }
+            if (pos == start) {
+                throw new Unsupported();
+            }
+            return n;
+        }
+
+        private Node atom() throws Unsupported {
+            char c = regex.charAt(pos++);
+            switch (c) {
+                case '(':
+                    if (pos < regex.length() && regex.charAt(pos) == '?') {
+                        if (pos + 1 < regex.length() && regex.charAt(pos + 1) == ':') {
+                            pos += 2;
+                        } else {
+                            // lookaround, flag, gruppi con nome o atomici
+                            throw new Unsupported();
+                        }
+                    }
+                    if (++depth > MAX_DEPTH) {
+                        throw new Unsupported();
+                    }
+                    Node group = alternation();
+                    depth--;
+                    if (pos == regex.length() || regex.charAt(pos) != ')') {
+                        throw new Unsupported();
+                    }
+                    pos++;
+                    return group;
+                case '[':
+                    return set(charClass());
+                case '.':
+                    return set(DOT);
+                case '^':
+                    return new Node(Node.BOL, null, null, 0, 0);
+                case '$':
+                    return new Node(Node.EOL, null, null, 0, 0);
+                case '\\':
+                    return set(escape());
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                case ')':
+                    throw new Unsupported();
+                default:
+                    return set(literal(c));
+            }
+        }
+
+        private CharClass charClass() throws Unsupported {
+            boolean negated = pos < regex.length() && regex.charAt(pos) == '^';
+            if (negated) {
+                pos++;
+            }
+            if (pos < regex.length() && regex.charAt(pos) == ']') {
+                throw new Unsupported();
+            }
+            CharClass result = CharClass.of("");
+            while (true) {
+                if (pos == regex.length()) {
+                    throw new Unsupported();
+                }
+                char c = regex.charAt(pos++);
+                if (c == ']') {
+                    break;
+                }
+                if (c == '[' || (c == '&' && pos < regex.length() && regex.charAt(pos) == '&')) {
+                    // classi annidate e intersezioni
+                    throw new Unsupported();
+                }
+                CharClass item;
+                char first;
+                if (c == '\\') {
+                    char e = next();
+                    item = predefined(e);
+                    first = 0;
+                    if (item == null) {
+                        first = escaped(e);
+                        item = literal(first);
+                    }
+                } else {
+                    item = literal(c);
+                    first = c;
+                }
+                if (first != 0 && pos + 1 < regex.length() && regex.charAt(pos) == '-' && regex.charAt(pos + 1) != ']') {
+                    pos++;
+                    char last = next();
+                    if (last == '\\') {
+                        char e = next();
+                        if (predefined(e) != null) {
+                            throw new Unsupported();
+                        }
+                        last = escaped(e);
+                    } else if (last == '[' || Character.isSurrogate(last)) {
+                        throw new Unsupported();
+                    }
+                    if (last < first) {
+                        throw new Unsupported();
+                    }
+                    item = CharClass.range(first, last);
+                }
+                result = result.union(item);
+            }
+            return negated ? result.complement() : result;
+        }
+
+        private char next() throws Unsupported {
+            if (pos == regex.length()) {
+                throw new Unsupported();
+            }
+            return regex.charAt(pos++);
+        }
+
+        private CharClass escape() throws Unsupported {
+            char c = next();
+            CharClass predefined = predefined(c);
+            return predefined != null ? predefined : literal(escaped(c));
+        }
+
+        /**
+         * Le classi \d \w \s e i loro complementi; null per gli altri escape.
+         */
+        private static CharClass predefined(char c) {
+            switch (c) {
+                case 'd':
+                    return DIGIT;
+                case 'D':
+                    return DIGIT.complement();
+                case 'w':
+                    return WORD;
+                case 'W':
+                    return WORD.complement();
+                case 's':
+                    return SPACE;
+                case 'S':
+                    return SPACE.complement();
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * Il carattere indicato da un escape letterale.
+         */
+        private char escaped(char c) throws Unsupported {
+            switch (c) {
+                case 't':
+                    return '\t';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 'f':
+                    return '\f';
+                case 'a':
+                    return '\u0007';
+                case 'e':
+                    return '\u001B';
+                case 'x':
+                    return (char) hex(2);
+                case 'u':
+                    return (char) hex(4);
+                default:
+                    if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                        // \b \p{..} \Q..\E \0 riferimenti all'indietro e simili
+                        throw new Unsupported();
+                    }
+                    return c;
+            }
+        }
+
+        private int hex(int digits) throws Unsupported {
+            if (pos + digits > regex.length()) {
+                throw new Unsupported();
+            }
+            int value = 0;
+            for (int i = 0; i < digits; i++) {
+                int d = Character.digit(regex.charAt(pos++), 16);
+                if (d < 0) {
+                    throw new Unsupported();
+                }
+                value = value * 16 + d;
+            }
+            if (Character.isSurrogate((char) value)) {
+                throw new Unsupported();
+            }
+            return value;
+        }
+
+        private static CharClass literal(char c) throws Unsupported {
+            if (Character.isSurrogate(c)) {
+                throw new Unsupported();
+            }
+            return CharClass.of(String.valueOf(c));
+        }
+
+        private static Node set(CharClass set) {
+            return new Node(Node.SET, set, null, 0, 0);
+        }
+
+        private static List<Node> single(Node node) {
+            List<Node> list = new ArrayList<Node>(1);
+            list.add(node);
+            return list;
+        }
+    }
+
+    /**
+     * Traduce l'albero in istruzioni; le ripetizioni contate sono copiate.
+     */
+    private static final class Emitter {
+
+        int[] ops = new int[64];
+        int[] args1 = new int[64];
+        int[] args2 = new int[64];
+        CharClass[] sets = new CharClass[64];
+        int size;
+
+        int add(int op, int arg1, int arg2, CharClass set) {
+            if (size == ops.length) {
+                int n = size * 2;
+                ops = Arrays.copyOf(ops, n);
+                args1 = Arrays.copyOf(args1, n);
+                args2 = Arrays.copyOf(args2, n);
+                sets = Arrays.copyOf(sets, n);
+            }
+            ops[size] = op;
+            args1[size] = arg1;
+            args2[size] = arg2;
+            sets[size] = set;
+            return size++;
+        }
+
+        /**
+         * @return false se il programma supera MAX_PROGRAM_SIZE
+         */
+        boolean emit(Node node) {
+            if (size > MAX_PROGRAM_SIZE) {
+                return false;
+            }
+            switch (node.type) {
+                case Node.SET:
+                    add(CHAR, 0, 0, node.set);
+                    return true;
+                case Node.BOL:
+                    add(BOL, 0, 0, null);
+                    return true;
+                case Node.EOL:
+                    add(EOL, 0, 0, null);
+                    return true;
+                case Node.CONCAT:
+                    for (Node child : node.children) {
+                        if (!emit(child)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                case Node.ALT:
+                    return alternation(node.children, 0);
+                default:
+                    return repeat(node.children.get(0), node.min, node.max);
+            }
+        }
+
+        private boolean alternation(List<Node> branches, int i) {
+            if (i == branches.size() - 1) {
+                return emit(branches.get(i));
+            }
+            int split = add(SPLIT, 0, 0, null);
+            args1[split] = size;
+            if (!emit(branches.get(i))) {
+                return false;
+            }
+            int jmp = add(JMP, 0, 0, null);
+            args2[split] = size;
+            if (!alternation(branches, i + 1)) {
+                return false;
+            }
+            args1[jmp] = size;
+            return true;
+        }
+
+        private boolean repeat(Node child, int min, int max) {
+            for (int i = 0; i < min; i++) {
+                if (!emit(child)) {
+                    return false;
+                }
+            }
+            if (max < 0) {
+                // child*
+                int split = add(SPLIT, 0, 0, null);
+                args1[split] = size;
+                if (!emit(child)) {
+                    return false;
+                }
+                add(JMP, split, 0, null);
+                args2[split] = size;
+                return true;
+            }
+            // (child(child(...)?)?)? per le ripetizioni facoltative
+            int[] splits = new int[max - min];
+            for (int i = 0; i < max - min; i++) {
+                splits[i] = add(SPLIT, 0, 0, null);
+                args1[splits[i]] = size;
+                if (!emit(child)) {
+                    return false;
+                }
+            }
+            for (int split : splits) {
+                args2[split] = size;
+            }
+            return true;
+        }
+
+        LinearRegex toRegex() {
+            return new LinearRegex(Arrays.copyOf(ops, size), Arrays.copyOf(args1, size),
+                    Arrays.copyOf(args2, size), Arrays.copyOf(sets, size));
+        }
+    }
+
+}
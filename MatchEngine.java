@@ -0,0 +1,13 @@
+package it.alexpiex.mie;
+
+/**
+ * Motore usato per verificare i formati fissi (vedi {@link FastMatchers.Format}).
+ */
+public enum MatchEngine {
+
+    /** java.util.regex, il comportamento storico. */
+    REGEX,
+
+    /** Scansione a singolo passaggio con charAt, senza allocazioni. */
+    SCANNER
+}
@@ -0,0 +1,102 @@
+package it.alexpiex.mie;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interruttore delle metriche: finche' il registro e' {@link ValidationMetrics#NOOP} (il
+ * default) i validatori non misurano niente e il costo e' una lettura volatile per chiamata.
+ * <pre>
+ * InMemoryMetrics metrics = new InMemoryMetrics();
+ * Metrics.setRegistry(metrics);
+ * ...
+ * metrics.get("EMAIL").rejectRate();
+ * </pre>
+ * I match di regex piu' lenti della soglia sono segnalati al registro e, se il JDK ha JFR,
+ * come evento <code>it.alexpiex.mie.SlowMatch</code>.
+ */
+public final class Metrics {
+
+    private static final Jfr JFR = loadJfr();
+
+    private static volatile ValidationMetrics registry = ValidationMetrics.NOOP;
+    private static volatile long slowThreshold = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private Metrics() {
+    }
+
+    /**
+     * Sets the destination of the metrics; null or {@link ValidationMetrics#NOOP} turns them off.
+     */
+    public static void setRegistry(ValidationMetrics metrics) {
+        registry = metrics == null ? ValidationMetrics.NOOP : metrics;
+    }
+
+    public static ValidationMetrics getRegistry() {
+        return registry;
+    }
+
+    public static boolean isEnabled() {
+        return registry != ValidationMetrics.NOOP;
+    }
+
+    /**
+     * Regex matches taking longer than <code>nanos</code> are reported as slow; default 10 ms.
+     */
+    public static void setSlowThreshold(long nanos) {
+        if (nanos < 0) {
+            throw new IllegalArgumentException("threshold: " + nanos);
+        }
+        slowThreshold = nanos;
+    }
+
+    public static long getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    /**
+     * Registra una chiamata iniziata a <code>start</code> (System.nanoTime()).
+     */
+    static void record(String name, boolean accepted, long start) {
+        registry.record(name, accepted, System.nanoTime() - start);
+    }
+
+    /**
+     * Come record, in piu' segnala i match lenti.
+     */
+    static void recordMatch(String regex, CharSequence input, boolean matched, long start) {
+        long nanos = System.nanoTime() - start;
+        ValidationMetrics r = registry;
+        r.record(regex, matched, nanos);
+        if (nanos > slowThreshold) {
+            int length = input == null ? 0 : input.length();
+            r.slowMatch(regex, length, nanos);
+            if (JFR != null) {
+                JFR.slowMatch(regex, length, matched, nanos);
+            }
+        }
+    }
+
+    /**
+     * JFR c'e' da JDK 11 (e 8u262): SlowMatchEvent e' compilata solo dal profilo jfr ed e'
+     * caricata per riflessione, come VectorCharScanner.
+     */
+    private static Jfr loadJfr() {
+        try {
+            return (Jfr) Class.forName("it.alexpiex.mie.SlowMatchEvent$Emitter").getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            return null;
+        } catch (LinkageError e) {
+            // JDK senza jdk.jfr
+            return null;
+        }
+    }
+
+    /**
+     * Destinazione degli eventi JFR, implementata da SlowMatchEvent.
+     */
+    abstract static class Jfr {
+
+        abstract void slowMatch(String regex, int inputLength, boolean matched, long nanos);
+    }
+
+}
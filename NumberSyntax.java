@@ -0,0 +1,269 @@
+package it.alexpiex.mie;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Sintassi di numeri e importi: separatore delle migliaia e dei decimali, segno, numero massimo
+ * di decimali. Un'unica scansione verifica la sintassi e calcola il valore come intero non
+ * scalato, con controllo di overflow, cosi' chi valida non deve fare un secondo parsing.
+ * Nessuna allocazione per chiamata: i simboli delle Locale sono letti una volta e messi in cache.
+ * <p>
+ * {@link #EURO} e {@link #IMPORTO} riproducono i formati di {@link InputValidator#isEuro(String)}
+ * e {@link InputValidator#isImporto(String)}; {@link #forLocale(Locale)} da' la sintassi di una Locale.
+ * Le istanze sono immutabili.
+ */
+public final class NumberSyntax {
+
+    public enum Grouping {
+        /** Nessun separatore delle migliaia. */
+        NONE,
+        /** Separatori facoltativi; se presenti, gruppi di tre cifre. */
+        OPTIONAL,
+        /** Parte intera sempre raggruppata: da 1 a 3 cifre, poi gruppi di tre. */
+        REQUIRED
+    }
+
+    /** 1.234.567,89 - come isEuro: raggruppamento obbligatorio, al piu' 2 decimali, senza segno. */
+    public static final NumberSyntax EURO = new NumberSyntax('.', ',', '-', '0', Grouping.REQUIRED, false, 2);
+
+    /** 1234567,89 - come isImporto: senza separatore delle migliaia, al piu' 2 decimali, senza segno. */
+    public static final NumberSyntax IMPORTO = new NumberSyntax('.', ',', '-', '0', Grouping.NONE, false, 2);
+
+    private static final ConcurrentMap<Locale, NumberSyntax> byLocale = new ConcurrentHashMap<Locale, NumberSyntax>();
+
+    private final char groupingSeparator;
+    private final char decimalSeparator;
+    private final char minusSign;
+    private final char zeroDigit;
+    private final Grouping grouping;
+    private final boolean signed;
+    private final int maxScale;
+
+    private NumberSyntax(char groupingSeparator, char decimalSeparator, char minusSign, char zeroDigit,
+                         Grouping grouping, boolean signed, int maxScale) {
+        if (groupingSeparator == decimalSeparator) {
+            throw new IllegalArgumentException("grouping and decimal separators are equal");
+        }
+        if (maxScale < 0) {
+            throw new IllegalArgumentException("maxScale < 0: " + maxScale);
+        }
+        this.groupingSeparator = groupingSeparator;
+        this.decimalSeparator = decimalSeparator;
+        this.minusSign = minusSign;
+        this.zeroDigit = zeroDigit;
+        this.grouping = grouping;
+        this.signed = signed;
+        this.maxScale = maxScale;
+    }
+
+    /**
+     * Returns the syntax of <code>locale</code>: its separators and minus sign, optional
+     * grouping, sign allowed, any number of decimals.
+     */
+    public static NumberSyntax forLocale(Locale locale) {
+        NumberSyntax syntax = byLocale.get(locale);
+        if (syntax == null) {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            syntax = new NumberSyntax(symbols.getGroupingSeparator(), symbols.getDecimalSeparator(),
+                    symbols.getMinusSign(), symbols.getZeroDigit(), Grouping.OPTIONAL, true, Integer.MAX_VALUE);
+            NumberSyntax previous = byLocale.putIfAbsent(locale, syntax);
+            if (previous != null) {
+                syntax = previous;
+            }
+        }
+        return syntax;
+    }
+
+    public NumberSyntax withGrouping(Grouping grouping) {
+        return new NumberSyntax(groupingSeparator, decimalSeparator, minusSign, zeroDigit, grouping, signed, maxScale);
+    }
+
+    public NumberSyntax withSign(boolean signed) {
+        return new NumberSyntax(groupingSeparator, decimalSeparator, minusSign, zeroDigit, grouping, signed, maxScale);
+    }
+
+    /**
+     * Returns a syntax allowing at most <code>maxScale</code> decimals; 0 forbids the decimal separator.
+     */
+    public NumberSyntax withMaxScale(int maxScale) {
+        return new NumberSyntax(groupingSeparator, decimalSeparator, minusSign, zeroDigit, grouping, signed, maxScale);
+    }
+
+    public char getGroupingSeparator() {
+        return groupingSeparator;
+    }
+
+    public char getDecimalSeparator() {
+        return decimalSeparator;
+    }
+
+    public Grouping getGrouping() {
+        return grouping;
+    }
+
+    public boolean isSigned() {
+        return signed;
+    }
+
+    public int getMaxScale() {
+        return maxScale;
+    }
+
+    /**
+     * True if <code>s</code> follows this syntax, whatever its magnitude.
+     */
+    public boolean matches(CharSequence s) {
+        ValidationStatus status = scan(s, null);
+        return status == ValidationStatus.VALID || status == ValidationStatus.OUTOFRANGE;
+    }
+
+    /**
+     * Parses <code>s</code> into <code>out</code>.
+     *
+     * @return VALID; EMPTYORNULL; NOTANUMBER if the syntax is wrong; OUTOFRANGE if the value
+     *         does not fit a long once unscaled (<code>out</code> is then left unchanged)
+     */
+    public ValidationStatus parse(CharSequence s, ParsedNumber out) {
+        return scan(s, out);
+    }
+
+    /**
+     * Checks that the integer part of <code>s</code>, decimals truncated, is between
+     * <code>min</code> and <code>max</code>.
+     *
+     * @return VALID, EMPTYORNULL, NOTANUMBER or OUTOFRANGE
+     */
+    public ValidationStatus checkRange(CharSequence s, long min, long max) {
+        ValidationStatus status = scan(s, null);
+        if (status != ValidationStatus.VALID) {
+            return status;
+        }
+        long value = integerPart(s);
+        return value >= min && value <= max ? ValidationStatus.VALID : ValidationStatus.OUTOFRANGE;
+    }
+
+    private int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        int d = c - zeroDigit;
+        return d >= 0 && d <= 9 ? d : -1;
+    }
+
+    private boolean isMinus(char c) {
+        return c == minusSign || c == '-';
+    }
+
+    private ValidationStatus scan(CharSequence s, ParsedNumber out) {
+        if (s == null || s.length() == 0) {
+            return ValidationStatus.EMPTYORNULL;
+        }
+        int len = s.length();
+        int i = 0;
+        boolean negative = false;
+        if (signed) {
+            char c = s.charAt(0);
+            if (isMinus(c)) {
+                negative = true;
+                i++;
+            } else if (c == '+') {
+                i++;
+            }
+        }
+        long value = 0;
+        boolean overflow = false;
+        int intDigits = 0;
+        int run = 0;
+        boolean grouped = false;
+        for (; i < len; i++) {
+            char c = s.charAt(i);
+            int d = digit(c);
+            if (d >= 0) {
+                if (value > (Long.MAX_VALUE - d) / 10) {
+                    overflow = true;
+                } else {
+                    value = value * 10 + d;
+                }
+                run++;
+                intDigits++;
+            } else if (c == groupingSeparator && grouping != Grouping.NONE) {
+                if (run == 0 || (grouped ? run != 3 : run > 3)) {
+                    return ValidationStatus.NOTANUMBER;
+                }
+                grouped = true;
+                run = 0;
+            } else {
+                break;
+            }
+        }
+        if (intDigits == 0 || (grouped && run != 3) || (!grouped && grouping == Grouping.REQUIRED && run > 3)) {
+            return ValidationStatus.NOTANUMBER;
+        }
+        int scale = 0;
+        if (i < len) {
+            if (s.charAt(i) != decimalSeparator) {
+                return ValidationStatus.NOTANUMBER;
+            }
+            for (i++; i < len; i++) {
+                int d = digit(s.charAt(i));
+                if (d < 0) {
+                    return ValidationStatus.NOTANUMBER;
+                }
+                // i decimali contano solo per il valore non scalato: chi vuole la parte intera
+                // (checkRange, matches) non deve avere OUTOFRANGE per una coda di decimali
+                if (out != null) {
+                    if (value > (Long.MAX_VALUE - d) / 10) {
+                        overflow = true;
+                    } else {
+                        value = value * 10 + d;
+                    }
+                }
+                scale++;
+            }
+            if (scale == 0 || scale > maxScale) {
+                return ValidationStatus.NOTANUMBER;
+            }
+        }
+        if (overflow) {
+            return ValidationStatus.OUTOFRANGE;
+        }
+        if (out != null) {
+            out.set(negative ? -value : value, scale);
+        }
+        return ValidationStatus.VALID;
+    }
+
+    /**
+     * Parte intera di un valore gia' verificato da scan(), senza overflow.
+     */
+    private long integerPart(CharSequence s) {
+        int len = s.length();
+        int i = 0;
+        boolean negative = false;
+        if (signed) {
+            char c = s.charAt(0);
+            if (isMinus(c)) {
+                negative = true;
+                i++;
+            } else if (c == '+') {
+                i++;
+            }
+        }
+        long value = 0;
+        for (; i < len; i++) {
+            char c = s.charAt(i);
+            if (c == decimalSeparator) {
+                break;
+            }
+            int d = digit(c);
+            if (d >= 0) {
+                value = value * 10 + d;
+            }
+        }
+        return negative ? -value : value;
+    }
+
+}
@@ -0,0 +1,263 @@
+package it.alexpiex.mie;
+
+/**
+ * Parsing e controllo di intervallo dei numeri senza eccezioni: l'esito e' un
+ * {@link ValidationStatus} (VALID, EMPTYORNULL, NOTANUMBER, OUTOFRANGE), cosi' gli input non
+ * validi costano quanto quelli validi.
+ * Interi e long accettano la stessa sintassi di {@link Integer#parseInt(String)}, float e double
+ * quella di {@link Double#parseDouble(String)}.
+ */
+public final class NumericParser {
+
+    // esiti di accumulate, indici in STATUS
+    private static final int EMPTYORNULL = 1;
+    private static final int NOTANUMBER = 2;
+    private static final int OUTOFRANGE = 3;
+    private static final ValidationStatus[] STATUS = {
+        null, ValidationStatus.EMPTYORNULL, ValidationStatus.NOTANUMBER, ValidationStatus.OUTOFRANGE
+    };
+
+    private NumericParser() {
+    }
+
+    public static ValidationStatus check(CharSequence s, TypeEnum type) {
+        switch (type) {
+            case INT:
+                return checkLong(s, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            case LONG:
+                return checkLong(s, Long.MIN_VALUE, Long.MAX_VALUE);
+            case FLOAT:
+            case DOUBLE:
+                return isFloatingPoint(s) ? ValidationStatus.VALID : invalid(s);
+            default:
+                throw new IllegalArgumentException("type: " + type);
+        }
+    }
+
+    public static ValidationStatus checkInt(CharSequence s, int min, int max) {
+        return checkLong(s, min, max);
+    }
+
+    public static ValidationStatus checkLong(CharSequence s, long min, long max) {
+        long result = accumulate(s);
+        if (result > 0) {
+            return STATUS[(int) result];
+        }
+        long value = s.charAt(0) == '-' ? result : -result;
+        return value >= min && value <= max ? ValidationStatus.VALID : ValidationStatus.OUTOFRANGE;
+    }
+
+    /**
+     * Parses <code>s</code> into <code>out</code> (scale 0) in a single pass, for callers that
+     * need both the outcome and the value.
+     *
+     * @return VALID, EMPTYORNULL, NOTANUMBER or OUTOFRANGE; <code>out</code> is changed only
+     *         if VALID
+     */
+    public static ValidationStatus parse(CharSequence s, long min, long max, ParsedNumber out) {
+        long result = accumulate(s);
+        if (result > 0) {
+            return STATUS[(int) result];
+        }
+        long value = s.charAt(0) == '-' ? result : -result;
+        if (value < min || value > max) {
+            return ValidationStatus.OUTOFRANGE;
+        }
+        out.set(value, 0);
+        return ValidationStatus.VALID;
+    }
+
+    public static ValidationStatus checkDouble(CharSequence s, double min, double max) {
+        if (!isFloatingPoint(s)) {
+            return invalid(s);
+        }
+        double value = Double.parseDouble(s.toString());
+        return value >= min && value <= max ? ValidationStatus.VALID : ValidationStatus.OUTOFRANGE;
+    }
+
+    /**
+     * Returns the value of <code>s</code>, or <code>defaultValue</code> if it is not an int.
+     */
+    public static int parseInt(CharSequence s, int defaultValue) {
+        return (int) parseLong(s, Integer.MIN_VALUE, Integer.MAX_VALUE, defaultValue);
+    }
+
+    /**
+     * Returns the value of <code>s</code>, or <code>defaultValue</code> if it is not a long.
+     */
+    public static long parseLong(CharSequence s, long defaultValue) {
+        return parseLong(s, Long.MIN_VALUE, Long.MAX_VALUE, defaultValue);
+    }
+
+    private static long parseLong(CharSequence s, long min, long max, long defaultValue) {
+        long result = accumulate(s);
+        if (result > 0) {
+            return defaultValue;
+        }
+        long value = s.charAt(0) == '-' ? result : -result;
+        return value >= min && value <= max ? value : defaultValue;
+    }
+
+    /**
+     * Cifre di <code>s</code> accumulate in negativo, come Long.parseLong, per rappresentare
+     * anche Long.MIN_VALUE: il risultato e' il valore se <code>s</code> inizia con '-', il suo
+     * opposto altrimenti. Un risultato positivo e' l'indice in STATUS dell'errore, cosi' esito e
+     * valore escono da un solo passaggio senza allocare.
+     */
+    private static long accumulate(CharSequence s) {
+        if (s == null || s.length() == 0) {
+            return EMPTYORNULL;
+        }
+        int len = s.length();
+        char first = s.charAt(0);
+        boolean negative = first == '-';
+        int i = negative || first == '+' ? 1 : 0;
+        if (i == len) {
+            return NOTANUMBER;
+        }
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long result = 0;
+        boolean overflow = false;
+        for (; i < len; i++) {
+            int digit = Character.digit(s.charAt(i), 10);
+            if (digit < 0) {
+                return NOTANUMBER;
+            }
+            if (overflow || result < multmin) {
+                overflow = true;
+                continue;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                overflow = true;
+                continue;
+            }
+            result -= digit;
+        }
+        return overflow ? OUTOFRANGE : result;
+    }
+
+    /**
+     * Returns the value of <code>s</code>, or <code>defaultValue</code> if it is not a double.
+     */
+    public static double parseDouble(CharSequence s, double defaultValue) {
+        return isFloatingPoint(s) ? Double.parseDouble(s.toString()) : defaultValue;
+    }
+
+    private static ValidationStatus invalid(CharSequence s) {
+        return s == null || s.length() == 0 ? ValidationStatus.EMPTYORNULL : ValidationStatus.NOTANUMBER;
+    }
+
+    /**
+     * Riconosce la sintassi accettata da Double.parseDouble: spazi iniziali e finali, segno,
+     * NaN, Infinity, decimali con esponente e suffisso f/F/d/D, esadecimali 0x...p...
+     */
+    static boolean isFloatingPoint(CharSequence s) {
+        if (s == null) {
+            return false;
+        }
+        int end = s.length();
+        int i = 0;
+        while (i < end && s.charAt(i) <= ' ') {
+            i++;
+        }
+        while (end > i && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (i == end) {
+            return false;
+        }
+        char c = s.charAt(i);
+        if (c == '+' || c == '-') {
+            i++;
+        }
+        if (regionIs(s, i, end, "NaN") || regionIs(s, i, end, "Infinity")) {
+            return true;
+        }
+        if (end - i > 2 && s.charAt(i) == '0' && (s.charAt(i + 1) == 'x' || s.charAt(i + 1) == 'X')) {
+            return isHexFloatingPoint(s, i + 2, end);
+        }
+        int digits = 0;
+        while (i < end && isDigit(s.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < end && s.charAt(i) == '.') {
+            i++;
+            while (i < end && isDigit(s.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < end && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i = exponent(s, i + 1, end);
+            if (i < 0) {
+                return false;
+            }
+        }
+        return suffix(s, i, end);
+    }
+
+    private static boolean isHexFloatingPoint(CharSequence s, int i, int end) {
+        int digits = 0;
+        while (i < end && Character.digit(s.charAt(i), 16) >= 0 && s.charAt(i) < 128) {
+            i++;
+            digits++;
+        }
+        if (i < end && s.charAt(i) == '.') {
+            i++;
+            while (i < end && Character.digit(s.charAt(i), 16) >= 0 && s.charAt(i) < 128) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0 || i == end || (s.charAt(i) != 'p' && s.charAt(i) != 'P')) {
+            return false;
+        }
+        i = exponent(s, i + 1, end);
+        return i >= 0 && suffix(s, i, end);
+    }
+
+    /**
+     * [+-]?[0-9]+ da <code>i</code>; restituisce la posizione successiva o -1.
+     */
+    private static int exponent(CharSequence s, int i, int end) {
+        if (i < end && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+            i++;
+        }
+        int start = i;
+        while (i < end && isDigit(s.charAt(i))) {
+            i++;
+        }
+        return i > start ? i : -1;
+    }
+
+    private static boolean suffix(CharSequence s, int i, int end) {
+        if (i == end) {
+            return true;
+        }
+        char c = s.charAt(i);
+        return i + 1 == end && (c == 'f' || c == 'F' || c == 'd' || c == 'D');
+    }
+
+    private static boolean regionIs(CharSequence s, int i, int end, String word) {
+        if (end - i != word.length()) {
+            return false;
+        }
+        for (int k = 0; k < word.length(); k++) {
+            if (s.charAt(i + k) != word.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+}
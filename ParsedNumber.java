@@ -0,0 +1,55 @@
+package it.alexpiex.mie;
+
+import java.math.BigDecimal;
+
+/**
+ * Valore prodotto da {@link NumberSyntax#parse(CharSequence, ParsedNumber)} e da
+ * {@link NumericParser#parse(CharSequence, long, long, ParsedNumber)}: un decimale
+ * rappresentato come intero non scalato e scala, ad esempio "1.234,56" = 123456 con scala 2.
+ * E' mutabile e pensato per essere riusato dal chiamante tra un parsing e l'altro.
+ */
+public final class ParsedNumber {
+
+    private static final long[] POW10 = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+        10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+        1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L
+    };
+
+    long unscaledValue;
+    int scale;
+
+    void set(long unscaledValue, int scale) {
+        this.unscaledValue = unscaledValue;
+        this.scale = scale;
+    }
+
+    public long getUnscaledValue() {
+        return unscaledValue;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * Returns the integer part, truncating the decimals.
+     */
+    public long longValue() {
+        return scale < POW10.length ? unscaledValue / POW10[scale] : 0;
+    }
+
+    public double doubleValue() {
+        return scale < POW10.length ? (double) unscaledValue / POW10[scale] : toBigDecimal().doubleValue();
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(unscaledValue, scale);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+}
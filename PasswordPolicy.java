@@ -0,0 +1,282 @@
+package it.alexpiex.mie;
+
+/**
+ * Regole per le password: lunghezza, classi di caratteri, caratteri speciali ammessi,
+ * entropia minima e, facoltativo, un elenco di password compromesse ({@link BreachedPasswords}).
+ * Le regole di carattere sono verificate in un solo passaggio. Le istanze sono immutabili e
+ * condivisibili tra thread; si costruiscono con {@link #builder()}.
+ */
+public final class PasswordPolicy {
+
+    /** Le regole storiche di {@link InputValidator#validPassword(String)}. */
+    public static final PasswordPolicy DEFAULT = builder().build();
+
+    /** I caratteri speciali storici. */
+    public static final String DEFAULT_SPECIALS = "$#%!@";
+
+    /** Motivo del rifiuto, nell'ordine in cui le regole sono verificate. */
+    public enum Violation {
+        TOO_SHORT("The password is invalid. Ensure you have a password with atleast %d characters"),
+        TOO_LONG("The password is invalid. Use at most %d characters"),
+        NO_UPPERCASE("Invalid password. Add more uppercase characters"),
+        NO_LOWERCASE("Invalid password. Add more lowercase characters"),
+        NO_DIGIT("Invalid password. Add more digits"),
+        NO_SPECIAL("Invalid password. Add more special characters"),
+        LOW_ENTROPY("Invalid password. Use a longer or more varied password"),
+        BREACHED("Invalid password. The password appears in a list of compromised passwords");
+
+        private final String message;
+
+        Violation(String message) {
+            this.message = message;
+        }
+    }
+
+    private static final Violation[] VIOLATIONS = Violation.values();
+
+    private final int minLength;
+    private final int maxLength;
+    private final int minUppercase;
+    private final int minLowercase;
+    private final int minDigits;
+    private final int minSpecials;
+    private final CharClass specials;
+    private final double minEntropy;
+    private final BreachedPasswords breached;
+
+    private PasswordPolicy(Builder b) {
+        minLength = b.minLength;
+        maxLength = b.maxLength;
+        minUppercase = b.minUppercase;
+        minLowercase = b.minLowercase;
+        minDigits = b.minDigits;
+        minSpecials = b.minSpecials;
+        specials = CharClass.of(b.specials);
+        minEntropy = b.minEntropy;
+        breached = b.breached;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the first rule that <code>password</code> breaks, or null if it complies.
+     */
+    public Violation violation(CharSequence password) {
+        int length = password.length();
+        if (length < minLength) {
+            return Violation.TOO_SHORT;
+        }
+        if (length > maxLength) {
+            return Violation.TOO_LONG;
+        }
+        int upper = 0;
+        int lower = 0;
+        int digits = 0;
+        int special = 0;
+        for (int i = 0; i < length; i++) {
+            char c = password.charAt(i);
+            if (Character.isUpperCase(c)) {
+                upper++;
+            }
+            if (Character.isLowerCase(c)) {
+                lower++;
+            }
+            if (Character.isDigit(c)) {
+                digits++;
+            }
+            if (specials.contains(c)) {
+                special++;
+            }
+        }
+        if (upper < minUppercase) {
+            return Violation.NO_UPPERCASE;
+        }
+        if (lower < minLowercase) {
+            return Violation.NO_LOWERCASE;
+        }
+        if (digits < minDigits) {
+            return Violation.NO_DIGIT;
+        }
+        if (special < minSpecials) {
+            return Violation.NO_SPECIAL;
+        }
+        if (minEntropy > 0 && entropy(password) < minEntropy) {
+            return Violation.LOW_ENTROPY;
+        }
+        if (breached != null && breached.contains(password)) {
+            return Violation.BREACHED;
+        }
+        return null;
+    }
+
+    public boolean isValid(CharSequence password) {
+        return password != null && password.length() > 0 && violation(password) == null;
+    }
+
+    /**
+     * @return VALIDPASSWORD, EMPTYORNULL or INVALIDPASSWORD; in the last case the reason is
+     *         registered in <code>errors</code> under <code>source</code>
+     */
+    public ValidationStatus check(CharSequence password, String source, ValidationErrors errors) {
+        if (InputValidator.isBlank(password)) {
+            return ValidationStatus.EMPTYORNULL;
+        }
+        Violation v = cachedViolation(password);
+        if (v == null) {
+            return ValidationStatus.VALIDPASSWORD;
+        }
+        errors.put(source, getMessage(v));
+        return ValidationStatus.INVALIDPASSWORD;
+    }
+
+    /**
+     * Come violation, passando dalla {@link ValidationCache} installata se tiene le password
+     * (solo come hash).
+     */
+    private Violation cachedViolation(CharSequence password) {
+        ValidationCache cache = ValidationCache.installed();
+        if (cache == null || !cache.cachesPasswords()) {
+            return violation(password);
+        }
+        ValidationCache.Key key = cache.key(this, password, true);
+        int cached = cache.get(key);
+        if (cached != ValidationCache.MISS) {
+            return cached == 0 ? null : VIOLATIONS[cached - 1];
+        }
+        Violation v = violation(password);
+        cache.put(key, v == null ? 0 : v.ordinal() + 1);
+        return v;
+    }
+
+    public String getMessage(Violation violation) {
+        switch (violation) {
+            case TOO_SHORT:
+                return String.format(violation.message, minLength);
+            case TOO_LONG:
+                return String.format(violation.message, maxLength);
+            default:
+                return violation.message;
+        }
+    }
+
+    /**
+     * Stima dell'entropia in bit, come lunghezza per log2 dell'alfabeto delle classi usate
+     * (minuscole, maiuscole, cifre, simboli ASCII, altro). Le ripetizioni di un carattere
+     * subito precedente non contano: "aaaaaaaa" vale quanto "a".
+     */
+    public static double entropy(CharSequence password) {
+        int pool = 0;
+        int counted = 0;
+        boolean lower = false;
+        boolean upper = false;
+        boolean digit = false;
+        boolean symbol = false;
+        boolean other = false;
+        for (int i = 0, len = password.length(); i < len; i++) {
+            char c = password.charAt(i);
+            if (i > 0 && c == password.charAt(i - 1)) {
+                continue;
+            }
+            counted++;
+            if (c >= 'a' && c <= 'z') {
+                lower = true;
+            } else if (c >= 'A' && c <= 'Z') {
+                upper = true;
+            } else if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if (c >= ' ' && c < 0x7F) {
+                symbol = true;
+            } else {
+                other = true;
+            }
+        }
+        pool += lower ? 26 : 0;
+        pool += upper ? 26 : 0;
+        pool += digit ? 10 : 0;
+        pool += symbol ? 33 : 0;
+        pool += other ? 100 : 0;
+        return pool == 0 ? 0 : counted * Math.log(pool) / Math.log(2);
+    }
+
+    public static final class Builder {
+
+        private int minLength = 6;
+        private int maxLength = Integer.MAX_VALUE;
+        private int minUppercase = 1;
+        private int minLowercase = 1;
+        private int minDigits = 1;
+        private int minSpecials = 1;
+        private String specials = DEFAULT_SPECIALS;
+        private double minEntropy;
+        private BreachedPasswords breached;
+
+        private Builder() {
+        }
+
+        public Builder length(int min, int max) {
+            if (min < 1 || min > max) {
+                throw new IllegalArgumentException("length: " + min + "-" + max);
+            }
+            minLength = min;
+            maxLength = max;
+            return this;
+        }
+
+        public Builder minUppercase(int n) {
+            minUppercase = requireNonNegative(n);
+            return this;
+        }
+
+        public Builder minLowercase(int n) {
+            minLowercase = requireNonNegative(n);
+            return this;
+        }
+
+        public Builder minDigits(int n) {
+            minDigits = requireNonNegative(n);
+            return this;
+        }
+
+        /**
+         * At least <code>n</code> of the characters in <code>chars</code>.
+         */
+        public Builder minSpecials(int n, String chars) {
+            minSpecials = requireNonNegative(n);
+            specials = chars;
+            return this;
+        }
+
+        /**
+         * Minimum {@link PasswordPolicy#entropy(CharSequence)} in bits, e.g. 50; 0 disables it.
+         */
+        public Builder minEntropy(double bits) {
+            if (bits < 0) {
+                throw new IllegalArgumentException("entropy: " + bits);
+            }
+            minEntropy = bits;
+            return this;
+        }
+
+        /**
+         * Rejects the passwords in <code>list</code>; null disables the check.
+         */
+        public Builder breached(BreachedPasswords list) {
+            breached = list;
+            return this;
+        }
+
+        public PasswordPolicy build() {
+            return new PasswordPolicy(this);
+        }
+
+        private static int requireNonNegative(int n) {
+            if (n < 0) {
+                throw new IllegalArgumentException("negative minimum: " + n);
+            }
+            return n;
+        }
+    }
+
+}
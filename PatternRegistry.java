@@ -0,0 +1,100 @@
+package it.alexpiex.mie;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Registro delle regex compilate.
+ * Le costanti pubbliche di {@link InputValidator} sono compilate una sola volta al caricamento
+ * della classe; le regex fornite dai chiamanti finiscono in una cache di dimensione limitata,
+ * cosi' anche pattern dinamici non fanno crescere la memoria senza controllo. La cache e' una
+ * ClockCache: letture senza lock, eviction CLOCK come in {@link ValidationCache}.
+ */
+public final class PatternRegistry {
+
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    private static final Map<String, Pattern> builtIn = new HashMap<String, Pattern>();
+
+    private static final ClockCache<String, Pattern> cache =
+            new ClockCache<String, Pattern>(DEFAULT_CACHE_SIZE, Long.MAX_VALUE);
+
+    private static final ClockCache<String, SafeRegex> safeCache =
+            new ClockCache<String, SafeRegex>(DEFAULT_CACHE_SIZE, Long.MAX_VALUE);
+
+    static {
+        register(InputValidator.NUMERIC);
+        register(InputValidator.ALFANUMERIC);
+        register(InputValidator.DATE);
+        register(InputValidator.BOOLEAN);
+        register(InputValidator.UPPERCASE);
+        register(InputValidator.COD_FISC);
+        register(InputValidator.IMPORT);
+        register(InputValidator.ATOM);
+        register(InputValidator.DOMAIN);
+        register(InputValidator.IP_DOMAIN);
+    }
+
+    private PatternRegistry() {
+    }
+
+    private static void register(String regex) {
+        builtIn.put(regex, Pattern.compile(regex));
+    }
+
+    /**
+     * Returns the compiled form of <code>regex</code>, compiling it at most once while it
+     * stays in the cache.
+     *
+     * @throws java.util.regex.PatternSyntaxException if the expression is not valid
+     */
+    public static Pattern get(String regex) {
+        Pattern p = builtIn.get(regex);
+        if (p != null) {
+            return p;
+        }
+        p = cache.get(regex);
+        if (p == null) {
+            // due thread possono compilare la stessa regex, non e' un problema
+            p = Pattern.compile(regex);
+            cache.put(regex, p, 0);
+        }
+        return p;
+    }
+
+    public static boolean matches(String regex, CharSequence input) {
+        return get(regex).matcher(input).matches();
+    }
+
+    /**
+     * Returns <code>regex</code> compiled as a {@link SafeRegex} with the default limits, cached
+     * like the plain patterns.
+     *
+     * @throws java.util.regex.PatternSyntaxException if the expression is not valid
+     */
+    public static SafeRegex getSafe(String regex) {
+        SafeRegex r = safeCache.get(regex);
+        if (r == null) {
+            r = SafeRegex.compile(regex);
+            safeCache.put(regex, r, 0);
+        }
+        return r;
+    }
+
+    /**
+     * Changes the maximum number of caller-supplied expressions kept compiled.
+     */
+    public static void setCacheSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size < 1: " + size);
+        }
+        cache.setMaxEntries(size);
+        safeCache.setMaxEntries(size);
+    }
+
+    public static int cachedCount() {
+        return cache.size();
+    }
+
+}
@@ -0,0 +1,19 @@
+package it.alexpiex.mie;
+
+/**
+ * Riceve i campi scartati da {@link FileValidator}, man mano che vengono trovati.
+ */
+public interface RejectHandler {
+
+    /**
+     * Called for every field that fails its rule.
+     *
+     * @param record the record number, starting from 1 (the header, if any, is record 1)
+     * @param column the column index, starting from 0
+     * @param rule   the rule of the column
+     * @param status EMPTYORNULL if the field is blank or missing, INVALID otherwise
+     * @param value  the field content; it is only valid during this call, use toString() to keep it
+     */
+    void reject(long record, int column, Rule rule, ValidationStatus status, CharSequence value);
+
+}
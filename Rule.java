@@ -0,0 +1,175 @@
+package it.alexpiex.mie;
+
+/**
+ * I validatori di {@link InputValidator} applicabili a un singolo valore, utilizzabili
+ * come regola nelle API che lavorano su molti valori (vedi {@link BatchValidator}).
+ * Il controllo di stringa vuota e' fatto una sola volta da {@link #test(CharSequence)},
+ * senza copie, e non viene ripetuto dal validatore.
+ */
+public enum Rule {
+
+    NOT_EMPTY {
+        @Override
+        boolean matches(CharSequence value) {
+            return true;
+        }
+    },
+    COD_FISC {
+        @Override
+        boolean matches(CharSequence value) {
+            return InputValidator.matchesCodFisc(value);
+        }
+    },
+    /** Codice fiscale completo: date e carattere di controllo, vedi {@link CodiceFiscale}. */
+    COD_FISC_FULL {
+        @Override
+        boolean matches(CharSequence value) {
+            return CodiceFiscale.isValid(value);
+        }
+    },
+    EMAIL {
+        @Override
+        boolean matches(CharSequence value) {
+            return InputValidator.matchesEmail(value);
+        }
+    },
+    IBAN {
+        @Override
+        boolean matches(CharSequence value) {
+            return InputValidator.matchesIban(value);
+        }
+    },
+    EURO {
+        @Override
+        boolean matches(CharSequence value) {
+            return InputValidator.matchesEuro(value);
+        }
+    },
+    IMPORTO {
+        @Override
+        boolean matches(CharSequence value) {
+            return InputValidator.matchesImporto(value);
+        }
+    },
+    PHONE {
+        @Override
+        boolean matches(CharSequence value) {
+            return InputValidator.matchesPhone(value);
+        }
+    },
+    MOBILE {
+        @Override
+        boolean matches(CharSequence value) {
+            return InputValidator.matchesMobile(value);
+        }
+    },
+    TEL_FAX {
+        @Override
+        boolean matches(CharSequence value) {
+            return InputValidator.matchesTelFax(value);
+        }
+    },
+    NUM {
+        @Override
+        boolean matches(CharSequence value) {
+            return InputValidator.matchesNum(value);
+        }
+    },
+    NUMBERS {
+        @Override
+        boolean matches(CharSequence value) {
+            return InputValidator.matchesNumbers(value);
+        }
+    },
+    ALPHABETIC {
+        @Override
+        boolean matches(CharSequence value) {
+            return InputValidator.matchesAlphabetic(value);
+        }
+    },
+    FIELD {
+        @Override
+        boolean matches(CharSequence value) {
+            return InputValidator.matchesField(value);
+        }
+    },
+    RESOURCE {
+        @Override
+        boolean matches(CharSequence value) {
+            return InputValidator.matchesResource(value);
+        }
+    },
+    /** Numero di carta: circuito noto, lunghezza e Luhn, vedi {@link CardEngine#DEFAULT}. */
+    CREDIT_CARD {
+        @Override
+        boolean matches(CharSequence value) {
+            return CardEngine.isValid(CardEngine.DEFAULT.inspect(value));
+        }
+    },
+    /** Data gg/mm/aaaa, vedi {@link DateValidator#DATE}. */
+    DATE {
+        @Override
+        boolean matches(CharSequence value) {
+            return DateValidator.DATE.isValid(value);
+        }
+    },
+    /** Data e ora gg/mm/aaaa hh:mm:ss, vedi {@link DateValidator#DATE_TIME}. */
+    DATE_TIME {
+        @Override
+        boolean matches(CharSequence value) {
+            return DateValidator.DATE_TIME.isValid(value);
+        }
+    };
+
+    /**
+     * Verifica un valore gia' controllato come non vuoto.
+     */
+    abstract boolean matches(CharSequence value);
+
+    /**
+     * Come matches, registrando la chiamata se le metriche sono attive (vedi {@link Metrics}).
+     */
+    final boolean evaluate(CharSequence value) {
+        if (!Metrics.isEnabled()) {
+            return cachedMatches(value);
+        }
+        long start = System.nanoTime();
+        boolean valid = cachedMatches(value);
+        Metrics.record(name(), valid, start);
+        return valid;
+    }
+
+    /**
+     * Come matches, passando dalla {@link ValidationCache} installata se la regola e' tra
+     * quelle in cache.
+     */
+    private boolean cachedMatches(CharSequence value) {
+        ValidationCache cache = ValidationCache.installed();
+        if (cache == null || !cache.caches(this)) {
+            return matches(value);
+        }
+        ValidationCache.Key key = cache.key(this, value, cache.isHashOnly(this));
+        int cached = cache.get(key);
+        if (cached != ValidationCache.MISS) {
+            return cached != 0;
+        }
+        boolean valid = matches(value);
+        cache.put(key, valid ? 1 : 0);
+        return valid;
+    }
+
+    public boolean test(CharSequence value) {
+        return !InputValidator.isBlank(value) && evaluate(value);
+    }
+
+    /**
+     * Returns VALID, EMPTYORNULL or INVALID.
+     */
+    public ValidationStatus status(CharSequence value) {
+        if (InputValidator.isBlank(value)) {
+            return ValidationStatus.EMPTYORNULL;
+        }
+        return evaluate(value) ? ValidationStatus.VALID : ValidationStatus.INVALID;
+    }
+
+}
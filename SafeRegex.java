@@ -0,0 +1,197 @@
+package it.alexpiex.mie;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Esecuzione protetta di una regex, contro il backtracking catastrofico (ReDoS).
+ * <ul>
+ * <li>Gli input piu' lunghi di un limite sono rifiutati senza eseguire la regex.</li>
+ * <li>Le regex del sottoinsieme supportato da {@link LinearRegex} (niente riferimenti
+ * all'indietro, lookaround, quantificatori possessivi, flag) sono eseguite da un automa in
+ * tempo lineare.</li>
+ * <li>Le altre sono eseguite da java.util.regex su una sequenza che conta gli accessi ai
+ * caratteri: oltre il budget di passi o di tempo la verifica si interrompe con TIMEOUT.</li>
+ * </ul>
+ * Il risultato, quando la verifica termina, e' lo stesso di {@link java.util.regex.Matcher#matches()}.
+ * Con {@link #setSafeMode(boolean)} anche {@link InputValidator#check(String, String)} passa
+ * da qui. Le istanze sono immutabili e condivisibili tra thread.
+ */
+public final class SafeRegex {
+
+    public static final int DEFAULT_MAX_INPUT_LENGTH = 8192;
+
+    /** Accessi ai caratteri concessi a java.util.regex per una verifica. */
+    public static final long DEFAULT_STEP_BUDGET = 1000000L;
+
+    /** Ogni quanti passi si legge l'orologio (potenza di 2 meno 1). */
+    private static final int CLOCK_MASK = 0xFFF;
+
+    private static final BudgetExceeded EXCEEDED = new BudgetExceeded();
+
+    private static volatile boolean safeMode;
+
+    private final String regex;
+    private final Pattern pattern;
+    private final LinearRegex linear;
+    private final int maxInputLength;
+    private final long stepBudget;
+    private final long timeoutNanos;
+
+    private SafeRegex(String regex, Pattern pattern, LinearRegex linear, int maxInputLength, long stepBudget,
+                      long timeoutNanos) {
+        this.regex = regex;
+        this.pattern = pattern;
+        this.linear = linear;
+        this.maxInputLength = maxInputLength;
+        this.stepBudget = stepBudget;
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    /**
+     * Compiles <code>regex</code> with the default limits and no time budget.
+     *
+     * @throws java.util.regex.PatternSyntaxException if the expression is not valid
+     */
+    public static SafeRegex compile(String regex) {
+        return new SafeRegex(regex, PatternRegistry.get(regex), LinearRegex.compile(regex),
+                DEFAULT_MAX_INPUT_LENGTH, DEFAULT_STEP_BUDGET, 0);
+    }
+
+    /**
+     * When on, {@link InputValidator#check(String, String)} runs every expression through a
+     * SafeRegex with the default limits. Default is off.
+     */
+    public static void setSafeMode(boolean on) {
+        safeMode = on;
+    }
+
+    public static boolean isSafeMode() {
+        return safeMode;
+    }
+
+    public SafeRegex withMaxInputLength(int maxInputLength) {
+        if (maxInputLength < 0) {
+            throw new IllegalArgumentException("maxInputLength < 0: " + maxInputLength);
+        }
+        return new SafeRegex(regex, pattern, linear, maxInputLength, stepBudget, timeoutNanos);
+    }
+
+    /**
+     * Sets the character accesses allowed to java.util.regex for one match; 0 removes the limit.
+     */
+    public SafeRegex withStepBudget(long steps) {
+        if (steps < 0) {
+            throw new IllegalArgumentException("steps < 0: " + steps);
+        }
+        return new SafeRegex(regex, pattern, linear, maxInputLength, steps, timeoutNanos);
+    }
+
+    /**
+     * Sets the time allowed to java.util.regex for one match; 0 removes the limit.
+     */
+    public SafeRegex withTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout < 0: " + timeout);
+        }
+        return new SafeRegex(regex, pattern, linear, maxInputLength, stepBudget, unit.toNanos(timeout));
+    }
+
+    public String getRegex() {
+        return regex;
+    }
+
+    /**
+     * True if the expression runs on the linear-time engine.
+     */
+    public boolean isLinear() {
+        return linear != null;
+    }
+
+    public boolean matches(CharSequence input) {
+        return check(input) == ValidationStatus.VALID;
+    }
+
+    /**
+     * @return VALID or INVALID; EMPTYORNULL for null; TOOLONG if the input exceeds the maximum
+     *         length; TIMEOUT if the step or time budget ran out
+     */
+    public ValidationStatus check(CharSequence input) {
+        if (input == null) {
+            return ValidationStatus.EMPTYORNULL;
+        }
+        if (input.length() > maxInputLength) {
+            return ValidationStatus.TOOLONG;
+        }
+        boolean match;
+        if (linear != null && LinearRegex.isBmp(input)) {
+            match = linear.matches(input);
+        } else if (stepBudget == 0 && timeoutNanos == 0) {
+            match = pattern.matcher(input).matches();
+        } else {
+            long deadline = timeoutNanos == 0 ? 0 : System.nanoTime() + timeoutNanos;
+            try {
+                match = pattern.matcher(new BudgetedSequence(input, stepBudget, deadline)).matches();
+            } catch (BudgetExceeded e) {
+                return ValidationStatus.TIMEOUT;
+            }
+        }
+        return match ? ValidationStatus.VALID : ValidationStatus.INVALID;
+    }
+
+    /**
+     * Sequenza che interrompe il matcher quando il budget di accessi o di tempo e' esaurito.
+     */
+    private static final class BudgetedSequence implements CharSequence {
+
+        private final CharSequence s;
+        private final long budget;
+        private final long deadline;
+        private long steps;
+
+        BudgetedSequence(CharSequence s, long budget, long deadline) {
+            this.s = s;
+            this.budget = budget == 0 ? Long.MAX_VALUE : budget;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++steps > budget) {
+                throw EXCEEDED;
+            }
+            if ((steps & CLOCK_MASK) == 0 && deadline != 0 && System.nanoTime() - deadline > 0) {
+                throw EXCEEDED;
+            }
+            return s.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return s.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return s.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return s.toString();
+        }
+    }
+
+    /**
+     * Senza stack trace: e' sempre la stessa istanza e serve solo a uscire dal matcher.
+     */
+    private static final class BudgetExceeded extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        BudgetExceeded() {
+            super(null, null, false, false);
+        }
+    }
+
+}
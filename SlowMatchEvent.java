@@ -0,0 +1,48 @@
+package it.alexpiex.mie;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento JFR per un match di regex oltre {@link Metrics#getSlowThreshold()}. Compilata dal
+ * profilo jfr (JDK 11+) e caricata da Metrics per riflessione, solo se JFR e' disponibile.
+ */
+@Name("it.alexpiex.mie.SlowMatch")
+@Label("Slow Regex Match")
+@Category("InputValidator")
+@Description("A regex match that took longer than the configured threshold")
+final class SlowMatchEvent extends Event {
+
+    @Label("Regex")
+    String regex;
+
+    @Label("Input Length")
+    int inputLength;
+
+    @Label("Matched")
+    boolean matched;
+
+    @Label("Match Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long matchTime;
+
+    static final class Emitter extends Metrics.Jfr {
+
+        @Override
+        void slowMatch(String regex, int inputLength, boolean matched, long nanos) {
+            SlowMatchEvent event = new SlowMatchEvent();
+            if (event.isEnabled()) {
+                event.regex = regex;
+                event.inputLength = inputLength;
+                event.matched = matched;
+                event.matchTime = nanos;
+                event.commit();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,206 @@
+package it.alexpiex.mie;
+
+import java.text.Normalizer;
+
+/**
+ * Normalizzazione di nomi e testi anagrafici in una sola passata: rimozione degli accenti
+ * (tutto Unicode, non solo le vocali italiane), compressione degli spazi e iniziali maiuscole,
+ * scrivendo direttamente in uno StringBuilder che il chiamante puo' riutilizzare tra una riga
+ * e l'altra. Le fasi si scelgono con {@link #of(Stage...)}; le istanze sono immutabili e
+ * condivisibili tra thread.
+ * <p>
+ * Esempio per un import: <pre>
+ * StringBuilder sb = new StringBuilder();
+ * for (String nome : nomi) {
+ *     sb.setLength(0);
+ *     TextNormalizer.NAME.appendTo(nome, sb);
+ *     ...
+ * }</pre>
+ */
+public final class TextNormalizer {
+
+    public enum Stage {
+        /** "and&ograve;" -> "ando", "&AElig;r&oslash;" -> "AEro"; i segni diacritici combinanti sono eliminati. */
+        FOLD_ACCENTS,
+        /**
+         * Sequenze di spazi (qualunque {@link Character#isWhitespace(char)}) ridotte a uno spazio,
+         * niente spazi all'inizio, alla fine e dopo un apostrofo.
+         */
+        COLLAPSE_WHITESPACE,
+        /** Iniziale maiuscola per ogni parola, anche dopo un apostrofo, resto minuscolo. */
+        CAPITALIZE
+    }
+
+    /** Come {@link InputValidator#formatName(String)}: "dell'orco  adele" -> "Dell'Orco Adele". */
+    public static final TextNormalizer NAME = of(Stage.CAPITALIZE, Stage.COLLAPSE_WHITESPACE);
+
+    /** Come {@link InputValidator#noStressedLetters(String)}. */
+    public static final TextNormalizer NO_ACCENTS = of(Stage.FOLD_ACCENTS);
+
+    private static final int FOLD = 1;
+    private static final int COLLAPSE = 2;
+    private static final int CAPITALIZE = 4;
+
+    // stato della passata, vedi emit
+    private static final int WORD_START = 1;
+    private static final int AFTER_APOSTROPHE = 2;
+
+    private final int stages;
+
+    private TextNormalizer(int stages) {
+        this.stages = stages;
+    }
+
+    public static TextNormalizer of(Stage... stages) {
+        int mask = 0;
+        for (Stage stage : stages) {
+            mask |= 1 << stage.ordinal();
+        }
+        return new TextNormalizer(mask);
+    }
+
+    public boolean has(Stage stage) {
+        return (stages & 1 << stage.ordinal()) != 0;
+    }
+
+    /**
+     * Returns the normalized text, or null if <code>s</code> is null.
+     */
+    public String normalize(CharSequence s) {
+        if (s == null) {
+            return null;
+        }
+        if (stages == FOLD && isAscii(s)) {
+            // niente da togliere
+            return s.toString();
+        }
+        return appendTo(s, new StringBuilder(s.length())).toString();
+    }
+
+    /**
+     * Appends the normalized text to <code>sink</code>, without intermediate strings.
+     *
+     * @return sink
+     */
+    public StringBuilder appendTo(CharSequence s, StringBuilder sink) {
+        int start = sink.length();
+        int state = WORD_START;
+        boolean pendingSpace = false;
+        for (int i = 0, len = s.length(); i < len; i++) {
+            char c = s.charAt(i);
+            if ((stages & COLLAPSE) != 0 && Character.isWhitespace(c)) {
+                // lo spazio si scrive solo se segue un'altra parola
+                pendingSpace = sink.length() > start && (state & AFTER_APOSTROPHE) == 0;
+                state |= WORD_START;
+                continue;
+            }
+            if (pendingSpace) {
+                sink.append(' ');
+                pendingSpace = false;
+            }
+            if ((stages & FOLD) != 0 && c >= 0x80) {
+                char f = Fold.TABLE[c];
+                if (f != c) {
+                    if (f == Fold.DROP) {
+                        continue;
+                    }
+                    if (f == Fold.EXPANDED) {
+                        String x = Fold.EXPANSIONS[c];
+                        for (int j = 0; j < x.length(); j++) {
+                            state = emit(x.charAt(j), state, sink);
+                        }
+                        continue;
+                    }
+                    c = f;
+                }
+            }
+            state = emit(c, state, sink);
+        }
+        return sink;
+    }
+
+    private int emit(char c, int state, StringBuilder sink) {
+        if (c == '\'' || c == '\u2019') {
+            sink.append(c);
+            return WORD_START | AFTER_APOSTROPHE;
+        }
+        if (Character.isWhitespace(c)) {
+            sink.append(c);
+            return WORD_START;
+        }
+        if ((stages & CAPITALIZE) == 0) {
+            sink.append(c);
+        } else {
+            sink.append((state & WORD_START) != 0 ? Character.toTitleCase(c) : Character.toLowerCase(c));
+        }
+        return 0;
+    }
+
+    private static boolean isAscii(CharSequence s) {
+        for (int i = 0, len = s.length(); i < len; i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tabella costruita al primo uso dalla decomposizione canonica (NFD) di ogni carattere
+     * del BMP, piu' le lettere che Unicode non decompone (ae, o barrata, eszett...).
+     */
+    private static final class Fold {
+
+        /** Il carattere va eliminato (segno diacritico combinante). */
+        static final char DROP = '\uFFFF';
+        /** Il carattere diventa piu' caratteri, vedi EXPANSIONS. */
+        static final char EXPANDED = '\uFFFE';
+
+        static final char[] TABLE = new char[0x10000];
+        /** Indicizzata per carattere, come TABLE: nessun boxing nel ciclo. */
+        static final String[] EXPANSIONS = new String[0x10000];
+
+        private static final String EXTRA = "\u00C6AE \u00E6ae \u00D8O \u00F8o \u00DFss \u0110D \u0111d \u00D0D \u00F0d "
+                + "\u0141L \u0142l \u0152OE \u0153oe \u00DETH \u00FEth \u0131i \u0126H \u0127h \u0166T \u0167t";
+
+        static {
+            for (int c = 0; c < TABLE.length; c++) {
+                TABLE[c] = (char) c;
+                if (c < 0x80 || c == DROP || c == EXPANDED || Character.isSurrogate((char) c)) {
+                    continue;
+                }
+                if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                    TABLE[c] = DROP;
+                    continue;
+                }
+                String nfd = Normalizer.normalize(String.valueOf((char) c), Normalizer.Form.NFD);
+                StringBuilder base = new StringBuilder(nfd.length());
+                for (int i = 0; i < nfd.length(); i++) {
+                    if (Character.getType(nfd.charAt(i)) != Character.NON_SPACING_MARK) {
+                        base.append(nfd.charAt(i));
+                    }
+                }
+                // solo se la decomposizione toglie un accento: Hangul e ideogrammi di
+                // compatibilita' restano come sono
+                if (base.length() < nfd.length()) {
+                    set((char) c, base.toString());
+                }
+            }
+            for (String e : EXTRA.split(" ")) {
+                set(e.charAt(0), e.substring(1));
+            }
+        }
+
+        private static void set(char c, String folded) {
+            if (folded.length() == 0) {
+                TABLE[c] = DROP;
+            } else if (folded.length() == 1) {
+                TABLE[c] = folded.charAt(0);
+            } else {
+                TABLE[c] = EXPANDED;
+                EXPANSIONS[c] = folded;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,17 @@
+package it.alexpiex.mie;
+
+public enum TypeEnum {
+
+    FLOAT("float"), INT("int"), DOUBLE("double"), LONG("long");
+
+    private String tipo;
+
+    private TypeEnum(String t) {
+        tipo = t;
+    }
+
+    public String getType() {
+        return tipo;
+    }
+
+}
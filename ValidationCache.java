@@ -0,0 +1,370 @@
+package it.alexpiex.mie;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache degli esiti per i valori che si ripetono (stesse email, codici fiscali e IBAN in
+ * molte transazioni). Si mette davanti alle regole scelte, a {@link InputValidator#check(String, String)}
+ * e a {@link PasswordPolicy}, e si attiva per tutta la libreria con {@link #install(ValidationCache)}:
+ * <pre>
+ * ValidationCache.install(ValidationCache.builder()
+ *         .rules(Rule.EMAIL, Rule.IBAN, Rule.COD_FISC_FULL)
+ *         .regex(true).passwords(true)
+ *         .maxEntries(100000).maxBytes(32 * 1024 * 1024)
+ *         .build());
+ * </pre>
+ * La memoria e' limitata sia in voci sia in byte stimati; l'eviction e' CLOCK (seconda
+ * possibilita', vedi ClockCache): le letture non prendono lock, segnano solo la voce come
+ * usata, e un inserimento che trova il lock occupato viene scartato invece di attendere.
+ * I valori piu' lunghi di {@link Builder#maxValueLength(int)} non sono messi in cache.
+ * <p>
+ * Le password, e le regole indicate con {@link Builder#hashOnly(Rule...)}, non sono mai
+ * conservate in chiaro: la chiave e' un SHA-256 del valore con un sale casuale della cache.
+ */
+public final class ValidationCache {
+
+    /** Restituito da get se il valore non e' in cache. */
+    static final int MISS = -1;
+
+    private static volatile ValidationCache installed;
+
+    private static final ThreadLocal<MessageDigest> SHA256 = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    // stima dell'occupazione: voce, chiave e nodo della mappa, piu' la copia del valore
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final Set<Rule> rules;
+    private final Set<Rule> hashOnly;
+    private final boolean regex;
+    private final boolean passwords;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final int maxValueLength;
+    private final byte[] salt = new byte[16];
+
+    /** Esiti per chiave, pesati con la stima in byte. */
+    private final ClockCache<Key, Integer> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private ValidationCache(Builder b) {
+        rules = b.rules.clone();
+        hashOnly = b.hashOnly.clone();
+        regex = b.regex;
+        passwords = b.passwords;
+        maxEntries = b.maxEntries;
+        maxBytes = b.maxBytes;
+        maxValueLength = b.maxValueLength;
+        new SecureRandom().nextBytes(salt);
+        entries = new ClockCache<Key, Integer>(maxEntries, maxBytes);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Puts <code>cache</code> in front of the validators; null removes the cache.
+     */
+    public static void install(ValidationCache cache) {
+        installed = cache;
+    }
+
+    public static ValidationCache installed() {
+        return installed;
+    }
+
+    public boolean caches(Rule rule) {
+        return rules.contains(rule);
+    }
+
+    public boolean cachesRegex() {
+        return regex;
+    }
+
+    public boolean cachesPasswords() {
+        return passwords;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return entries.evictions();
+    }
+
+    /**
+     * Hits over lookups, 0 if there were none.
+     */
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Estimated memory held by the entries.
+     */
+    public long byteSize() {
+        return entries.weight();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    boolean isHashOnly(Rule rule) {
+        return hashOnly.contains(rule);
+    }
+
+    /**
+     * Returns the key of <code>value</code> in <code>scope</code> (a rule, a regex, a policy),
+     * to pass to get and then to put; null if the value is not cached. A hashed key costs one
+     * SHA-256.
+     */
+    Key key(Object scope, CharSequence value, boolean hashed) {
+        if (value == null || value.length() > maxValueLength) {
+            return null;
+        }
+        return hashed ? hashedKey(scope, value) : new Key(scope, value);
+    }
+
+    /**
+     * Returns the cached result for <code>key</code>, or MISS.
+     */
+    int get(Key key) {
+        if (key == null) {
+            return MISS;
+        }
+        Integer result = entries.get(key);
+        if (result == null) {
+            misses.increment();
+            return MISS;
+        }
+        hits.increment();
+        return result;
+    }
+
+    /**
+     * Stores <code>result</code> (small non-negative values, cached as Integer without
+     * allocations); dropped if another thread is inserting.
+     */
+    void put(Key key, int result) {
+        if (key == null) {
+            return;
+        }
+        entries.put(key.stored(), result, ENTRY_OVERHEAD + (key.value == null ? 0 : 2 * key.value.length()));
+    }
+
+    private Key hashedKey(Object scope, CharSequence value) {
+        MessageDigest sha = SHA256.get();
+        sha.update(salt);
+        byte[] buffer = new byte[2 * Math.min(value.length(), 64)];
+        for (int i = 0, len = value.length(); i < len; ) {
+            int n = 0;
+            for (; n < buffer.length && i < len; i++) {
+                char c = value.charAt(i);
+                buffer[n++] = (byte) (c >>> 8);
+                buffer[n++] = (byte) c;
+            }
+            sha.update(buffer, 0, n);
+        }
+        byte[] digest = sha.digest();
+        long h1 = 0;
+        long h2 = 0;
+        for (int i = 0; i < 8; i++) {
+            h1 = h1 << 8 | (digest[i] & 0xFF);
+            h2 = h2 << 8 | (digest[i + 8] & 0xFF);
+        }
+        return new Key(scope, h1, h2);
+    }
+
+    /**
+     * Chiave: ambito (regola, regex o policy) piu' il valore, oppure piu' 128 bit del suo hash.
+     * Le chiavi in cache hanno sempre una copia immutabile del valore; quelle di ricerca
+     * possono avvolgere qualsiasi CharSequence.
+     */
+    static final class Key {
+
+        final Object scope;
+        final CharSequence value;
+        final long h1;
+        final long h2;
+        final int hash;
+
+        Key(Object scope, CharSequence value) {
+            this.scope = scope;
+            this.value = value;
+            this.h1 = 0;
+            this.h2 = 0;
+            int h = scope.hashCode();
+            for (int i = 0, len = value.length(); i < len; i++) {
+                h = 31 * h + value.charAt(i);
+            }
+            this.hash = h;
+        }
+
+        private Key(Key k, String value) {
+            this.scope = k.scope;
+            this.value = value;
+            this.h1 = 0;
+            this.h2 = 0;
+            this.hash = k.hash;
+        }
+
+        /**
+         * The key to keep in the cache: this one, or a copy holding the value as a String.
+         */
+        Key stored() {
+            return value == null || value instanceof String ? this : new Key(this, value.toString());
+        }
+
+        Key(Object scope, long h1, long h2) {
+            this.scope = scope;
+            this.value = null;
+            this.h1 = h1;
+            this.h2 = h2;
+            this.hash = 31 * scope.hashCode() + (int) h1;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            if (hash != k.hash || !scope.equals(k.scope)) {
+                return false;
+            }
+            if (value == null || k.value == null) {
+                return value == k.value && h1 == k.h1 && h2 == k.h2;
+            }
+            int len = value.length();
+            if (k.value.length() != len) {
+                return false;
+            }
+            for (int i = 0; i < len; i++) {
+                if (value.charAt(i) != k.value.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    public static final class Builder {
+
+        private EnumSet<Rule> rules = EnumSet.noneOf(Rule.class);
+        private EnumSet<Rule> hashOnly = EnumSet.noneOf(Rule.class);
+        private boolean regex;
+        private boolean passwords;
+        private int maxEntries = 10000;
+        private long maxBytes = 4 * 1024 * 1024;
+        private int maxValueLength = 256;
+
+        private Builder() {
+        }
+
+        /**
+         * Caches the results of these rules, also when used through the isX methods.
+         */
+        public Builder rules(Rule... cached) {
+            for (Rule r : cached) {
+                rules.add(r);
+            }
+            return this;
+        }
+
+        /**
+         * Caches these rules keyed by a salted hash of the value instead of the value.
+         */
+        public Builder hashOnly(Rule... cached) {
+            for (Rule r : cached) {
+                rules.add(r);
+                hashOnly.add(r);
+            }
+            return this;
+        }
+
+        /**
+         * Caches {@link InputValidator#check(String, String)}.
+         */
+        public Builder regex(boolean cached) {
+            regex = cached;
+            return this;
+        }
+
+        /**
+         * Caches the outcome of {@link PasswordPolicy#check(CharSequence, String, ValidationErrors)},
+         * always keyed by hash.
+         */
+        public Builder passwords(boolean cached) {
+            passwords = cached;
+            return this;
+        }
+
+        public Builder maxEntries(int n) {
+            if (n < 1) {
+                throw new IllegalArgumentException("maxEntries: " + n);
+            }
+            maxEntries = n;
+            return this;
+        }
+
+        /**
+         * Cap on the estimated memory of the entries.
+         */
+        public Builder maxBytes(long n) {
+            if (n < ENTRY_OVERHEAD) {
+                throw new IllegalArgumentException("maxBytes: " + n);
+            }
+            maxBytes = n;
+            return this;
+        }
+
+        /**
+         * Longer values are validated every time and never cached.
+         */
+        public Builder maxValueLength(int n) {
+            if (n < 0) {
+                throw new IllegalArgumentException("maxValueLength: " + n);
+            }
+            maxValueLength = n;
+            return this;
+        }
+
+        public ValidationCache build() {
+            return new ValidationCache(this);
+        }
+    }
+
+}
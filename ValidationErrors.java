@@ -0,0 +1,90 @@
+package it.alexpiex.mie;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Raccoglie gli errori prodotti dai validatori durante una singola chiamata o richiesta.
+ * Ogni chiamante possiede la propria istanza: non va condivisa tra thread.
+ * Gli errori registrati come {@link ValidationStatus} diventano testo solo quando il messaggio
+ * viene letto.
+ */
+public class ValidationErrors {
+
+    /** Valori String oppure ValidationStatus. */
+    private Map<String, Object> _error;
+
+    /**
+     * Registers an error for the given validator, replacing any previous one.
+     *
+     * @param source  the validator that failed, e.g. "isCodFisc(...)"
+     * @param message the error text
+     */
+    public void put(String source, String message) {
+        store(source, message);
+    }
+
+    /**
+     * Registers an error as a status code; its text is built only if it is read.
+     */
+    public void put(String source, ValidationStatus status) {
+        store(source, status);
+    }
+
+    private void store(String source, Object error) {
+        if (_error == null) {
+            _error = new LinkedHashMap<String, Object>();
+        }
+        _error.put(source, error);
+    }
+
+    public boolean hasErrors() {
+        return _error != null && !_error.isEmpty();
+    }
+
+    /**
+     * Returns the status registered for <code>source</code>, or null if there is none or the
+     * error was registered as text.
+     */
+    public ValidationStatus getStatus(String source) {
+        Object error = _error == null ? null : _error.get(source);
+        return error instanceof ValidationStatus ? (ValidationStatus) error : null;
+    }
+
+    /**
+     * Returns the collected messages, each one followed by a "&lt;br /&gt;".
+     */
+    public String getErrorMsg() {
+        if (!hasErrors()) {
+            return "";
+        }
+        StringBuilder strOut = new StringBuilder();
+        for (Object error : _error.values()) {
+            strOut.append(toMessage(error)).append("<br />");
+        }
+        return strOut.toString();
+    }
+
+    public Map<String, String> getErrors() {
+        if (_error == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> messages = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, Object> entry : _error.entrySet()) {
+            messages.put(entry.getKey(), toMessage(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(messages);
+    }
+
+    public void clear() {
+        if (_error != null) {
+            _error.clear();
+        }
+    }
+
+    private static String toMessage(Object error) {
+        return error instanceof ValidationStatus ? ((ValidationStatus) error).getMessage() : (String) error;
+    }
+
+}
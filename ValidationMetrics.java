@@ -0,0 +1,37 @@
+package it.alexpiex.mie;
+
+/**
+ * Destinazione delle metriche dei validatori, impostata con {@link Metrics#setRegistry(ValidationMetrics)}.
+ * Un adattatore verso Micrometer, Prometheus o altro implementa questa interfaccia; nei test si
+ * usa {@link InMemoryMetrics}. I metodi sono chiamati dai thread che validano: devono essere
+ * veloci e thread-safe.
+ */
+public interface ValidationMetrics {
+
+    /** Non registra niente: con questo registro le metriche sono spente. */
+    ValidationMetrics NOOP = new ValidationMetrics() {
+        @Override
+        public void record(String name, boolean accepted, long nanos) {
+        }
+
+        @Override
+        public void slowMatch(String regex, int inputLength, long nanos) {
+        }
+    };
+
+    /**
+     * One call of a validator.
+     *
+     * @param name     the rule name (e.g. "EMAIL") or the regex of {@link InputValidator#check(String, String)}
+     * @param accepted whether the value was valid
+     * @param nanos    the duration of the call
+     */
+    void record(String name, boolean accepted, long nanos);
+
+    /**
+     * A regex match that took longer than {@link Metrics#getSlowThreshold()}, typically a
+     * ReDoS attempt or a pattern to rewrite.
+     */
+    void slowMatch(String regex, int inputLength, long nanos);
+
+}
@@ -0,0 +1,298 @@
+package it.alexpiex.mie;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Piano di validazione compilato da una descrizione dichiarativa dei campi di un record.
+ * <pre>
+ * ValidationPlan plan = ValidationPlan.builder()
+ *         .field("nome").required().length(1, 50).noSpecialCharacters().rule(Rule.ALPHABETIC)
+ *         .field("codiceFiscale").required().rule(Rule.COD_FISC)
+ *         .field("note").maxLength(2000)
+ *         .build();
+ * ValidationErrors errors = plan.validate(record, ValidationPlan.Mode.COLLECT_ALL);
+ * </pre>
+ * Per ogni campo vuoto, lunghezza e caratteri non ammessi sono verificati in un solo passaggio
+ * sul valore, poi si applicano le regole senza ripetere il controllo di stringa vuota.
+ * I messaggi di errore sono preparati in fase di compilazione.
+ * Il piano e' immutabile: una volta costruito si puo' condividere tra thread e riusare su
+ * qualsiasi numero di record.
+ */
+public final class ValidationPlan {
+
+    public enum Mode {
+        /** Si ferma al primo campo non valido. */
+        FAIL_FAST,
+        /** Verifica tutti i campi, al piu' un errore per campo. */
+        COLLECT_ALL
+    }
+
+    private final FieldCheck[] fields;
+
+    private ValidationPlan(FieldCheck[] fields) {
+        this.fields = fields;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public List<String> getFieldNames() {
+        List<String> names = new ArrayList<String>(fields.length);
+        for (FieldCheck f : fields) {
+            names.add(f.name);
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    public ValidationErrors validate(Map<String, ? extends CharSequence> record, Mode mode) {
+        ValidationErrors errors = new ValidationErrors();
+        validate(record, mode, errors);
+        return errors;
+    }
+
+    /**
+     * Validates the fields of <code>record</code> by name; fields missing from the map are empty.
+     *
+     * @return true if every field is valid
+     */
+    public boolean validate(Map<String, ? extends CharSequence> record, Mode mode, ValidationErrors errors) {
+        boolean valid = true;
+        for (FieldCheck f : fields) {
+            String msg = f.check(record.get(f.name));
+            if (msg != null) {
+                errors.put(f.name, msg);
+                valid = false;
+                if (mode == Mode.FAIL_FAST) {
+                    break;
+                }
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Validates a record given as values in the order the fields were declared, e.g. a CSV row.
+     * Missing trailing values are empty.
+     *
+     * @return true if every field is valid
+     */
+    public boolean validate(CharSequence[] values, Mode mode, ValidationErrors errors) {
+        boolean valid = true;
+        for (int i = 0; i < fields.length; i++) {
+            FieldCheck f = fields[i];
+            String msg = f.check(i < values.length ? values[i] : null);
+            if (msg != null) {
+                errors.put(f.name, msg);
+                valid = false;
+                if (mode == Mode.FAIL_FAST) {
+                    break;
+                }
+            }
+        }
+        return valid;
+    }
+
+    // accesso per campo, per chi divide il record tra piu' thread (ValidationService)
+
+    int size() {
+        return fields.length;
+    }
+
+    String fieldName(int i) {
+        return fields[i].name;
+    }
+
+    /**
+     * Returns null if the value of field <code>i</code> is valid, the error message otherwise.
+     */
+    String checkField(int i, CharSequence value) {
+        return fields[i].check(value);
+    }
+
+    /**
+     * Vincoli compilati di un campo.
+     */
+    private static final class FieldCheck {
+
+        final String name;
+        final boolean required;
+        final int minLength;
+        final int maxLength;
+        final CharClass forbidden;
+        final Rule[] rules;
+
+        final String msgEmpty;
+        final String msgLength;
+        final String msgSpecial;
+        final String[] msgRules;
+
+        FieldCheck(FieldBuilder b) {
+            name = b.name;
+            required = b.required;
+            minLength = Math.max(b.minLength, 1);
+            maxLength = b.maxLength;
+            forbidden = b.forbidden;
+            rules = b.rules.toArray(new Rule[b.rules.size()]);
+            msgEmpty = "Campo " + name + " non valorizzato";
+            msgLength = "Campo " + name + ": lunghezza non compresa tra " + minLength + " e " + maxLength;
+            msgSpecial = "Campo " + name + ": caratteri non ammessi";
+            msgRules = new String[rules.length];
+            for (int i = 0; i < rules.length; i++) {
+                msgRules[i] = "Campo " + name + " non valido (" + rules[i] + ")";
+            }
+        }
+
+        /**
+         * Returns null if the value is valid, the error message otherwise.
+         */
+        String check(CharSequence value) {
+            int len = value == null ? 0 : value.length();
+            boolean blank = true;
+            boolean special = false;
+            for (int i = 0; i < len; i++) {
+                char c = value.charAt(i);
+                if (c > ' ') {
+                    blank = false;
+                    if (forbidden == null) {
+                        break;
+                    }
+                }
+                if (forbidden != null && forbidden.contains(c)) {
+                    special = true;
+                    if (!blank) {
+                        break;
+                    }
+                }
+            }
+            if (blank) {
+                return required ? msgEmpty : null;
+            }
+            if (len < minLength || len > maxLength) {
+                return msgLength;
+            }
+            if (special) {
+                return msgSpecial;
+            }
+            for (int i = 0; i < rules.length; i++) {
+                if (!rules[i].evaluate(value)) {
+                    return msgRules[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    public static final class Builder {
+
+        private final List<FieldBuilder> fields = new ArrayList<FieldBuilder>();
+
+        private Builder() {
+        }
+
+        /**
+         * Declares a new field; constraints are added to the returned builder.
+         */
+        public FieldBuilder field(String name) {
+            if (name == null) {
+                throw new IllegalArgumentException("name is null");
+            }
+            for (FieldBuilder f : fields) {
+                if (f.name.equals(name)) {
+                    throw new IllegalArgumentException("duplicate field: " + name);
+                }
+            }
+            FieldBuilder f = new FieldBuilder(this, name);
+            fields.add(f);
+            return f;
+        }
+
+        public ValidationPlan build() {
+            FieldCheck[] checks = new FieldCheck[fields.size()];
+            for (int i = 0; i < checks.length; i++) {
+                checks[i] = new FieldCheck(fields.get(i));
+            }
+            return new ValidationPlan(checks);
+        }
+    }
+
+    public static final class FieldBuilder {
+
+        private final Builder parent;
+        private final String name;
+        private boolean required;
+        private int minLength = 1;
+        private int maxLength = Integer.MAX_VALUE;
+        private CharClass forbidden;
+        private final List<Rule> rules = new ArrayList<Rule>();
+
+        private FieldBuilder(Builder parent, String name) {
+            this.parent = parent;
+            this.name = name;
+        }
+
+        /**
+         * An empty value is an error. Without this, an empty value is accepted and its other
+         * constraints are not checked.
+         */
+        public FieldBuilder required() {
+            required = true;
+            return this;
+        }
+
+        /**
+         * Length bounds as in {@link InputValidator#isValid(String, int, int)}: a minimum of 0 counts as 1.
+         */
+        public FieldBuilder length(int min, int max) {
+            if (min > max) {
+                throw new IllegalArgumentException("min > max: " + min + " > " + max);
+            }
+            minLength = min;
+            maxLength = max;
+            return this;
+        }
+
+        public FieldBuilder maxLength(int max) {
+            return length(1, max);
+        }
+
+        /**
+         * Rejects the special characters checked by {@link InputValidator#isValid(String, boolean)}.
+         */
+        public FieldBuilder noSpecialCharacters() {
+            return forbiddenCharacters(InputValidator.specialCharacters());
+        }
+
+        /**
+         * Rejects values containing any character of <code>chars</code>; replaces any class
+         * set before.
+         */
+        public FieldBuilder forbiddenCharacters(CharClass chars) {
+            forbidden = chars;
+            return this;
+        }
+
+        /**
+         * Adds a rule; rules are applied in the order they are added.
+         */
+        public FieldBuilder rule(Rule rule) {
+            if (rule == null) {
+                throw new IllegalArgumentException("rule is null");
+            }
+            rules.add(rule);
+            return this;
+        }
+
+        public FieldBuilder field(String name) {
+            return parent.field(name);
+        }
+
+        public ValidationPlan build() {
+            return parent.build();
+        }
+    }
+
+}
@@ -0,0 +1,319 @@
+package it.alexpiex.mie;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Validazione asincrona dei record con un {@link ValidationPlan}: i campi di un record sono
+ * divisi in gruppi verificati in parallelo, l'esito arriva in un CompletableFuture con un
+ * {@link ValidationErrors} proprio del record. Sui record con centinaia di campi la latenza
+ * scala con i core.
+ * <p>
+ * Per default i task girano su virtual thread (JDK 21+), altrimenti sul
+ * {@link ForkJoinPool#commonPool()}. Al piu' <code>maxInFlight</code> record sono in lavorazione
+ * contemporaneamente: oltre, {@link #validate(ValidationPlan, CharSequence[], ValidationPlan.Mode)}
+ * blocca il chiamante finche' un record non termina (backpressure), mentre
+ * {@link #tryValidate(ValidationPlan, CharSequence[], ValidationPlan.Mode, long, TimeUnit)} attende
+ * al piu' il tempo dato e poi rifiuta il record. Chi gira a sua volta su un pool condiviso (uno
+ * stadio async di un CompletableFuture, un task del commonPool) deve usare tryValidate: bloccare
+ * quei thread in attesa dei record in corso puo' lasciare il pool senza thread per completarli.
+ * <pre>
+ * ValidationService service = ValidationService.create(256);
+ * service.validate(plan, row, ValidationPlan.Mode.COLLECT_ALL).thenAccept(...);
+ * </pre>
+ */
+public final class ValidationService implements Closeable {
+
+    /** Campi verificati da un singolo task: i controlli costano microsecondi, non conviene scendere. */
+    public static final int DEFAULT_FIELDS_PER_TASK = 16;
+
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final boolean virtual;
+    private final Semaphore inFlight;
+    private final int fieldsPerTask;
+
+    private ValidationService(ExecutorService executor, boolean ownsExecutor, boolean virtual, int maxInFlight,
+                              int fieldsPerTask) {
+        if (maxInFlight < 1 || fieldsPerTask < 1) {
+            throw new IllegalArgumentException("maxInFlight: " + maxInFlight + ", fieldsPerTask: " + fieldsPerTask);
+        }
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.virtual = virtual;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.fieldsPerTask = fieldsPerTask;
+    }
+
+    /**
+     * Returns a service running on virtual threads if the JDK has them, on the common
+     * fork/join pool otherwise.
+     */
+    public static ValidationService create(int maxInFlight) {
+        ExecutorService virtual = newVirtualThreadExecutor();
+        if (virtual != null) {
+            return new ValidationService(virtual, true, true, maxInFlight, DEFAULT_FIELDS_PER_TASK);
+        }
+        return new ValidationService(ForkJoinPool.commonPool(), false, false, maxInFlight, DEFAULT_FIELDS_PER_TASK);
+    }
+
+    /**
+     * Returns a service running on <code>executor</code>, which is not shut down by {@link #close()}.
+     * {@link #isVirtual()} is false: use {@link #create(ExecutorService, boolean, int, int)} for
+     * an executor of virtual threads.
+     */
+    public static ValidationService create(ExecutorService executor, int maxInFlight, int fieldsPerTask) {
+        return create(executor, false, maxInFlight, fieldsPerTask);
+    }
+
+    /**
+     * Returns a service running on <code>executor</code>, which is not shut down by {@link #close()};
+     * <code>virtual</code> tells whether it runs its tasks on virtual threads, which an
+     * ExecutorService does not expose.
+     */
+    public static ValidationService create(ExecutorService executor, boolean virtual, int maxInFlight,
+                                           int fieldsPerTask) {
+        return new ValidationService(executor, false, virtual, maxInFlight, fieldsPerTask);
+    }
+
+    /**
+     * True if the tasks run on virtual threads.
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Validates a record given as values in the order the fields were declared, e.g. a CSV row.
+     * Blocks while <code>maxInFlight</code> records are being validated: do not call it from a
+     * thread of a shared pool, see {@link #tryValidate(ValidationPlan, CharSequence[],
+     * ValidationPlan.Mode, long, TimeUnit)}.
+     * <p>
+     * With FAIL_FAST, once a field fails the fields after it are skipped; the fields before it
+     * are still checked, so the error is always the first in declaration order, as with
+     * {@link ValidationPlan#validate}.
+     */
+    public CompletableFuture<ValidationErrors> validate(ValidationPlan plan, CharSequence[] values,
+                                                        ValidationPlan.Mode mode) {
+        CompletableFuture<ValidationErrors> result = new CompletableFuture<ValidationErrors>();
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+            return result;
+        }
+        return submit(plan, values, mode, result);
+    }
+
+    /**
+     * Like {@link #validate(ValidationPlan, CharSequence[], ValidationPlan.Mode)}, but waits at
+     * most <code>timeout</code> for one of the <code>maxInFlight</code> records to finish; a
+     * timeout of 0 never waits. A record that does not get in is not validated and the future
+     * completes exceptionally with a RejectedExecutionException, so the caller can retry later or
+     * shed load without holding its thread.
+     */
+    public CompletableFuture<ValidationErrors> tryValidate(ValidationPlan plan, CharSequence[] values,
+                                                           ValidationPlan.Mode mode, long timeout, TimeUnit unit) {
+        CompletableFuture<ValidationErrors> result = new CompletableFuture<ValidationErrors>();
+        try {
+            if (!inFlight.tryAcquire(timeout, unit)) {
+                result.completeExceptionally(new RejectedExecutionException("too many records in flight"));
+                return result;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+            return result;
+        }
+        return submit(plan, values, mode, result);
+    }
+
+    /**
+     * Validates the fields of <code>record</code> by name; fields missing from the map are empty.
+     */
+    public CompletableFuture<ValidationErrors> validate(ValidationPlan plan, Map<String, ? extends CharSequence> record,
+                                                        ValidationPlan.Mode mode) {
+        return validate(plan, values(plan, record), mode);
+    }
+
+    /**
+     * Like {@link #validate(ValidationPlan, Map, ValidationPlan.Mode)}, rejecting the record after
+     * <code>timeout</code> as {@link #tryValidate(ValidationPlan, CharSequence[], ValidationPlan.Mode,
+     * long, TimeUnit)} does.
+     */
+    public CompletableFuture<ValidationErrors> tryValidate(ValidationPlan plan, Map<String, ? extends CharSequence> record,
+                                                           ValidationPlan.Mode mode, long timeout, TimeUnit unit) {
+        return tryValidate(plan, values(plan, record), mode, timeout, unit);
+    }
+
+    /**
+     * Distribuisce i gruppi di un record che ha gia' preso il suo posto in inFlight.
+     */
+    private CompletableFuture<ValidationErrors> submit(ValidationPlan plan, CharSequence[] values,
+                                                       ValidationPlan.Mode mode,
+                                                       CompletableFuture<ValidationErrors> result) {
+        int size = plan.size();
+        if (size == 0) {
+            inFlight.release();
+            result.complete(new ValidationErrors());
+            return result;
+        }
+        Job job = new Job(plan, values, mode, result, (size + fieldsPerTask - 1) / fieldsPerTask);
+        for (int from = 0; from < size; from += fieldsPerTask) {
+            Group group = new Group(job, from, Math.min(from + fieldsPerTask, size));
+            try {
+                executor.execute(group);
+            } catch (RejectedExecutionException e) {
+                job.fail(e);
+                group.done();
+            }
+        }
+        return result;
+    }
+
+    private static CharSequence[] values(ValidationPlan plan, Map<String, ? extends CharSequence> record) {
+        CharSequence[] values = new CharSequence[plan.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = record.get(plan.fieldName(i));
+        }
+        return values;
+    }
+
+    /**
+     * Shuts down the virtual thread executor, if the service created it.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() via reflection, cosi' la libreria resta
+     * compilabile e utilizzabile con i JDK precedenti.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (Exception e) {
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Un record in lavorazione: ogni gruppo scrive solo le proprie posizioni di messages,
+     * l'ultimo gruppo che termina compone gli errori in ordine di dichiarazione.
+     */
+    private final class Job {
+
+        final ValidationPlan plan;
+        final CharSequence[] values;
+        final boolean failFast;
+        final CompletableFuture<ValidationErrors> result;
+        final String[] messages;
+        final AtomicInteger pending;
+        // FAIL_FAST: indice del primo campo fallito finora, size() se nessuno
+        final AtomicInteger firstFailed;
+        volatile Throwable error;
+
+        Job(ValidationPlan plan, CharSequence[] values, ValidationPlan.Mode mode,
+            CompletableFuture<ValidationErrors> result, int groups) {
+            this.plan = plan;
+            this.values = values;
+            this.failFast = mode == ValidationPlan.Mode.FAIL_FAST;
+            this.result = result;
+            this.messages = new String[plan.size()];
+            this.pending = new AtomicInteger(groups);
+            this.firstFailed = new AtomicInteger(plan.size());
+        }
+
+        /**
+         * True if field <code>i</code> must still be checked: under FAIL_FAST only the fields
+         * before the first failure matter.
+         */
+        boolean needs(int i) {
+            return !failFast || i < firstFailed.get();
+        }
+
+        void failed(int i) {
+            int current;
+            while (i < (current = firstFailed.get()) && !firstFailed.compareAndSet(current, i)) {
+                // un altro gruppo ha registrato un indice: si riconfronta
+            }
+        }
+
+        void fail(Throwable t) {
+            error = t;
+        }
+
+        void finish() {
+            inFlight.release();
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            ValidationErrors errors = new ValidationErrors();
+            for (int i = 0; i < messages.length; i++) {
+                if (messages[i] != null) {
+                    errors.put(plan.fieldName(i), messages[i]);
+                    if (failFast) {
+                        break;
+                    }
+                }
+            }
+            result.complete(errors);
+        }
+    }
+
+    private static final class Group implements Runnable {
+
+        private final Job job;
+        private final int from;
+        private final int to;
+
+        Group(Job job, int from, int to) {
+            this.job = job;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = from; i < to && job.needs(i); i++) {
+                    String msg = job.plan.checkField(i, i < job.values.length ? job.values[i] : null);
+                    if (msg != null) {
+                        job.messages[i] = msg;
+                        job.failed(i);
+                    }
+                }
+            } catch (Throwable t) {
+                job.fail(t);
+            } finally {
+                done();
+            }
+        }
+
+        void done() {
+            // il decremento atomico rende visibili all'ultimo gruppo le scritture degli altri
+            if (job.pending.decrementAndGet() == 0) {
+                job.finish();
+            }
+        }
+    }
+
+}
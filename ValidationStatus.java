@@ -0,0 +1,82 @@
+package it.alexpiex.mie;
+
+/**
+ * Esito di una validazione. Il testo del messaggio e' prodotto solo quando viene richiesto
+ * con {@link #getMessage()}.
+ */
+public enum ValidationStatus {
+    EMPTYORNULL,
+    INVALIDUSERNAME,
+    VALIDUSERNAME,
+    INVALIDPASSWORD,
+    PASSWORDNOTMATCHING,
+    VALIDPASSWORD,
+    INVALIDDATE,
+    VALIDDATE,
+    INVALIDDOB,
+    VALIDDOB,
+    DOBTOOYOUNG,
+    INVALIDNAME,
+    VALIDNAME,
+    INVALIDPHONENUMBER,
+    VALIDPHONENUMBER,
+    INVALID,
+    VALID,
+    NOTANUMBER,
+    OUTOFRANGE,
+    INVALIDCHECKDIGIT,
+    TOOLONG,
+    TIMEOUT;
+
+    public boolean isValid() {
+        switch (this) {
+            case VALID:
+            case VALIDUSERNAME:
+            case VALIDPASSWORD:
+            case VALIDDATE:
+            case VALIDDOB:
+            case VALIDNAME:
+            case VALIDPHONENUMBER:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public String getMessage() {
+        switch (this) {
+            case EMPTYORNULL:
+                return "Valore non valorizzato";
+            case INVALIDUSERNAME:
+                return "Nome utente non valido";
+            case INVALIDPASSWORD:
+                return "Password non valida";
+            case PASSWORDNOTMATCHING:
+                return "Le password non coincidono";
+            case INVALIDDATE:
+                return "Data non valida";
+            case INVALIDDOB:
+                return "Data di nascita non valida";
+            case DOBTOOYOUNG:
+                return "Eta' inferiore al minimo consentito";
+            case INVALIDNAME:
+                return "Nome non valido";
+            case INVALIDPHONENUMBER:
+                return "Numero di telefono non valido";
+            case INVALID:
+                return "Valore non valido";
+            case NOTANUMBER:
+                return "Valore non numerico";
+            case OUTOFRANGE:
+                return "Valore fuori dall'intervallo consentito";
+            case INVALIDCHECKDIGIT:
+                return "Carattere di controllo errato";
+            case TOOLONG:
+                return "Valore troppo lungo";
+            case TIMEOUT:
+                return "Verifica interrotta: tempo massimo superato";
+            default:
+                return "Valore valido";
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package it.alexpiex.mie;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link CharScanner} con la Vector API: ogni intervallo costa una sottrazione e un confronto
+ * per blocco. Il confronto senza segno c - lo &lt;= hi - lo diventa con segno spostando entrambi
+ * i lati di mezzo intervallo (0x8000 o 0x80), perche' i nomi dei confronti senza segno cambiano
+ * tra le versioni della Vector API. Richiede JDK 17+ e
+ * <code>--add-modules jdk.incubator.vector</code>, sia in compilazione (profilo maven
+ * <code>simd</code>) sia in esecuzione; non va referenziata direttamente.
+ */
+final class VectorCharScanner extends CharScanner {
+
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+
+    VectorCharScanner() {
+        // senza registri SIMD la Vector API e' piu' lenta del ciclo scalare
+        if (SHORTS.vectorBitSize() < 128) {
+            throw new UnsupportedOperationException("no SIMD registers");
+        }
+    }
+
+    @Override
+    int index(char[] ranges, boolean inside, char[] a, int from, int to) {
+        int i = from;
+        int upper = from + SHORTS.loopBound(to - from);
+        for (; i < upper; i += SHORTS.length()) {
+            ShortVector v = ShortVector.fromCharArray(SHORTS, a, i);
+            VectorMask<Short> in = inRange(v, ranges[0], ranges[1]);
+            for (int r = 2; r < ranges.length; r += 2) {
+                in = in.or(inRange(v, ranges[r], ranges[r + 1]));
+            }
+            VectorMask<Short> found = inside ? in : in.not();
+            if (found.anyTrue()) {
+                return i + found.firstTrue();
+            }
+        }
+        for (; i < to; i++) {
+            if (contains(ranges, a[i]) == inside) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    int index(char[] ranges, boolean inside, byte[] a, int from, int to) {
+        int i = from;
+        int upper = from + BYTES.loopBound(to - from);
+        for (; i < upper; i += BYTES.length()) {
+            ByteVector v = ByteVector.fromArray(BYTES, a, i);
+            VectorMask<Byte> in = BYTES.maskAll(false);
+            for (int r = 0; r < ranges.length && ranges[r] <= 0xFF; r += 2) {
+                in = in.or(inRange(v, ranges[r], Math.min(ranges[r + 1], 0xFF)));
+            }
+            VectorMask<Byte> found = inside ? in : in.not();
+            if (found.anyTrue()) {
+                return i + found.firstTrue();
+            }
+        }
+        for (; i < to; i++) {
+            if (contains(ranges, (char) (a[i] & 0xFF)) == inside) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // (c - lo) ^ 0x8000 == c - (lo ^ 0x8000)
+    private static VectorMask<Short> inRange(ShortVector v, int lo, int hi) {
+        return v.sub((short) (lo ^ 0x8000)).compare(VectorOperators.LE, (short) ((hi - lo) ^ 0x8000));
+    }
+
+    private static VectorMask<Byte> inRange(ByteVector v, int lo, int hi) {
+        return v.sub((byte) (lo ^ 0x80)).compare(VectorOperators.LE, (byte) ((hi - lo) ^ 0x80));
+    }
+
+    private static boolean contains(char[] ranges, char c) {
+        for (int r = 0; r < ranges.length; r += 2) {
+            if (c >= ranges[r] && c <= ranges[r + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,59 @@
+package it.alexpiex.mie;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Una colonna di codici fiscali validata valore per valore e con {@link BatchValidator}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BatchBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private String[] column;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        column = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            column[i] = random.nextInt(10) == 0 ? Inputs.COD_FISC.invalid : Inputs.COD_FISC.valid;
+        }
+    }
+
+    @Benchmark
+    public int oneByOne() {
+        int failures = 0;
+        for (String value : column) {
+            if (!InputValidator.isCodFisc(value)) {
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    @Benchmark
+    public int batch() {
+        return BatchValidator.validate(Rule.COD_FISC, column).failureCount();
+    }
+
+}
@@ -0,0 +1,29 @@
+package it.alexpiex.mie;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Avvia i benchmark con il profiler gc sempre attivo (tasso di allocazione per operazione) e
+ * salva i risultati in JSON per confrontare le esecuzioni.
+ * Accetta le normali opzioni JMH, ad esempio un filtro: <code>java -jar benchmarks.jar isEmail</code>.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options opt = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json")
+                .build();
+        new Runner(opt).run();
+    }
+
+}
@@ -0,0 +1,77 @@
+package it.alexpiex.mie;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whitelist di caratteri su input lunghi: {@link CharClass} con e senza la Vector API contro la
+ * regex equivalente. Il fork aggiunge il modulo jdk.incubator.vector; con vector=false la stessa
+ * JVM usa il ciclo scalare.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class CharClassBenchmark {
+
+    @Param({"16", "256", "4096"})
+    public int length;
+
+    @Param({"true", "false"})
+    public boolean vector;
+
+    private String note;
+    private String digits;
+    private Pattern field;
+
+    @Setup
+    public void setup() {
+        CharClass.setVectorEnabled(vector);
+        StringBuilder sb = new StringBuilder(length);
+        String words = "Consegna al piano terra, citofono 12. Pagamento alla consegna ";
+        while (sb.length() < length) {
+            sb.append(words);
+        }
+        sb.setLength(length);
+        note = sb.toString();
+        char[] d = new char[length];
+        Arrays.fill(d, '7');
+        digits = new String(d);
+        field = Pattern.compile("[a-zA-Z\\u00E0-\\u00F90-9.,'\\s]*");
+    }
+
+    @Benchmark
+    public boolean fieldCharClass() {
+        return InputValidator.matchesField(note);
+    }
+
+    @Benchmark
+    public boolean fieldRegex() {
+        return field.matcher(note).matches();
+    }
+
+    @Benchmark
+    public boolean numbers() {
+        return InputValidator.matchesNumbers(digits);
+    }
+
+    @Benchmark
+    public boolean alfanumeric() {
+        return InputValidator.check(InputValidator.ALFANUMERIC, note);
+    }
+}
@@ -0,0 +1,69 @@
+package it.alexpiex.mie;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validatori che scrivono errori (isInteger, isCodFisc, isYear, validPassword) chiamati da piu'
+ * thread insieme, con letture concorrenti di hasErrors()/getErrorMsg().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ConcurrentErrorsBenchmark {
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean failingValidators() {
+        boolean b = InputValidator.isCodFisc("");
+        b |= InputValidator.isYear("19x0");
+        b |= InputValidator.isInteger("abc", 0, 10);
+        b |= InputValidator.validPassword("short");
+        b |= InputValidator.hasErrors();
+        InputValidator.clearErrors();
+        return b;
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean perCallCollector() {
+        ValidationErrors errors = new ValidationErrors();
+        boolean b = InputValidator.isCodFisc("", errors);
+        b |= InputValidator.isYear("19x0", errors);
+        b |= InputValidator.isInteger("abc", 0, 10, errors);
+        b |= InputValidator.validPassword("short", errors);
+        return b | errors.hasErrors();
+    }
+
+    @Benchmark
+    @Group("writersAndReaders")
+    @GroupThreads(3)
+    public boolean writer() {
+        return InputValidator.validPassword("password");
+    }
+
+    @Benchmark
+    @Group("writersAndReaders")
+    @GroupThreads(1)
+    public String reader() {
+        String msg = InputValidator.getErrorMsg();
+        InputValidator.clearErrors();
+        return msg;
+    }
+
+}
@@ -0,0 +1,83 @@
+package it.alexpiex.mie;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validazione di una data gg/mm/aaaa: {@link DateValidator} contro la regex {@link InputValidator#DATE},
+ * SimpleDateFormat non permissivo e DateTimeFormatter con risoluzione STRICT.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DateBenchmark {
+
+    @Param({"VALID", "INVALID"})
+    public Inputs.Kind kind;
+
+    private String date;
+    private Pattern regex;
+    private SimpleDateFormat simpleDateFormat;
+    private DateTimeFormatter formatter;
+
+    @Setup
+    public void setup() {
+        date = Inputs.DATE.get(kind);
+        regex = Pattern.compile(InputValidator.DATE);
+        simpleDateFormat = new SimpleDateFormat("dd/MM/yyyy");
+        simpleDateFormat.setLenient(false);
+        formatter = DateTimeFormatter.ofPattern("dd/MM/uuuu").withResolverStyle(ResolverStyle.STRICT);
+    }
+
+    @Benchmark
+    public boolean dateValidator() {
+        return DateValidator.DATE.isValid(date);
+    }
+
+    @Benchmark
+    public long epochDay() {
+        return DateValidator.DATE.toEpochDay(date);
+    }
+
+    @Benchmark
+    public boolean regex() {
+        return regex.matcher(date).matches();
+    }
+
+    @Benchmark
+    public boolean simpleDateFormat() {
+        ParsePosition pos = new ParsePosition(0);
+        return simpleDateFormat.parse(date, pos) != null && pos.getIndex() == date.length();
+    }
+
+    @Benchmark
+    public boolean dateTimeFormatter() {
+        try {
+            formatter.parse(date);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package it.alexpiex.mie;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Confronto tra {@link MatchEngine#REGEX} e {@link MatchEngine#SCANNER} sui formati fissi.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FixedFormatBenchmark {
+
+    @Param({"REGEX", "SCANNER"})
+    public MatchEngine engine;
+
+    @Param({"VALID", "INVALID"})
+    public Inputs.Kind kind;
+
+    private String codFisc;
+    private String phone;
+    private String euro;
+    private String card;
+
+    @Setup
+    public void setup() {
+        for (FastMatchers.Format f : FastMatchers.Format.values()) {
+            FastMatchers.setEngine(f, engine);
+        }
+        codFisc = Inputs.COD_FISC.get(kind);
+        phone = Inputs.PHONE.get(kind);
+        euro = Inputs.EURO.get(kind);
+        card = Inputs.CARD.get(kind);
+    }
+
+    @Benchmark
+    public boolean codFisc() {
+        return InputValidator.isCodFisc(codFisc);
+    }
+
+    @Benchmark
+    public boolean phone() {
+        return InputValidator.isPhone(phone);
+    }
+
+    @Benchmark
+    public boolean euro() {
+        return InputValidator.isEuro(euro);
+    }
+
+    @Benchmark
+    public String card() {
+        return CreditCard.gleanCompany(card);
+    }
+
+}
@@ -0,0 +1,87 @@
+package it.alexpiex.mie;
+
+/**
+ * Input dei benchmark: per ogni validatore un valore valido, uno non valido e uno ostile.
+ */
+public final class Inputs {
+
+    public enum Kind {
+        VALID, INVALID, ADVERSARIAL
+    }
+
+    final String valid;
+    final String invalid;
+    final String adversarial;
+
+    private Inputs(String valid, String invalid, String adversarial) {
+        this.valid = valid;
+        this.invalid = invalid;
+        this.adversarial = adversarial;
+    }
+
+    String get(Kind kind) {
+        switch (kind) {
+            case VALID:
+                return valid;
+            case INVALID:
+                return invalid;
+            default:
+                return adversarial;
+        }
+    }
+
+    static String repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder(s.length() * times);
+        for (int i = 0; i < times; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    static final Inputs EMAIL = new Inputs("mario.rossi@example.it", "mario.rossi@@example",
+            repeat("a", 5000) + "@" + repeat("b", 5000) + ".");
+    static final Inputs COD_FISC = new Inputs("RSSMRA80A01H501U", "RSSMRA80A01H501",
+            repeat("R", 10000));
+    static final Inputs IBAN = new Inputs("IT60X0542811101000000123456", "IT61X0542811101000000123456",
+            "IT60" + repeat("X0", 5000));
+    static final Inputs EURO = new Inputs("1.234.567,89", "1234,567",
+            repeat("1.234", 2000) + "x");
+    static final Inputs IMPORTO = new Inputs("1234567,89", "1.234,5",
+            repeat("9", 10000) + ",");
+    static final Inputs PHONE = new Inputs("0612345678", "06-1234567", repeat("0", 10000));
+    static final Inputs MOBILE = new Inputs("3331234567", "333123456a", repeat("3", 10000));
+    static final Inputs NUM = new Inputs("-123456", "12.5", repeat("1", 10000) + "-");
+    static final Inputs NUMBERS = new Inputs("-1234.56", "12,34.5", repeat("1", 10000) + "x");
+    static final Inputs TEL_FAX = new Inputs("06/123.45-67", "06 1234 abc", repeat("0 ", 5000) + "x");
+    static final Inputs INTEGER = new Inputs("1234", "12a", "99999999999999999999999999");
+    static final Inputs YEAR = new Inputs("1980", "19x0", repeat("9", 1000));
+    static final Inputs PASSWORD = new Inputs("Passw0rd!", "password",
+            repeat("aB3", 3000));
+    static final Inputs NAME = new Inputs("dell'orco maria adele", "MARIO ROSSI",
+            repeat("d'angelo maria ", 500));
+    static final Inputs STRESSED = new Inputs("perché andò là", "senza accenti",
+            repeat("àèéìòù", 2000));
+    static final Inputs ALPHABETIC = new Inputs("dell'orco", "mario2",
+            // backtracking esponenziale sulla regex annidata
+            repeat("a", 20) + "!");
+    static final Inputs FIELD = new Inputs("Via Roma, 12", "Via Roma #12",
+            repeat("Via Roma, 12 ", 1000) + "#");
+    static final Inputs NOTE = new Inputs("Consegna entro le 12 al piano terra",
+            "Consegna <b>urgente</b>!", repeat("testo libero senza simboli ", 4000));
+    static final Inputs RESOURCE = new Inputs("docs/v2/file-01_a.txt", "docs\\file 01",
+            repeat("a/", 5000) + " ");
+    static final Inputs CARD = new Inputs("4111111111111111", "1234567890123456", repeat("4", 5000));
+    static final Inputs RANGE = new Inputs("rm", "XX", repeat("R", 1000));
+    static final Inputs DATE = new Inputs("29/02/2024", "29/02/2023", repeat("1", 1000) + "/02/2024");
+
+    static final String[] PROVINCES = {
+        "AG", "AL", "AN", "AO", "AR", "AP", "AT", "AV", "BA", "BT", "BL", "BN", "BG", "BI", "BO", "BZ",
+        "BS", "BR", "CA", "CL", "CB", "CE", "CT", "CZ", "CH", "CO", "CS", "CR", "KR", "CN", "EN", "FM",
+        "FE", "FI", "FG", "FC", "FR", "GE", "GO", "GR", "IM", "IS", "SP", "AQ", "LT", "LE", "LC", "LI",
+        "LO", "LU", "MC", "MN", "MS", "MT", "ME", "MI", "MO", "MB", "NA", "NO", "NU", "OR", "PD", "PA",
+        "PR", "PV", "PG", "PU", "PE", "PC", "PI", "PT", "PN", "PZ", "PO", "RG", "RA", "RC", "RE", "RI",
+        "RN", "RM", "RO", "SA", "SS", "SV", "SI", "SR", "SO", "SU", "TA", "TE", "TR", "TO", "TP", "TN",
+        "TV", "TS", "UD", "VA", "VE", "VB", "VC", "VR", "VV", "VI", "VT"
+    };
+
+}
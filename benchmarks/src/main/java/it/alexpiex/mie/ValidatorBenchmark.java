@@ -0,0 +1,251 @@
+package it.alexpiex.mie;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Un benchmark per ogni metodo statico pubblico di {@link InputValidator}, con input
+ * validi, non validi e ostili (stringhe lunghe o costruite per far lavorare le regex).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ValidatorBenchmark {
+
+    @Param({"VALID", "INVALID", "ADVERSARIAL"})
+    public Inputs.Kind kind;
+
+    private String email;
+    private String codFisc;
+    private String iban;
+    private String euro;
+    private String importo;
+    private String phone;
+    private String mobile;
+    private String num;
+    private String numbers;
+    private String telFax;
+    private String integer;
+    private String year;
+    private String password;
+    private String name;
+    private String stressed;
+    private String alphabetic;
+    private String field;
+    private String note;
+    private String resource;
+    private String card;
+    private String range;
+    private CodeSet provinces;
+    private ByteBuffer codFiscBytes;
+    private IncrementalValidator ibanTyping;
+    private char ibanLast;
+    private final StringBuilder sink = new StringBuilder();
+
+    @Setup
+    public void setup() {
+        email = Inputs.EMAIL.get(kind);
+        codFisc = Inputs.COD_FISC.get(kind);
+        codFiscBytes = ByteBuffer.wrap(codFisc.getBytes(StandardCharsets.UTF_8));
+        iban = Inputs.IBAN.get(kind);
+        ibanTyping = IncrementalValidator.iban();
+        ibanTyping.update(iban);
+        ibanLast = iban.isEmpty() ? ' ' : iban.charAt(iban.length() - 1);
+        euro = Inputs.EURO.get(kind);
+        importo = Inputs.IMPORTO.get(kind);
+        phone = Inputs.PHONE.get(kind);
+        mobile = Inputs.MOBILE.get(kind);
+        num = Inputs.NUM.get(kind);
+        numbers = Inputs.NUMBERS.get(kind);
+        telFax = Inputs.TEL_FAX.get(kind);
+        integer = Inputs.INTEGER.get(kind);
+        year = Inputs.YEAR.get(kind);
+        password = Inputs.PASSWORD.get(kind);
+        name = Inputs.NAME.get(kind);
+        stressed = Inputs.STRESSED.get(kind);
+        alphabetic = Inputs.ALPHABETIC.get(kind);
+        field = Inputs.FIELD.get(kind);
+        note = Inputs.NOTE.get(kind);
+        resource = Inputs.RESOURCE.get(kind);
+        card = Inputs.CARD.get(kind);
+        range = Inputs.RANGE.get(kind);
+        provinces = CodeSet.of(true, Inputs.PROVINCES);
+    }
+
+    @Benchmark
+    public boolean isEmail() {
+        return InputValidator.isEmail(email);
+    }
+
+    @Benchmark
+    public boolean isCodFisc() {
+        return InputValidator.isCodFisc(codFisc);
+    }
+
+    /** Lo stesso codice letto dai byte UTF-8 della richiesta, senza creare la String. */
+    @Benchmark
+    public boolean isCodFiscBytes() {
+        return InputValidator.isCodFisc(codFiscBytes, 0, codFiscBytes.limit());
+    }
+
+    @Benchmark
+    public boolean isIban() {
+        return InputValidator.isIban(iban);
+    }
+
+    /** Un tasto sull'IBAN gia' digitato: l'ultimo carattere cancellato e riscritto. */
+    @Benchmark
+    public IncrementalValidator.Verdict ibanKeystroke() {
+        ibanTyping.deleteLast();
+        return ibanTyping.append(ibanLast);
+    }
+
+    @Benchmark
+    public boolean isEuro() {
+        return InputValidator.isEuro(euro);
+    }
+
+    @Benchmark
+    public boolean isImporto() {
+        return InputValidator.isImporto(importo);
+    }
+
+    @Benchmark
+    public boolean isPhone() {
+        return InputValidator.isPhone(phone);
+    }
+
+    @Benchmark
+    public boolean isMobile() {
+        return InputValidator.isMobile(mobile);
+    }
+
+    @Benchmark
+    public boolean isNum() {
+        return InputValidator.isNum(num);
+    }
+
+    @Benchmark
+    public boolean isNumbers() {
+        return InputValidator.isNumbers(numbers);
+    }
+
+    @Benchmark
+    public boolean isTelFax() {
+        return InputValidator.isTelFax(telFax);
+    }
+
+    @Benchmark
+    public boolean isInteger() {
+        return InputValidator.isInteger(integer, 0, 100000);
+    }
+
+    @Benchmark
+    public boolean isYear() {
+        return InputValidator.isYear(year);
+    }
+
+    @Benchmark
+    public boolean validPassword() {
+        return InputValidator.validPassword(password);
+    }
+
+    @Benchmark
+    public String formatName() {
+        return InputValidator.formatName(name);
+    }
+
+    @Benchmark
+    public String noStressedLetters() {
+        return InputValidator.noStressedLetters(stressed);
+    }
+
+    /** Nome normalizzato in uno StringBuilder riutilizzato, come in un import. */
+    @Benchmark
+    public int normalizeNameInto() {
+        sink.setLength(0);
+        return TextNormalizer.NAME.appendTo(name, sink).length();
+    }
+
+    @Benchmark
+    public boolean isAlphabetic() {
+        return InputValidator.isAlphabetic(alphabetic);
+    }
+
+    @Benchmark
+    public boolean isValidField() {
+        return InputValidator.isValidField(field);
+    }
+
+    @Benchmark
+    public boolean isValidLengthAndSpecialChars() {
+        return InputValidator.isValid(note, 1, 100000, true);
+    }
+
+    @Benchmark
+    public boolean isValidLength() {
+        return InputValidator.isValid(note, 1, 100000);
+    }
+
+    @Benchmark
+    public boolean isNotNullString() {
+        return InputValidator.isNotNullString(note);
+    }
+
+    @Benchmark
+    public boolean isOnlyString() {
+        return InputValidator.isOnlyString(note);
+    }
+
+    @Benchmark
+    public boolean isResource() {
+        return InputValidator.isResource(resource);
+    }
+
+    @Benchmark
+    public boolean isRange() {
+        return InputValidator.isRange(range, Inputs.PROVINCES, true);
+    }
+
+    @Benchmark
+    public boolean isRangeCodeSet() {
+        return InputValidator.isRange(range, provinces);
+    }
+
+    @Benchmark
+    public boolean checkNumeric() {
+        return InputValidator.check(InputValidator.NUMERIC, num);
+    }
+
+    @Benchmark
+    public boolean checkDate() {
+        return InputValidator.check(InputValidator.DATE, Inputs.DATE.get(kind));
+    }
+
+    @Benchmark
+    public String gleanCompany() {
+        return CreditCard.gleanCompany(card);
+    }
+
+    @Benchmark
+    public int inspectCard() {
+        return CardEngine.DEFAULT.inspect(card);
+    }
+
+}
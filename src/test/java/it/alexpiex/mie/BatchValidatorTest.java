@@ -0,0 +1,181 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * BatchResult confrontato valore per valore con Rule.status, sotto e sopra la soglia di
+ * divisione e su confini di parola della bitmap.
+ */
+class BatchValidatorTest {
+
+    private static final int T = BatchValidator.DEFAULT_THRESHOLD;
+    private static final int[] SIZES = {0, 1, 63, 64, 65, 127, 129, T - 1, T, T + 1, 2 * T + 63, 3 * T + 17, 100000};
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    private final Random random = new Random(5);
+
+    @AfterAll
+    static void shutdown() {
+        POOL.shutdown();
+    }
+
+    @Test
+    void agreesWithRuleStatus() {
+        Rule[] rules = {Rule.NUM, Rule.COD_FISC_FULL, Rule.IBAN, Rule.EMAIL, Rule.NOT_EMPTY};
+        for (Rule rule : rules) {
+            for (int size : SIZES) {
+                CharSequence[] values = values(rule, size);
+                assertMatches(rule, values, BatchValidator.validate(rule, values));
+                assertMatches(rule, values, BatchValidator.validate(rule, values, POOL));
+                assertMatches(rule, values, BatchValidator.validate(rule, Arrays.asList(values), POOL));
+                if (size <= 2 * T) {
+                    assertMatches(rule, values, BatchValidator.validate(rule, new LinkedList<CharSequence>(Arrays.asList(values))));
+                }
+            }
+        }
+    }
+
+    /**
+     * Ogni task scrive parole distinte: con tutti i valori non validi o tutti vuoti ogni bit fino
+     * a size e' acceso e nessuno oltre.
+     */
+    @Test
+    void bitmapWords() {
+        for (int size : SIZES) {
+            CharSequence[] invalid = new CharSequence[size];
+            Arrays.fill(invalid, "x");
+            BatchResult result = BatchValidator.validate(Rule.NUM, invalid, POOL);
+            assertEquals(size, result.failureCount());
+            assertEquals(size > 0, result.hasFailures());
+            assertEquals(0, result.getEmpty().cardinality());
+            long[] bitmap = result.toFailureBitmap();
+            assertEquals((size + 63) / 64, bitmap.length);
+            if (size % 64 != 0) {
+                assertEquals((1L << size) - 1, bitmap[bitmap.length - 1], "size " + size);
+            }
+            if (size > 0) {
+                // e' una copia
+                bitmap[0] = 0;
+                assertEquals(size, result.failureCount());
+            }
+
+            CharSequence[] blank = new CharSequence[size];
+            Arrays.fill(blank, " ");
+            BatchResult empty = BatchValidator.validate(Rule.NUM, blank, POOL);
+            assertEquals(size, empty.getEmpty().cardinality());
+            assertEquals(empty.getFailures(), empty.getEmpty());
+
+            CharSequence[] valid = new CharSequence[size];
+            Arrays.fill(valid, "42");
+            BatchResult ok = BatchValidator.validate(Rule.NUM, valid, POOL);
+            assertFalse(ok.hasFailures());
+            assertEquals(-1, ok.nextFailure(0));
+        }
+    }
+
+    @Test
+    void errors() {
+        BatchResult result = BatchValidator.validate(Rule.NUM, new CharSequence[] {"1", "x"});
+        assertSame(Rule.NUM, result.getRule());
+        assertThrows(IndexOutOfBoundsException.class, () -> result.getStatus(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> result.isValid(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> result.nextFailure(-1));
+        assertEquals(1, result.nextFailure(0));
+        assertEquals(1, result.nextFailure(1));
+        assertEquals(-1, result.nextFailure(2));
+        assertEquals(-1, result.nextFailure(1000));
+        assertThrows(IllegalArgumentException.class, () -> BatchValidator.validate(null, new CharSequence[0]));
+    }
+
+    @Test
+    void codiceFiscale() {
+        List<String> codes = new ArrayList<String>();
+        for (int i = 0; i < T + 100; i++) {
+            codes.add(i % 3 == 0 ? "RSSMRA80A01H501U" : i % 3 == 1 ? "RSSMRA80A01H501V" : "");
+        }
+        BatchResult result = CodiceFiscale.validate(codes);
+        for (int i = 0; i < codes.size(); i++) {
+            assertEquals(Rule.COD_FISC_FULL.status(codes.get(i)), result.getStatus(i), "" + i);
+        }
+        assertEquals(codes.size() - (codes.size() + 2) / 3, result.failureCount());
+    }
+
+    private static void assertMatches(Rule rule, CharSequence[] values, BatchResult result) {
+        assertEquals(values.length, result.size());
+        BitSet failures = new BitSet();
+        BitSet empty = new BitSet();
+        for (int i = 0; i < values.length; i++) {
+            ValidationStatus expected = rule.status(values[i]);
+            assertEquals(expected, result.getStatus(i), rule + " " + i + " " + values[i]);
+            assertEquals(expected == ValidationStatus.VALID, result.isValid(i));
+            if (expected != ValidationStatus.VALID) {
+                failures.set(i);
+            }
+            if (expected == ValidationStatus.EMPTYORNULL) {
+                empty.set(i);
+            }
+        }
+        assertEquals(failures, result.getFailures(), rule + " " + values.length);
+        assertEquals(empty, result.getEmpty(), rule + " " + values.length);
+        assertEquals(failures.cardinality(), result.failureCount());
+        assertEquals(!failures.isEmpty(), result.hasFailures());
+        int n = 0;
+        int previous = -1;
+        for (int i = result.nextFailure(0); i >= 0; i = result.nextFailure(i + 1)) {
+            assertEquals(failures.nextSetBit(previous + 1), i);
+            previous = i;
+            n++;
+        }
+        assertEquals(failures.cardinality(), n);
+    }
+
+    private CharSequence[] values(Rule rule, int size) {
+        String[] valid;
+        String[] invalid;
+        switch (rule) {
+            case COD_FISC_FULL:
+                valid = new String[] {"RSSMRA80A01H501U", "MRTMTT25D09F205Z"};
+                invalid = new String[] {"RSSMRA80A01H501V", "RSSMRA80F31H501U", "RSSMRA80A01H501"};
+                break;
+            case IBAN:
+                valid = new String[] {"IT60X0542811101000000123456", "DE89 3704 0044 0532 0130 00"};
+                invalid = new String[] {"IT61X0542811101000000123456", "XX00"};
+                break;
+            case EMAIL:
+                valid = new String[] {"mario.rossi@example.it", "a@b.co"};
+                invalid = new String[] {"mario@", "@example.it", "a b@c.it"};
+                break;
+            default:
+                valid = new String[] {"42", "-7", "0"};
+                invalid = new String[] {"x", "4 2", "1.5"};
+                break;
+        }
+        CharSequence[] values = new CharSequence[size];
+        for (int i = 0; i < size; i++) {
+            int kind = random.nextInt(10);
+            if (kind == 0) {
+                values[i] = random.nextBoolean() ? null : "  ";
+            } else if (kind < 4) {
+                values[i] = invalid[random.nextInt(invalid.length)];
+            } else {
+                values[i] = new StringBuilder(valid[random.nextInt(valid.length)]);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,203 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BreachedPasswordsTest {
+
+    private static final int PASSWORDS = 20000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void noFalseNegatives() throws IOException {
+        BreachedPasswords filter = filter();
+        for (int i = 0; i < PASSWORDS; i++) {
+            assertTrue(filter.contains("password" + i), "password" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < PASSWORDS; i++) {
+            if (filter.contains("other" + i)) {
+                falsePositives++;
+            }
+        }
+        // 1% atteso, con margine
+        assertTrue(falsePositives < PASSWORDS / 50, "false positives: " + falsePositives);
+        assertFalse(filter.contains(null));
+    }
+
+    @Test
+    void writeToAndOpen() throws IOException {
+        BreachedPasswords filter = filter();
+        Path file = dir.resolve("filter.bin");
+        filter.writeTo(file);
+        assertEquals(16 + filter.bitCount() / 8, Files.size(file));
+
+        BreachedPasswords opened = BreachedPasswords.open(file);
+        assertEquals(filter.bitCount(), opened.bitCount());
+        assertEquals(filter.hashCount(), opened.hashCount());
+        for (int i = 0; i < PASSWORDS; i++) {
+            assertTrue(opened.contains("password" + i), "password" + i);
+            assertEquals(filter.contains("other" + i), opened.contains("other" + i), "other" + i);
+        }
+
+        // scritto di nuovo da quello mappato, il file e' identico
+        Path copy = dir.resolve("copy.bin");
+        opened.writeTo(copy);
+        assertTrue(Arrays.equals(Files.readAllBytes(file), Files.readAllBytes(copy)));
+    }
+
+    @Test
+    void header() throws IOException {
+        Path file = dir.resolve("filter.bin");
+        filter().writeTo(file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        assertThrows(IOException.class, () -> BreachedPasswords.open(write("empty", new byte[0])));
+        assertThrows(IOException.class, () -> BreachedPasswords.open(write("short", Arrays.copyOf(bytes, 10))));
+
+        byte[] magic = bytes.clone();
+        magic[0] ^= 1;
+        assertThrows(IOException.class, () -> BreachedPasswords.open(write("magic", magic)));
+
+        byte[] hashes = bytes.clone();
+        ByteBuffer.wrap(hashes).putInt(4, 0);
+        assertThrows(IOException.class, () -> BreachedPasswords.open(write("hashes", hashes)));
+
+        byte[] bits = bytes.clone();
+        ByteBuffer.wrap(bits).putLong(8, -64);
+        assertThrows(IOException.class, () -> BreachedPasswords.open(write("bits", bits)));
+
+        // bit mancanti in coda
+        assertThrows(IOException.class, () -> BreachedPasswords.open(write("truncated", Arrays.copyOf(bytes, bytes.length - 1))));
+    }
+
+    @Test
+    void addSha1List() throws IOException {
+        StringBuilder list = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            String hex = hex(sha1("listed" + i));
+            list.append(i % 2 == 0 ? hex : hex.toLowerCase()).append(':').append(i + 1).append("\r\n");
+            if (i % 100 == 0) {
+                list.append("  \n");
+            }
+        }
+        // anche senza conteggio
+        list.append(hex(sha1("nocount"))).append('\n');
+        Path file = write("list.txt", list.toString().getBytes(StandardCharsets.UTF_8));
+
+        BreachedPasswords filter = BreachedPasswords.builder(1001, 0.01).addSha1List(file).build();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.contains("listed" + i), "listed" + i);
+            assertTrue(filter.containsSha1(sha1("listed" + i)));
+        }
+        assertTrue(filter.contains("nocount"));
+
+        Path bad = write("bad.txt", "XYZ:1\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> BreachedPasswords.builder(10, 0.01).addSha1List(bad));
+        assertThrows(IllegalArgumentException.class,
+                () -> BreachedPasswords.builder(10, 0.01).addSha1Hex("G" + hex(sha1("x")).substring(1)));
+        assertThrows(IllegalArgumentException.class, () -> BreachedPasswords.builder(10, 0.01).addSha1(new byte[16]));
+    }
+
+    @Test
+    void buildConsumesTheBuilder() {
+        BreachedPasswords.Builder builder = BreachedPasswords.builder(10, 0.01).add("secret");
+        BreachedPasswords filter = builder.build();
+        assertTrue(filter.contains("secret"));
+        assertThrows(IllegalStateException.class, () -> builder.add("other"));
+        assertThrows(IllegalStateException.class, builder::build);
+        assertFalse(filter.contains("other"));
+
+        assertThrows(IllegalArgumentException.class, () -> BreachedPasswords.builder(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> BreachedPasswords.builder(10, 1));
+    }
+
+    /**
+     * PasswordPolicy.DEFAULT da' i messaggi di validPassword, nell'ordine in cui il vecchio
+     * codice verificava le regole.
+     */
+    @Test
+    void defaultPolicyMessages() {
+        String[][] cases = {
+            {"aB1$", "The password is invalid. Ensure you have a password with atleast 6 characters"},
+            {"ab1$cd", "Invalid password. Add more uppercase characters"},
+            // piu' regole violate: vince la prima
+            {"abcdef", "Invalid password. Add more uppercase characters"},
+            {"AB1$CD", "Invalid password. Add more lowercase characters"},
+            {"ABCDEF", "Invalid password. Add more lowercase characters"},
+            {"aB$cdE", "Invalid password. Add more digits"},
+            {"aBcdEf", "Invalid password. Add more digits"},
+            {"aB1cdE", "Invalid password. Add more special characters"},
+            {"aB1&cd", "Invalid password. Add more special characters"},
+        };
+        for (String[] c : cases) {
+            ValidationErrors errors = new ValidationErrors();
+            assertFalse(InputValidator.validPassword(c[0], errors), c[0]);
+            assertEquals(c[1], errors.getErrors().get("validPassword(...)"), c[0]);
+            assertEquals(ValidationStatus.INVALIDPASSWORD, PasswordPolicy.DEFAULT.check(c[0], "p", new ValidationErrors()));
+        }
+        for (String ok : new String[] {"aB1$cd", "Passw0rd!", "xY9#xY9#xY9#", "aB1@c\u00e8"}) {
+            ValidationErrors errors = new ValidationErrors();
+            assertTrue(InputValidator.validPassword(ok, errors), ok);
+            assertFalse(errors.hasErrors(), ok);
+            assertNull(PasswordPolicy.DEFAULT.violation(ok), ok);
+        }
+        assertFalse(InputValidator.validPassword("", new ValidationErrors()));
+        assertFalse(InputValidator.validPassword(null, new ValidationErrors()));
+    }
+
+    @Test
+    void breachedPolicy() {
+        PasswordPolicy policy = PasswordPolicy.builder()
+                .breached(BreachedPasswords.builder(10, 0.001).add("Passw0rd!").build())
+                .build();
+        assertEquals(PasswordPolicy.Violation.BREACHED, policy.violation("Passw0rd!"));
+        assertNull(policy.violation("Xq7#mZ2$"));
+        // le altre regole vengono prima
+        assertEquals(PasswordPolicy.Violation.TOO_SHORT, policy.violation("aB1$"));
+    }
+
+    private static BreachedPasswords filter() {
+        BreachedPasswords.Builder builder = BreachedPasswords.builder(PASSWORDS, 0.01);
+        for (int i = 0; i < PASSWORDS; i++) {
+            builder.add("password" + i);
+        }
+        return builder.build();
+    }
+
+    private Path write(String name, byte[] bytes) throws IOException {
+        return Files.write(dir.resolve(name), bytes);
+    }
+
+    private static byte[] sha1(String s) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(s.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static String hex(byte[] digest) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest) {
+            sb.append(String.format("%02X", b & 0xFF));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,196 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class CardEngineTest {
+
+    private final Random random = new Random(13);
+
+    @AfterEach
+    void restoreEngine() {
+        FastMatchers.setEngine(FastMatchers.Format.CREDIT_CARD, MatchEngine.SCANNER);
+    }
+
+    @Test
+    void testNumbers() {
+        assertIssuer(CreditCard.VISA, "4111111111111111");
+        assertIssuer(CreditCard.VISA, "4012888888881881");
+        assertIssuer(CreditCard.VISA, "4222222222222");
+        assertIssuer(CreditCard.MASTER_CARD, "5555555555554444");
+        assertIssuer(CreditCard.MASTER_CARD, "5105105105105100");
+        assertIssuer(CreditCard.AMERICAN_EXPRESS, "378282246310005");
+        assertIssuer(CreditCard.AMERICAN_EXPRESS, "371449635398431");
+        assertIssuer(CreditCard.DISCOVER, "6011111111111117");
+        assertIssuer(CreditCard.DISCOVER, "6011000990139424");
+        assertIssuer(CreditCard.DINERS, "30569309025904");
+        assertIssuer(CreditCard.DINERS, "38520000023237");
+        assertIssuer(CreditCard.JCB, "3530111333300000");
+        assertIssuer(CreditCard.JCB, "3566002020360505");
+    }
+
+    @Test
+    void extendedRanges() {
+        String[][] cards = {
+            {"MASTER_CARD", "2221000000000009"},
+            {"MASTER_CARD", withCheckDigit("272099999999999")},
+            {"DISCOVER", withCheckDigit("622126000000000")},
+            {"DISCOVER", withCheckDigit("622925999999999")},
+            {"DISCOVER", withCheckDigit("644000000000000")},
+            {"JCB", withCheckDigit("352800000000000000")},
+            {"VISA", withCheckDigit("411111111111111111")},
+        };
+        for (String[] card : cards) {
+            assertEquals(CreditCard.valueOf(card[0]), CardEngine.EXTENDED.validIssuer(card[1]), card[1]);
+            assertEquals(ValidationStatus.INVALID, CardEngine.DEFAULT.check(card[1]), card[1]);
+        }
+        // appena fuori dagli intervalli
+        assertNull(CardEngine.EXTENDED.validIssuer(withCheckDigit("222099999999999")));
+        assertNull(CardEngine.EXTENDED.validIssuer(withCheckDigit("272100000000000")));
+        assertNull(CardEngine.EXTENDED.validIssuer(withCheckDigit("622125999999999")));
+        assertNull(CardEngine.EXTENDED.validIssuer(withCheckDigit("622926000000000")));
+        assertNull(CardEngine.EXTENDED.validIssuer(withCheckDigit("65000000000000000")));
+        // i vecchi intervalli restano
+        assertEquals(CreditCard.DISCOVER, CardEngine.EXTENDED.validIssuer("6011111111111117"));
+    }
+
+    @Test
+    void luhnFailure() {
+        assertEquals(ValidationStatus.INVALIDCHECKDIGIT, CardEngine.DEFAULT.check("4111111111111112"));
+        assertEquals(ValidationStatus.INVALIDCHECKDIGIT, CardEngine.DEFAULT.check("378282246310006"));
+        assertNull(CardEngine.DEFAULT.validIssuer("4111111111111112"));
+        int result = CardEngine.DEFAULT.inspect("4111111111111112");
+        assertEquals(CreditCard.VISA, CardEngine.issuer(result));
+        assertEquals(0, result & CardEngine.LUHN_OK);
+    }
+
+    /**
+     * La somma di Luhn calcolata per entrambe le parita' coincide con quella da destra, per
+     * ogni lunghezza.
+     */
+    @Test
+    void luhnOfEveryLength() {
+        for (int run = 0; run < 100000; run++) {
+            int length = CardEngine.MIN_DIGITS + random.nextInt(CardEngine.MAX_DIGITS - CardEngine.MIN_DIGITS + 1);
+            String digits = randomDigits("", length);
+            int result = CardEngine.DEFAULT.inspect(digits);
+            assertTrue((result & CardEngine.WELL_FORMED) != 0, digits);
+            assertEquals(luhn(digits), (result & CardEngine.LUHN_OK) != 0, digits);
+        }
+    }
+
+    @Test
+    void separators() {
+        assertEquals(ValidationStatus.VALID, CardEngine.DEFAULT.check("4111 1111 1111 1111"));
+        assertEquals(ValidationStatus.VALID, CardEngine.DEFAULT.check("4111-1111-1111-1111"));
+        assertEquals(ValidationStatus.VALID, CardEngine.DEFAULT.check("3782-822463-10005"));
+        int result = CardEngine.DEFAULT.inspect("4111 1111 1111 1111");
+        assertTrue((result & CardEngine.SEPARATORS) != 0);
+        assertEquals(0, CardEngine.DEFAULT.inspect("4111111111111111") & CardEngine.SEPARATORS);
+        // con separatori la semantica stretta delle regex non riconosce il numero
+        assertNull(CardEngine.DEFAULT.strictIssuer("4111 1111 1111 1111"));
+        assertNull(CreditCard.gleanCompany("4111-1111-1111-1111"));
+        assertEquals(ValidationStatus.INVALID, CardEngine.DEFAULT.check("4111.1111.1111.1111"));
+    }
+
+    @Test
+    void malformed() {
+        assertEquals(ValidationStatus.EMPTYORNULL, CardEngine.DEFAULT.check(null));
+        assertEquals(ValidationStatus.EMPTYORNULL, CardEngine.DEFAULT.check("  "));
+        assertEquals(0, CardEngine.DEFAULT.inspect(null));
+        assertEquals(ValidationStatus.INVALID, CardEngine.DEFAULT.check("41111111111"));
+        assertEquals(ValidationStatus.INVALID, CardEngine.DEFAULT.check("41111111111111111111"));
+        assertEquals(ValidationStatus.INVALID, CardEngine.DEFAULT.check("4111111111111111x"));
+        assertEquals(ValidationStatus.INVALID, CardEngine.DEFAULT.check(withCheckDigit("999999999999999")));
+    }
+
+    /**
+     * gleanCompany con lo scanner ha la semantica delle regex: solo cifre, lunghezza esatta,
+     * nessun controllo di Luhn.
+     */
+    @Test
+    void gleanCompanyAgreesWithTheRegexes() {
+        String[] prefixes = {"4", "51", "55", "56", "34", "37", "35", "300", "305", "306", "36", "38", "6011", "65",
+            "2131", "1800", "3528", "2221", ""};
+        int recognized = 0;
+        for (int run = 0; run < 100000; run++) {
+            String prefix = prefixes[random.nextInt(prefixes.length)];
+            String card = randomDigits(prefix, 11 + random.nextInt(10));
+            if (random.nextInt(10) == 0) {
+                int p = random.nextInt(card.length());
+                card = card.substring(0, p) + " -x".charAt(random.nextInt(3)) + card.substring(p);
+            }
+            FastMatchers.setEngine(FastMatchers.Format.CREDIT_CARD, MatchEngine.REGEX);
+            String expected = CreditCard.gleanCompany(card);
+            FastMatchers.setEngine(FastMatchers.Format.CREDIT_CARD, MatchEngine.SCANNER);
+            assertEquals(expected, CreditCard.gleanCompany(card), card);
+            CreditCard strict = CardEngine.DEFAULT.strictIssuer(card);
+            assertEquals(expected, strict == null ? null : strict.name(), card);
+            if (expected != null) {
+                recognized++;
+            }
+        }
+        assertTrue(recognized > 5000, "recognized: " + recognized);
+    }
+
+    @Test
+    void builder() {
+        assertThrows(IllegalArgumentException.class, () -> CardEngine.builder().range(CreditCard.VISA, "45", "4", 16));
+        assertThrows(IllegalArgumentException.class, () -> CardEngine.builder().range(CreditCard.VISA, "5", "4", 16));
+        assertThrows(IllegalArgumentException.class, () -> CardEngine.builder().range(CreditCard.VISA, "4a", "4b", 16));
+        assertThrows(IllegalArgumentException.class, () -> CardEngine.builder().range(CreditCard.VISA, "4", "4", 20));
+        // il prefisso piu' lungo vince
+        CardEngine engine = CardEngine.builder().range(CreditCard.JCB, "4111", "4111", 16).build();
+        assertEquals(CreditCard.JCB, engine.validIssuer("4111111111111111"));
+        assertEquals(CreditCard.VISA, engine.validIssuer("4012888888881881"));
+    }
+
+    private static void assertIssuer(CreditCard expected, String card) {
+        assertEquals(expected, CardEngine.DEFAULT.validIssuer(card), card);
+        assertEquals(expected, CardEngine.EXTENDED.validIssuer(card), card);
+        assertEquals(ValidationStatus.VALID, CardEngine.DEFAULT.check(card), card);
+        assertEquals(expected.name(), CreditCard.gleanCompany(card), card);
+    }
+
+    private String randomDigits(String prefix, int length) {
+        StringBuilder sb = new StringBuilder(prefix);
+        while (sb.length() < length) {
+            sb.append((char) ('0' + random.nextInt(10)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Luhn da destra, come da specifica.
+     */
+    private static boolean luhn(String digits) {
+        int sum = 0;
+        for (int i = digits.length() - 1, k = 0; i >= 0; i--, k++) {
+            int d = digits.charAt(i) - '0';
+            if ((k & 1) == 1) {
+                d *= 2;
+                if (d > 9) {
+                    d -= 9;
+                }
+            }
+            sum += d;
+        }
+        return sum % 10 == 0;
+    }
+
+    private static String withCheckDigit(String digits) {
+        for (char c = '0'; c <= '9'; c++) {
+            if (luhn(digits + c)) {
+                return digits + c;
+            }
+        }
+        throw new AssertionError(digits);
+    }
+}
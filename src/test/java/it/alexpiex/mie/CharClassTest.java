@@ -0,0 +1,70 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Le scansioni di String, viste sui byte e CharSequence qualsiasi danno lo stesso indice del
+ * ciclo carattere per carattere, con e senza la Vector API (attiva se la JVM ha il modulo).
+ */
+class CharClassTest {
+
+    private static final CharClass DIGITS = CharClass.range('0', '9').union(CharClass.of("."));
+
+    @Test
+    void scansFromAnIndexAgreeWithTheLoop() {
+        Random random = new Random(7);
+        for (int run = 0; run < 2000; run++) {
+            int length = random.nextInt(3 * 1024);
+            byte[] bytes = new byte[length + 5];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) ('0' + random.nextInt(10));
+            }
+            if (length > 0 && random.nextBoolean()) {
+                bytes[5 + random.nextInt(length)] = (byte) (random.nextBoolean() ? 'x' : 0xE9);
+            }
+            String s = new String(bytes, 5, length, StandardCharsets.ISO_8859_1);
+            int from = length == 0 ? 0 : random.nextInt(length + 1);
+            int expected = loopIndexNotIn(s, from);
+
+            assertEquals(expected, DIGITS.indexNotIn(s, from));
+            assertEquals(expected, DIGITS.indexNotIn(new StringBuilder(s), from));
+            assertEquals(expected, DIGITS.indexNotIn(new ByteSequence().wrap(bytes, 5, length), from));
+            ByteBuffer heap = ByteBuffer.wrap(bytes, 1, bytes.length - 1).slice();
+            assertEquals(expected, DIGITS.indexNotIn(new ByteSequence().wrap(heap, 4, length), from));
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes);
+            assertEquals(expected, DIGITS.indexNotIn(new ByteSequence().wrap(direct, 5, length), from));
+            if (from == 0) {
+                assertEquals(expected, DIGITS.indexNotIn(s));
+            }
+        }
+    }
+
+    @Test
+    void matchesNumbersWithSign() {
+        StringBuilder n = new StringBuilder("-");
+        for (int i = 0; i < 200; i++) {
+            n.append((char) ('0' + i % 10));
+        }
+        assertEquals(true, InputValidator.matchesNumbers(n));
+        n.setCharAt(0, '+');
+        assertEquals(true, InputValidator.matchesNumbers(n.toString()));
+        n.setCharAt(100, '-');
+        assertEquals(false, InputValidator.matchesNumbers(n));
+    }
+
+    private static int loopIndexNotIn(CharSequence s, int from) {
+        for (int i = from; i < s.length(); i++) {
+            if (!DIGITS.contains(s.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,122 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ClockCacheTest {
+
+    @Test
+    void secondChanceWithAPersistentHand() {
+        ClockCache<String, Integer> cache = new ClockCache<String, Integer>(4, Long.MAX_VALUE);
+        put(cache, "a", "b", "c", "d");
+        get(cache, "a", "b", "c");
+        // la lancetta passa a, b, c togliendo il segno e sceglie d
+        cache.put("e", 5, 0);
+        assertNull(cache.get("d"));
+        assertEquals(1, cache.evictions());
+        // riparte da a, ora senza segno: non ricomincia dalla testa della mappa
+        cache.put("f", 6, 0);
+        assertNull(cache.get("a"));
+        cache.put("g", 7, 0);
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertNotNull(cache.get("e"));
+        assertEquals(4, cache.size());
+    }
+
+    /**
+     * Le voci fredde in fondo all'anello sono raggiunte: con tutte le altre lette a ogni giro,
+     * ogni inserimento toglie una voce mai letta.
+     */
+    @Test
+    void coldEntriesAnywhereAreEvicted() {
+        ClockCache<String, Integer> cache = new ClockCache<String, Integer>(100, Long.MAX_VALUE);
+        List<String> hot = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            String key = "k" + i;
+            cache.put(key, i, 0);
+            if (i % 10 != 9) {
+                hot.add(key);
+            }
+        }
+        for (int round = 0; round < 50; round++) {
+            for (String key : hot) {
+                assertNotNull(cache.get(key), key);
+            }
+            cache.put("new" + round, round, 0);
+        }
+        assertEquals(100, cache.size());
+        assertEquals(50, cache.evictions());
+    }
+
+    @Test
+    void weightLimit() {
+        ClockCache<String, Integer> cache = new ClockCache<String, Integer>(10, 100);
+        cache.put("big", 0, 101);
+        assertNull(cache.get("big"));
+        for (int i = 0; i < 5; i++) {
+            cache.put("k" + i, i, 30);
+            assertTrue(cache.weight() <= 100, "weight " + cache.weight());
+        }
+        assertEquals(3, cache.size());
+        assertEquals(90, cache.weight());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    void resize() {
+        ClockCache<String, Integer> cache = new ClockCache<String, Integer>(8, Long.MAX_VALUE);
+        put(cache, "a", "b", "c", "d", "e", "f");
+        cache.setMaxEntries(3);
+        assertEquals(3, cache.size());
+        cache.put("g", 7, 0);
+        assertEquals(3, cache.size());
+        cache.setMaxEntries(5);
+        put(cache, "h", "i");
+        assertEquals(5, cache.size());
+        cache.put("j", 10, 0);
+        assertEquals(5, cache.size());
+    }
+
+    @Test
+    void patternRegistryStaysBounded() {
+        PatternRegistry.setCacheSize(16);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(PatternRegistry.matches("x{" + i + "}", repeat(i)));
+                assertTrue(PatternRegistry.cachedCount() <= 16);
+            }
+        } finally {
+            PatternRegistry.setCacheSize(PatternRegistry.DEFAULT_CACHE_SIZE);
+        }
+    }
+
+    private static void put(ClockCache<String, Integer> cache, String... keys) {
+        for (String key : keys) {
+            cache.put(key, key.hashCode(), 0);
+        }
+    }
+
+    private static void get(ClockCache<String, Integer> cache, String... keys) {
+        for (String key : keys) {
+            assertNotNull(cache.get(key), key);
+        }
+    }
+
+    private static String repeat(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.append('x');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,127 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * contains concorda con isRange(value, codes, ignoreCase), che usa equals ed equalsIgnoreCase.
+ */
+class CodeSetTest {
+
+    // coppie con regole particolari: I con punto, i senza punto, sharp s maiuscola e minuscola,
+    // segno Kelvin, s lunga, sigma finale, lettere Deseret fuori dal BMP. Niente surrogati isolati:
+    // su UTF-16 malformato equalsIgnoreCase dipende da come si allineano le coppie
+    private static final String[] ALPHABET = {
+        "a", "A", "i", "I", "k", "K", "s", "S", "\u0130", "\u0131", "\u00df", "\u1e9e", "\u212a", "\u017f",
+        "\u03a3", "\u03c3", "\u03c2", "\u00e0", "\u00c0", "\ud801\udc00", "\ud801\udc28", "1"
+    };
+
+    @TempDir
+    Path dir;
+
+    private final Random random = new Random(17);
+
+    @Test
+    void agreesWithIsRange() {
+        for (int run = 0; run < 2000; run++) {
+            String[] codes = new String[1 + random.nextInt(30)];
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = randomCode();
+            }
+            CodeSet exact = CodeSet.of(codes);
+            CodeSet folded = CodeSet.of(true, codes);
+            for (int probe = 0; probe < 50; probe++) {
+                String value = probe < codes.length ? vary(codes[probe]) : randomCode();
+                assertEquals(InputValidator.isRange(value, codes, false), exact.contains(value), value);
+                assertEquals(InputValidator.isRange(value, codes, true), folded.contains(value), value);
+                assertEquals(folded.contains(value), InputValidator.isRange(new StringBuilder(value), folded), value);
+            }
+        }
+    }
+
+    @Test
+    void caseFolding() {
+        CodeSet set = CodeSet.of(true, "MI", "istanbul", "stra\u00dfe", "\u212aelvin", "\ud801\udc00");
+        assertTrue(set.contains("mi"));
+        assertTrue(set.contains("mI"));
+        // I con punto e i senza punto: come equalsIgnoreCase, non come le regole turche
+        assertEquals("\u0130STANBUL".equalsIgnoreCase("istanbul"), set.contains("\u0130STANBUL"));
+        assertEquals("\u0131stanbul".equalsIgnoreCase("istanbul"), set.contains("\u0131stanbul"));
+        assertTrue(set.contains("STRA\u00dfE"));
+        assertFalse(set.contains("STRASSE"));
+        assertTrue(set.contains("kelvin"));
+        assertTrue(set.contains("KELVIN"));
+        assertEquals("\ud801\udc28".equalsIgnoreCase("\ud801\udc00"), set.contains("\ud801\udc28"));
+        assertFalse(set.contains(null));
+
+        CodeSet exact = CodeSet.of("MI");
+        assertTrue(exact.contains("MI"));
+        assertFalse(exact.contains("mi"));
+        assertFalse(exact.isIgnoreCase());
+        assertTrue(set.isIgnoreCase());
+    }
+
+    @Test
+    void duplicates() {
+        assertEquals(2, CodeSet.of("MI", "RM", "MI").size());
+        assertEquals(3, CodeSet.of("MI", "RM", "mi").size());
+        assertEquals(2, CodeSet.of(true, "MI", "RM", "mi").size());
+        assertEquals(0, CodeSet.of().size());
+        assertFalse(CodeSet.of().contains("MI"));
+        assertThrows(IllegalArgumentException.class, () -> CodeSet.of("MI", null));
+    }
+
+    @Test
+    void load() throws IOException {
+        Path file = dir.resolve("province.txt");
+        Files.write(file, "# province\nMI\n  RM  \r\n\n\tTO\n#NA\nForl\u00ec\nMI\n".getBytes(StandardCharsets.UTF_8));
+        CodeSet set = CodeSet.load(file, StandardCharsets.UTF_8, true);
+        assertEquals(4, set.size());
+        for (String code : new String[] {"MI", "rm", "To", "FORL\u00cc"}) {
+            assertTrue(set.contains(code), code);
+        }
+        assertFalse(set.contains("#NA"));
+        assertFalse(set.contains("NA"));
+        assertFalse(set.contains(""));
+        assertFalse(set.contains(" RM"));
+
+        Path latin = dir.resolve("latin.txt");
+        Files.write(latin, "Forl\u00ec\n".getBytes(StandardCharsets.ISO_8859_1));
+        assertTrue(CodeSet.load(latin, StandardCharsets.ISO_8859_1, false).contains("Forl\u00ec"));
+        assertFalse(CodeSet.load(latin, StandardCharsets.ISO_8859_1, false).contains("forl\u00ec"));
+    }
+
+    /**
+     * Codici da una a tre lettere dell'alfabeto: tante collisioni tra maiuscole e minuscole.
+     */
+    private String randomCode() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1 + random.nextInt(3); i > 0; i--) {
+            sb.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+        }
+        return sb.toString();
+    }
+
+    /** Il codice con qualche carattere in maiuscolo o minuscolo. */
+    private String vary(String code) {
+        switch (random.nextInt(3)) {
+            case 0:
+                return code.toUpperCase();
+            case 1:
+                return code.toLowerCase();
+            default:
+                return code;
+        }
+    }
+}
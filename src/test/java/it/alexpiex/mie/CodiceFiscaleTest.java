@@ -0,0 +1,225 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class CodiceFiscaleTest {
+
+    private static final String MONTHS = "ABCDEHLMPRST";
+    private static final String OMOCODIA = "LMNPQRSTUV";
+    private static final int[] NUMERIC = {6, 7, 9, 10, 12, 13, 14};
+    private static final int[] DAYS = {31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private final Random random = new Random(11);
+
+    @Test
+    void knownCodes() {
+        for (String cf : new String[] {"RSSMRA80A01H501U", "MRTMTT25D09F205Z", "RSSMRA85T10A562S", "BNCGLI80A41F205F"}) {
+            assertEquals(ValidationStatus.VALID, CodiceFiscale.check(cf), cf);
+            assertEquals(ValidationStatus.VALID, CodiceFiscale.check(cf.toLowerCase()), cf);
+            assertEquals(cf.charAt(15), CodiceFiscale.checkCharacter(cf), cf);
+            assertEquals(cf.charAt(15), CodiceFiscale.checkCharacter(cf.substring(0, 15)), cf);
+        }
+        assertEquals(ValidationStatus.INVALIDCHECKDIGIT, CodiceFiscale.check("RSSMRA80A01H501V"));
+        assertEquals(ValidationStatus.EMPTYORNULL, CodiceFiscale.check(""));
+        assertEquals(ValidationStatus.EMPTYORNULL, CodiceFiscale.check(null));
+        assertEquals(ValidationStatus.INVALID, CodiceFiscale.check("RSSMRA80A01H501"));
+        assertEquals(ValidationStatus.INVALID, CodiceFiscale.check("RSSMRA80A01H501UX"));
+        assertEquals(ValidationStatus.INVALID, CodiceFiscale.check("RSSMRA8XA01H501U"));
+        assertEquals(ValidationStatus.INVALID, CodiceFiscale.check("RSSMR180A01H501U"));
+        assertEquals(ValidationStatus.INVALID, CodiceFiscale.check("RSSMR\u00c080A01H501U"));
+        assertEquals(0, CodiceFiscale.checkCharacter("RSSMRA80A01H50"));
+        assertEquals(0, CodiceFiscale.checkCharacter("RSSMRA80A01H5?1"));
+        assertFalse(CodiceFiscale.isFemale("RSSMRA80A01H501U"));
+        assertTrue(CodiceFiscale.isFemale("BNCGLI80A41F205F"));
+    }
+
+    /**
+     * Le cifre sostituite con LMNPQRSTUV valgono la cifra per la data ma la lettera per il
+     * carattere di controllo.
+     */
+    @Test
+    void omocodia() {
+        String cf = "RSSMRA80A01H501U";
+        StringBuilder sb = new StringBuilder(cf);
+        for (int p : NUMERIC) {
+            sb.setCharAt(p, OMOCODIA.charAt(sb.charAt(p) - '0'));
+            String substituted = withCheck(sb.substring(0, 15));
+            assertEquals(ValidationStatus.VALID, CodiceFiscale.check(substituted), substituted);
+            assertEquals(19800101, CodiceFiscale.birthDate(substituted, 2024), substituted);
+            // il carattere di controllo del codice originale non vale piu'
+            assertEquals(ValidationStatus.INVALIDCHECKDIGIT, CodiceFiscale.check(sb.substring(0, 15) + 'U'), substituted);
+        }
+        assertEquals("RSSMRAULALMHRLM", sb.substring(0, 15));
+        // solo quelle dieci lettere
+        assertEquals(ValidationStatus.INVALID, CodiceFiscale.check(withCheck("RSSMRA8WA01H501")));
+        assertEquals(ValidationStatus.INVALID, CodiceFiscale.check(withCheck("RSSMRA80A01H5O1")));
+    }
+
+    @Test
+    void female() {
+        assertEquals(ValidationStatus.VALID, CodiceFiscale.check(withCheck("BNCGLI80A71F205")));
+        assertEquals(19800131, CodiceFiscale.birthDate(withCheck("BNCGLI80A71F205"), 2024));
+        assertTrue(CodiceFiscale.isFemale(withCheck("BNCGLI80A71F205")));
+        assertTrue(CodiceFiscale.isFemale(withCheck("BNCGLI80A4MF205")));
+        // 40 e 72: giorno 0 e 32; tra 32 e 40 nessun giorno
+        assertEquals(ValidationStatus.INVALIDDATE, CodiceFiscale.check(withCheck("BNCGLI80A40F205")));
+        assertEquals(ValidationStatus.INVALIDDATE, CodiceFiscale.check(withCheck("BNCGLI80A72F205")));
+        assertEquals(ValidationStatus.INVALIDDATE, CodiceFiscale.check(withCheck("BNCGLI80A35F205")));
+        assertEquals(ValidationStatus.INVALIDDATE, CodiceFiscale.check(withCheck("BNCGLI80A00F205")));
+        assertEquals(ValidationStatus.INVALIDDATE, CodiceFiscale.check(withCheck("BNCGLI80A32F205")));
+    }
+
+    @Test
+    void invalidDates() {
+        assertEquals(ValidationStatus.INVALIDDATE, CodiceFiscale.check(withCheck("RSSMRA80F31H501")));
+        assertEquals(ValidationStatus.VALID, CodiceFiscale.check(withCheck("RSSMRA80E31H501")));
+        assertEquals(ValidationStatus.INVALIDDATE, CodiceFiscale.check(withCheck("RSSMRA81B29H501")));
+        assertEquals(ValidationStatus.VALID, CodiceFiscale.check(withCheck("RSSMRA80B29H501")));
+        assertEquals(ValidationStatus.VALID, CodiceFiscale.check(withCheck("RSSMRA00B69H501")));
+        assertEquals(ValidationStatus.INVALIDDATE, CodiceFiscale.check(withCheck("RSSMRA80B30H501")));
+        // F, G, I... non sono mesi
+        assertEquals(ValidationStatus.INVALIDDATE, CodiceFiscale.check(withCheck("RSSMRA80G01H501")));
+        assertEquals(ValidationStatus.INVALIDDATE, CodiceFiscale.check(withCheck("RSSMRA80Z01H501")));
+    }
+
+    /**
+     * Il secolo e' l'ultimo che non mette la nascita dopo l'anno di riferimento; il 29 febbraio
+     * di un anno secolare non bisestile torna al secolo prima.
+     */
+    @Test
+    void birthDateCentury() {
+        String cf = withCheck("RSSMRA80A01H501");
+        assertEquals(19800101, CodiceFiscale.birthDate(cf, 2024));
+        assertEquals(19800101, CodiceFiscale.birthDate(cf, 1980));
+        assertEquals(18800101, CodiceFiscale.birthDate(cf, 1979));
+        assertEquals(20800101, CodiceFiscale.birthDate(cf, 2080));
+
+        String young = withCheck("RSSMRA24A01H501");
+        assertEquals(20240101, CodiceFiscale.birthDate(young, 2024));
+        assertEquals(19240101, CodiceFiscale.birthDate(young, 2023));
+
+        String leap = withCheck("RSSMRA00B29H501");
+        assertEquals(20000229, CodiceFiscale.birthDate(leap, 2024));
+        assertEquals(20000229, CodiceFiscale.birthDate(leap, 2150));
+        assertEquals(-1, CodiceFiscale.birthDate("RSSMRA80A01H501V", 2024));
+
+        CharSequence[] codes = {cf, "RSSMRA80A01H501V", young, null};
+        int[] dates = new int[4];
+        assertEquals(2, CodiceFiscale.birthDates(codes, 2024, dates));
+        assertEquals(19800101, dates[0]);
+        assertEquals(-1, dates[1]);
+        assertEquals(20240101, dates[2]);
+        assertEquals(-1, dates[3]);
+        assertThrows(IllegalArgumentException.class, () -> CodiceFiscale.birthDates(codes, 2024, new int[3]));
+    }
+
+    /**
+     * Codici casuali, ben formati o con una modifica, confrontati con un'implementazione diretta
+     * delle regole.
+     */
+    @Test
+    void agreesWithTheRules() {
+        int valid = 0;
+        for (int run = 0; run < 100000; run++) {
+            String cf = randomCode();
+            ValidationStatus expected = expected(cf);
+            assertEquals(expected, CodiceFiscale.check(cf), cf);
+            assertEquals(expected == ValidationStatus.VALID, InputValidator.isCodFiscValid(cf, new ValidationErrors()), cf);
+            if (expected == ValidationStatus.VALID) {
+                valid++;
+                int day = digit(cf.charAt(9)) * 10 + digit(cf.charAt(10));
+                assertEquals(day > 40, CodiceFiscale.isFemale(cf), cf);
+            }
+        }
+        assertTrue(valid > 20000, "valid: " + valid);
+    }
+
+    private String randomCode() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            sb.append((char) ('A' + random.nextInt(26)));
+        }
+        int month = random.nextInt(12);
+        int day = 1 + random.nextInt(random.nextInt(10) == 0 ? 35 : DAYS[month]) + (random.nextBoolean() ? 40 : 0);
+        sb.append(pad(random.nextInt(100))).append(MONTHS.charAt(month)).append(pad(day));
+        sb.append((char) ('A' + random.nextInt(26))).append(String.format("%03d", random.nextInt(1000)));
+        for (int p : NUMERIC) {
+            if (random.nextInt(8) == 0) {
+                sb.setCharAt(p, OMOCODIA.charAt(sb.charAt(p) - '0'));
+            }
+        }
+        String cf = withCheck(sb.toString());
+        switch (random.nextInt(6)) {
+            case 0:
+                return cf.substring(0, 15) + (char) ('A' + random.nextInt(26));
+            case 1:
+                int p = random.nextInt(16);
+                return cf.substring(0, p) + "0AZlm8".charAt(random.nextInt(6)) + cf.substring(p + 1);
+            case 2:
+                return cf.toLowerCase();
+            default:
+                return cf;
+        }
+    }
+
+    private static String pad(int n) {
+        return n < 10 ? "0" + n : String.valueOf(n);
+    }
+
+    /**
+     * Le regole scritte come da specifica, senza tabelle.
+     */
+    private static ValidationStatus expected(String cf) {
+        String upper = cf.toUpperCase();
+        for (int i = 0; i < 16; i++) {
+            char c = upper.charAt(i);
+            boolean numeric = false;
+            for (int p : NUMERIC) {
+                numeric |= p == i;
+            }
+            if (numeric ? digit(c) < 0 : c < 'A' || c > 'Z') {
+                return ValidationStatus.INVALID;
+            }
+        }
+        int year = digit(upper.charAt(6)) * 10 + digit(upper.charAt(7));
+        int month = MONTHS.indexOf(upper.charAt(8));
+        int day = digit(upper.charAt(9)) * 10 + digit(upper.charAt(10));
+        if (day > 40) {
+            day -= 40;
+        }
+        if (month < 0 || day < 1 || day > DAYS[month] || (month == 1 && day == 29 && year % 4 != 0)) {
+            return ValidationStatus.INVALIDDATE;
+        }
+        return upper.charAt(15) == reference(upper) ? ValidationStatus.VALID : ValidationStatus.INVALIDCHECKDIGIT;
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        return OMOCODIA.indexOf(Character.toUpperCase(c));
+    }
+
+    /** Carattere di controllo con la tabella dei dispari della specifica. */
+    private static char reference(String cf) {
+        int[] odd = {1, 0, 5, 7, 9, 13, 15, 17, 19, 21, 2, 4, 18, 20, 11, 3, 6, 8, 12, 14, 16, 10, 22, 25, 24, 23};
+        int sum = 0;
+        for (int i = 0; i < 15; i++) {
+            char c = Character.toUpperCase(cf.charAt(i));
+            int v = c >= '0' && c <= '9' ? c - '0' : c - 'A';
+            sum += i % 2 == 0 ? odd[v] : v;
+        }
+        return (char) ('A' + sum % 26);
+    }
+
+    private static String withCheck(String first15) {
+        return first15 + reference(first15);
+    }
+}
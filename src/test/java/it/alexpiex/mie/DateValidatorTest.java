@@ -0,0 +1,166 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+class DateValidatorTest {
+
+    private static final Pattern DATE = Pattern.compile(InputValidator.DATE);
+
+    private final Random random = new Random(5);
+
+    @Test
+    void agreesWithTheDateRegex() {
+        int valid = 0;
+        for (int run = 0; run < 200000; run++) {
+            String s = randomDate();
+            boolean expected = DATE.matcher(s).matches();
+            assertEquals(expected, DateValidator.DATE.isValid(s), s);
+            if (expected) {
+                valid++;
+            }
+        }
+        assertTrue(valid > 20000, "valid: " + valid);
+    }
+
+    @Test
+    void leapCenturies() {
+        for (int year : new int[] {1600, 2000, 2400}) {
+            assertTrue(DateValidator.DATE.isValid("29/02/" + year), "" + year);
+            assertTrue(DATE.matcher("29/02/" + year).matches(), "" + year);
+        }
+        for (int year : new int[] {1700, 1800, 1900, 2100}) {
+            assertFalse(DateValidator.DATE.isValid("29/02/" + year), "" + year);
+            assertFalse(DATE.matcher("29/02/" + year).matches(), "" + year);
+            assertTrue(DateValidator.DATE.isValid("28/02/" + year), "" + year);
+        }
+        assertTrue(DateValidator.DATE.isValid("29/02/2024"));
+        assertFalse(DateValidator.DATE.isValid("29/02/2023"));
+        for (int year = 1600; year <= 2400; year++) {
+            assertEquals(LocalDate.of(year, 1, 1).isLeapYear(), DateValidator.isLeapYear(year), "" + year);
+        }
+    }
+
+    @Test
+    void yearBounds() {
+        assertEquals(ValidationStatus.OUTOFRANGE, DateValidator.DATE.check("31/12/1599"));
+        assertEquals(ValidationStatus.VALID, DateValidator.DATE.check("01/01/1600"));
+        assertEquals(ValidationStatus.VALID, DateValidator.DATE.check("31/12/9999"));
+        assertEquals(ValidationStatus.INVALIDDATE, DateValidator.DATE.check("31/12/10000"));
+        assertEquals(ValidationStatus.EMPTYORNULL, DateValidator.DATE.check(""));
+        assertEquals(ValidationStatus.EMPTYORNULL, DateValidator.DATE.check(null));
+
+        DateValidator years = DateValidator.DATE.withYearRange(1900, 4712);
+        assertEquals(ValidationStatus.OUTOFRANGE, years.check("31/12/1899"));
+        assertEquals(ValidationStatus.VALID, years.check("01/01/1900"));
+        assertEquals(ValidationStatus.VALID, years.check("31/12/4712"));
+        assertEquals(ValidationStatus.OUTOFRANGE, years.check("01/01/4713"));
+        assertEquals(DateValidator.INVALID, years.toEpochDay("01/01/4713"));
+        assertEquals(DateValidator.INVALID, years.toEpochSecond("31/12/1899"));
+
+        DateValidator all = DateValidator.ofPattern("yyyy-MM-dd").withYearRange(0, 9999);
+        assertEquals(LocalDate.of(0, 1, 1).toEpochDay(), all.toEpochDay("0000-01-01"));
+        assertEquals(LocalDate.of(9999, 12, 31).toEpochDay(), all.toEpochDay("9999-12-31"));
+
+        assertThrows(IllegalArgumentException.class, () -> DateValidator.DATE.withYearRange(-1, 2000));
+        assertThrows(IllegalArgumentException.class, () -> DateValidator.DATE.withYearRange(2000, 1999));
+        assertThrows(IllegalArgumentException.class, () -> DateValidator.DATE.withYearRange(0, 10000));
+    }
+
+    @Test
+    void invalidPatterns() {
+        assertThrows(IllegalArgumentException.class, () -> DateValidator.ofPattern("dd/MM/yy"));
+        assertThrows(IllegalArgumentException.class, () -> DateValidator.ofPattern("MM/yyyy"));
+        assertThrows(IllegalArgumentException.class, () -> DateValidator.ofPattern("ddd/MM/yyyy"));
+        assertThrows(IllegalArgumentException.class, () -> DateValidator.ofPattern("yyyy/MM/dd yyyy"));
+    }
+
+    /**
+     * Formati personalizzati: esito, giorni e secondi confrontati con java.time sugli stessi
+     * campi.
+     */
+    @Test
+    void customPatternsAgreeWithJavaTime() {
+        DateValidator iso = DateValidator.ofPattern("yyyy-MM-dd");
+        DateValidator loose = DateValidator.ofPattern("d/M/yyyy H:mm");
+        for (int run = 0; run < 100000; run++) {
+            int year = 1590 + random.nextInt(1000);
+            int month = random.nextInt(14);
+            int day = random.nextInt(33);
+            int hour = random.nextInt(26);
+            int minute = random.nextInt(62);
+            LocalDateTime expected = dateTime(year, month, day, hour, minute, 0);
+            boolean inRange = year >= 1600;
+
+            String isoValue = year + "-" + pad(month) + "-" + pad(day);
+            LocalDateTime date = dateTime(year, month, day, 0, 0, 0);
+            assertEquals(date != null && inRange, iso.isValid(isoValue), isoValue);
+            assertEquals(date != null && inRange ? date.toLocalDate().toEpochDay() : DateValidator.INVALID,
+                    iso.toEpochDay(isoValue), isoValue);
+
+            String looseValue = day + "/" + month + "/" + year + " " + hour + ":" + pad(minute);
+            assertEquals(expected != null && inRange, loose.isValid(looseValue), looseValue);
+            assertEquals(expected != null && inRange ? expected.toEpochSecond(ZoneOffset.UTC) : DateValidator.INVALID,
+                    loose.toEpochSecond(looseValue), looseValue);
+            assertEquals(expected != null && inRange ? expected.toLocalDate().toEpochDay() : DateValidator.INVALID,
+                    loose.toEpochDay(looseValue), looseValue);
+        }
+        assertFalse(loose.isValid("1/1/2000 1:5"));
+        assertFalse(iso.isValid("2000-1-01"));
+    }
+
+    @Test
+    void dateTimeSeconds() {
+        assertEquals(LocalDateTime.of(2024, 2, 29, 23, 59, 59).toEpochSecond(ZoneOffset.UTC),
+                DateValidator.DATE_TIME.toEpochSecond("29/02/2024 23:59:59"));
+        assertEquals(LocalDateTime.of(1600, 1, 1, 0, 0, 0).toEpochSecond(ZoneOffset.UTC),
+                DateValidator.DATE_TIME.toEpochSecond("01/01/1600 00:00:00"));
+        assertEquals(DateValidator.INVALID, DateValidator.DATE_TIME.toEpochSecond("29/02/2024 24:00:00"));
+        assertEquals(DateValidator.INVALID, DateValidator.DATE_TIME.toEpochSecond("29/02/2024 23:60:00"));
+        assertEquals(DateValidator.INVALID, DateValidator.DATE_TIME.toEpochSecond("29/02/2024 23:59"));
+    }
+
+    /**
+     * Date casuali nel formato gg/mm/aaaa, con campi fuori dal calendario, cifre mancanti o in
+     * piu' e separatori sbagliati.
+     */
+    private String randomDate() {
+        int year = random.nextInt(5) == 0 ? random.nextInt(12000) : 1590 + random.nextInt(900);
+        String s = pad(random.nextInt(33)) + "/" + pad(random.nextInt(14)) + "/" + year;
+        switch (random.nextInt(10)) {
+            case 0:
+                return s.substring(1);
+            case 1:
+                return s.replace('/', '-');
+            case 2:
+                return s + random.nextInt(10);
+            case 3:
+                return String.format("%02d/02/%d", 28 + random.nextInt(2), year);
+            default:
+                return s;
+        }
+    }
+
+    private static String pad(int n) {
+        return n < 10 ? "0" + n : String.valueOf(n);
+    }
+
+    private static LocalDateTime dateTime(int year, int month, int day, int hour, int minute, int second) {
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+}
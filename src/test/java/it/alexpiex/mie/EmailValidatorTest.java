@@ -0,0 +1,36 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class EmailValidatorTest {
+
+    // U+10400 DESERET CAPITAL LETTER LONG I, una lettera fuori dal BMP
+    private static final String DESERET = "\uD801\uDC00";
+
+    @Test
+    void acceptsPlainAddresses() {
+        assertTrue(EmailValidator.isValid("mario.rossi@example.com"));
+        assertTrue(EmailValidator.isValid("user@[192.168.0.1]"));
+        assertTrue(EmailValidator.isValid("pippo@citt\u00E0.it"));
+        assertFalse(EmailValidator.isValid("a@b"));
+        assertFalse(EmailValidator.isValid("a..b@example.com"));
+    }
+
+    @Test
+    void acceptsSupplementaryLettersInDomainLabels() {
+        assertTrue(EmailValidator.isValid("user@" + DESERET + "xample.com"));
+        assertTrue(EmailValidator.isValid("user@example." + DESERET + DESERET));
+    }
+
+    @Test
+    void rejectsBrokenSurrogatePairs() {
+        assertFalse(EmailValidator.isValid("user@\uD801xample.com"));
+        assertFalse(EmailValidator.isValid("user@\uDC00xample.com"));
+        assertFalse(EmailValidator.isValid("user@example.com\uD801"));
+        // U+1F600, un simbolo: non e' una lettera
+        assertFalse(EmailValidator.isValid("user@\uD83D\uDE00.com"));
+    }
+}
@@ -0,0 +1,226 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import it.alexpiex.mie.FastMatchers.Format;
+
+/**
+ * Per ogni formato gli scanner accettano esattamente le stringhe accettate dalle regex del
+ * motore REGEX, su input casuali costruiti attorno ai valori validi.
+ */
+class FastMatchersTest {
+
+    private static final int RUNS = 50000;
+
+    // separatori, e una cifra e una lettera non ASCII che \d e [a-zA-Z] non accettano
+    private static final String NOISE = "-+., /\u0660\u00e0Z";
+
+    private final Random random = new Random(3);
+
+    @AfterEach
+    void restoreEngines() {
+        for (Format format : Format.values()) {
+            FastMatchers.setEngine(format, MatchEngine.SCANNER);
+        }
+    }
+
+    @Test
+    void codFisc() {
+        compare(Format.COD_FISC, new Matcher("RSSMRA80A01H501U", "0123456789AZaz") {
+            @Override
+            boolean matches(String s) {
+                return InputValidator.matchesCodFisc(s);
+            }
+        });
+    }
+
+    @Test
+    void phone() {
+        compare(Format.PHONE, new Matcher("0612345678", "0123456789") {
+            @Override
+            boolean matches(String s) {
+                return InputValidator.matchesPhone(s);
+            }
+        });
+    }
+
+    @Test
+    void mobile() {
+        compare(Format.MOBILE, new Matcher("3331234567", "0123456789") {
+            @Override
+            boolean matches(String s) {
+                return InputValidator.matchesMobile(s);
+            }
+        });
+    }
+
+    @Test
+    void euro() {
+        compare(Format.EURO, new Matcher("1.234.567,89", "0123456789.,") {
+            @Override
+            boolean matches(String s) {
+                return InputValidator.matchesEuro(s);
+            }
+        });
+    }
+
+    @Test
+    void importo() {
+        compare(Format.IMPORTO, new Matcher("1234567,8", "0123456789,") {
+            @Override
+            boolean matches(String s) {
+                return InputValidator.matchesImporto(s);
+            }
+        });
+    }
+
+    @Test
+    void num() {
+        compare(Format.NUM, new Matcher("-1234", "0123456789-") {
+            @Override
+            boolean matches(String s) {
+                return InputValidator.matchesNum(s);
+            }
+        });
+    }
+
+    @Test
+    void creditCard() {
+        final String[] samples = {
+            "4111111111111111", "4222222222222", "5500000000000004", "378282246310005",
+            "30569309025904", "38520000023237", "6011111111111117", "6500000000000002",
+            "3530111333300000", "213100000000000", "180000000000000"
+        };
+        compare(Format.CREDIT_CARD, new Matcher(samples[0], "0123456789") {
+            @Override
+            String sample() {
+                return samples[random.nextInt(samples.length)];
+            }
+
+            @Override
+            boolean matches(String s) {
+                return CreditCard.gleanCompany(s) != null;
+            }
+
+            /** L'emittente trovato e l'esito di ogni matches. */
+            @Override
+            String describe(String s) {
+                StringBuilder out = new StringBuilder(String.valueOf(CreditCard.gleanCompany(s)));
+                for (CreditCard cc : CreditCard.values()) {
+                    out.append(cc.matches(s) ? '1' : '0');
+                }
+                return out.toString();
+            }
+        });
+    }
+
+    /**
+     * IBAN non consulta piu' il motore: lo scanner di forma e' confrontato con la sua regex.
+     */
+    @Test
+    void ibanShape() {
+        final Pattern iban = Pattern.compile("[a-zA-Z]{2}[0-9]{2}[a-zA-Z0-9]{4}[0-9]{7}([a-zA-Z0-9]?){0,16}");
+        Matcher m = new Matcher("IT60X0542811101000000123456", "0123456789AXaz") {
+            @Override
+            boolean matches(String s) {
+                return iban.matcher(s).matches();
+            }
+        };
+        int accepted = 0;
+        for (int run = 0; run < RUNS; run++) {
+            String s = m.input();
+            boolean expected = m.matches(s);
+            assertEquals(expected, FastMatchers.isIban(s), s);
+            if (expected) {
+                accepted++;
+            }
+        }
+        assertTrue(accepted > RUNS / 20, "accepted: " + accepted);
+    }
+
+    private void compare(Format format, Matcher m) {
+        int accepted = 0;
+        for (int run = 0; run < RUNS; run++) {
+            String s = m.input();
+            FastMatchers.setEngine(format, MatchEngine.REGEX);
+            String expected = m.describe(s);
+            if (m.matches(s)) {
+                accepted++;
+            }
+            FastMatchers.setEngine(format, MatchEngine.SCANNER);
+            assertEquals(expected, m.describe(s), format + " " + s);
+        }
+        assertTrue(accepted > RUNS / 20, format + " accepted: " + accepted);
+    }
+
+    /**
+     * Un validatore con il suo valore tipico e l'alfabeto con cui modificarlo.
+     */
+    private abstract class Matcher {
+
+        final String sample;
+        final String alphabet;
+
+        Matcher(String sample, String alphabet) {
+            this.sample = sample;
+            this.alphabet = alphabet + NOISE;
+        }
+
+        abstract boolean matches(String s);
+
+        String sample() {
+            return sample;
+        }
+
+        String describe(String s) {
+            return String.valueOf(matches(s));
+        }
+
+        /**
+         * Il valore tipico con qualche modifica, oppure una stringa casuale della stessa
+         * lunghezza circa.
+         */
+        String input() {
+            String base = sample();
+            StringBuilder sb = new StringBuilder();
+            if (random.nextInt(4) == 0) {
+                int length = Math.max(0, base.length() + random.nextInt(7) - 3);
+                for (int i = 0; i < length; i++) {
+                    sb.append(random.nextInt(8) == 0 ? pick() : base.charAt(random.nextInt(base.length())));
+                }
+                return sb.toString();
+            }
+            sb.append(base);
+            int edits = random.nextInt(4);
+            for (int i = 0; i < edits; i++) {
+                int p = random.nextInt(sb.length() + 1);
+                switch (random.nextInt(3)) {
+                    case 0:
+                        if (p < sb.length()) {
+                            sb.setCharAt(p, pick());
+                        }
+                        break;
+                    case 1:
+                        if (p < sb.length()) {
+                            sb.deleteCharAt(p);
+                        }
+                        break;
+                    default:
+                        sb.insert(p, pick());
+                }
+            }
+            return sb.toString();
+        }
+
+        private char pick() {
+            return alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+    }
+}
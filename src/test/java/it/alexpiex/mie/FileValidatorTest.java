@@ -0,0 +1,153 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FileValidatorTest {
+
+    private static final Rule[] COLUMNS = {Rule.EMAIL, Rule.FIELD, null, Rule.NUM};
+
+    private Path file;
+
+    @BeforeEach
+    void createFile() throws IOException {
+        file = Files.createTempFile("filevalidator", ".csv");
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void nonAsciiFieldsGetTheStringValidatorsResult() throws IOException {
+        String email = "pippo@citt\u00e0.it";
+        String field = "Per\u00f9";
+        assertTrue(InputValidator.isEmail(email));
+        assertTrue(InputValidator.isValidField(field));
+
+        write(email + ";" + field + "\n", StandardCharsets.UTF_8);
+        FileValidator validator = new FileValidator(';', false, Rule.EMAIL, Rule.FIELD);
+        assertEquals("", rejects(validator));
+
+        write(email + ";" + field + "\n", StandardCharsets.ISO_8859_1);
+        assertEquals("", rejects(new FileValidator(';', false, StandardCharsets.ISO_8859_1, Rule.EMAIL, Rule.FIELD)));
+        // letto come UTF-8 il file ISO-8859-1 ha byte non validi, che diventano U+FFFD
+        assertEquals("1:0:INVALID:pippo@citt\ufffd.it|1:1:INVALID:Per\ufffd|", rejects(validator));
+    }
+
+    @Test
+    void windowsSplitRecordsAnywhere() throws IOException {
+        String content = "email;name;skip;n\r\n"
+                + "mario@example.com;Rossi;x;12\r\n"
+                + "\r\n"
+                + "bad@;Citt\u00e0 d'Ital\u00eca;;1.5\n"
+                + "\n"
+                + "a@b.it;Per\u00f9\n"
+                + "lui@example.com;<script>;y;7;extra\r\n"
+                + ";;;\n"
+                + "ultimo@example.com;Fine;z;99";
+        write(content, StandardCharsets.UTF_8);
+        FileValidator validator = new FileValidator(';', true, COLUMNS);
+        String expected = expectedRejects(content, true);
+
+        String whole = rejects(validator);
+        assertEquals(expected, whole);
+        assertTrue(whole.contains("4:0:INVALID:bad@|"), whole);
+        assertTrue(whole.contains("6:3:EMPTYORNULL:|"), whole);
+        assertTrue(!whole.startsWith("1:"), whole);
+        for (int window = 40; window < 80; window++) {
+            assertEquals(expected, rejects(validator.withWindowSize(window)), "window " + window);
+        }
+        assertEquals(6, validator.withWindowSize(41).validate(file, new Collector()));
+
+        String noHeader = expectedRejects(content, false);
+        assertTrue(noHeader.startsWith("1:"), noHeader);
+        assertEquals(noHeader, rejects(new FileValidator(';', false, COLUMNS).withWindowSize(45)));
+    }
+
+    @Test
+    void recordLongerThanTheWindowFails() throws IOException {
+        write("a@b.it;uno\nmario.rossi@example.com;due\na@b.it;tre\n", StandardCharsets.UTF_8);
+        final FileValidator validator = new FileValidator(';', false, Rule.EMAIL, Rule.FIELD).withWindowSize(16);
+        IOException e = assertThrows(IOException.class, () -> validator.validate(file, new Collector()));
+        assertTrue(e.getMessage().startsWith("record 2 "), e.getMessage());
+        assertEquals(3, validator.withWindowSize(32).validate(file, new Collector()));
+    }
+
+    @Test
+    void emptyFile() throws IOException {
+        write("", StandardCharsets.UTF_8);
+        assertEquals(0, new FileValidator(';', true, COLUMNS).validate(file, new Collector()));
+    }
+
+    @Test
+    void delimiterMustBeASingleByte() {
+        assertThrows(IllegalArgumentException.class, () -> new FileValidator('\u00a7', false, COLUMNS));
+        assertThrows(IllegalArgumentException.class, () -> new FileValidator(';', false, StandardCharsets.UTF_16, COLUMNS));
+        new FileValidator('\u00a7', false, StandardCharsets.ISO_8859_1, COLUMNS);
+    }
+
+    private void write(String content, Charset charset) throws IOException {
+        Files.write(file, content.getBytes(charset));
+    }
+
+    private String rejects(FileValidator validator) throws IOException {
+        Collector collector = new Collector();
+        validator.validate(file, collector);
+        return collector.out.toString();
+    }
+
+    /**
+     * Gli scarti attesi, calcolati sulle String con le regole delle colonne.
+     */
+    private static String expectedRejects(String content, boolean header) {
+        StringBuilder out = new StringBuilder();
+        List<String> lines = new ArrayList<String>(Arrays.asList(content.split("\n", -1)));
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            if (line.isEmpty() || (header && i == 0)) {
+                continue;
+            }
+            String[] fields = line.split(";", -1);
+            for (int c = 0; c < COLUMNS.length; c++) {
+                if (COLUMNS[c] == null) {
+                    continue;
+                }
+                String value = c < fields.length ? fields[c] : "";
+                ValidationStatus status = c < fields.length ? COLUMNS[c].status(value) : ValidationStatus.EMPTYORNULL;
+                if (status != ValidationStatus.VALID) {
+                    out.append(i + 1).append(':').append(c).append(':').append(status).append(':').append(value).append('|');
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private static final class Collector implements RejectHandler {
+
+        final StringBuilder out = new StringBuilder();
+
+        @Override
+        public void reject(long record, int column, Rule rule, ValidationStatus status, CharSequence value) {
+            out.append(record).append(':').append(column).append(':').append(status).append(':').append(value).append('|');
+        }
+    }
+}
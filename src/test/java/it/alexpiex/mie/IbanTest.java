@@ -0,0 +1,197 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class IbanTest {
+
+    private static final String[] VALID = {
+        "IT60X0542811101000000123456", "DE89370400440532013000", "GB82WEST12345698765432",
+        "FR1420041010050500013M02606", "ES9121000418450200051332", "NL91ABNA0417164300",
+        "BE68539007547034", "CH9300762011623852957", "AT611904300234573201",
+        "PL61109010140000071219812874", "NO9386011117947", "MT84MALT011000012345MTLCAST001S",
+        "SM86U0322509800000000270100", "BR1800360305000010009795493C1",
+        "LC55HEMM000100010012001200023015", "RU0304452522540817810538091310419"
+    };
+
+    private final Random random = new Random(12);
+
+    @Test
+    void knownIbans() {
+        for (String iban : VALID) {
+            assertEquals(ValidationStatus.VALID, Iban.check(iban), iban);
+            assertEquals(iban.length(), Iban.lengthOf(iban.substring(0, 2)), iban);
+            assertTrue(Iban.isValid(iban.toLowerCase()), iban);
+            assertTrue(InputValidator.isIban(iban), iban);
+            // una cifra cambiata: lo stesso formato, mod-97 sbagliato
+            String wrong = iban.substring(0, iban.length() - 1) + (iban.endsWith("1") ? '2' : '1');
+            if (Character.isDigit(iban.charAt(iban.length() - 1))) {
+                assertEquals(ValidationStatus.INVALIDCHECKDIGIT, Iban.check(wrong), wrong);
+            }
+            String swapped = iban.substring(0, 2) + iban.charAt(3) + iban.charAt(2) + iban.substring(4);
+            if (iban.charAt(2) != iban.charAt(3)) {
+                assertEquals(ValidationStatus.INVALIDCHECKDIGIT, Iban.check(swapped), swapped);
+            }
+        }
+    }
+
+    @Test
+    void lengths() {
+        String[] table = {"IT27", "SM27", "DE22", "GB22", "FR27", "ES24", "NL18", "BE16", "CH21", "AT20",
+            "PL28", "NO15", "MT31", "BR29", "LC32", "RU33", "VA22", "XK20", "SA24", "UA29"};
+        for (String entry : table) {
+            assertEquals(Integer.parseInt(entry.substring(2)), Iban.lengthOf(entry.substring(0, 2)), entry);
+            assertEquals(Integer.parseInt(entry.substring(2)), Iban.lengthOf(entry.substring(0, 2).toLowerCase()), entry);
+        }
+        assertEquals(0, Iban.lengthOf("US"));
+        assertEquals(0, Iban.lengthOf("XX"));
+        assertEquals(0, Iban.lengthOf("I"));
+        assertEquals(0, Iban.lengthOf("ITA"));
+        assertEquals(0, Iban.lengthOf("1T"));
+        assertEquals(0, Iban.lengthOf(null));
+        for (char c0 = 'A'; c0 <= 'Z'; c0++) {
+            for (char c1 = 'A'; c1 <= 'Z'; c1++) {
+                int length = Iban.lengthOf("" + c0 + c1);
+                assertTrue(length == 0 || (length >= 15 && length <= Iban.MAX_LENGTH), "" + c0 + c1);
+            }
+        }
+    }
+
+    @Test
+    void malformed() {
+        assertEquals(ValidationStatus.EMPTYORNULL, Iban.check(null));
+        assertEquals(ValidationStatus.EMPTYORNULL, Iban.check(""));
+        assertEquals(ValidationStatus.EMPTYORNULL, Iban.check("   "));
+        assertEquals(ValidationStatus.INVALID, Iban.check("IT60X054281110100000012345"));
+        assertEquals(ValidationStatus.INVALID, Iban.check("IT60X05428111010000001234567"));
+        assertEquals(ValidationStatus.INVALID, Iban.check("US60X0542811101000000123456"));
+        assertEquals(ValidationStatus.INVALID, Iban.check("1T60X0542811101000000123456"));
+        assertEquals(ValidationStatus.INVALID, Iban.check("ITA0X0542811101000000123456"));
+        // struttura del BBAN: lettera dove va una cifra e viceversa
+        assertEquals(ValidationStatus.INVALID, Iban.check("IT6000542811101000000123456"));
+        assertEquals(ValidationStatus.INVALID, Iban.check("IT60XX542811101000000123456"));
+        assertEquals(ValidationStatus.INVALID, Iban.check("GB82WES712345698765432"));
+        assertEquals(ValidationStatus.INVALID, Iban.check("IT60X0542811101000000123-56"));
+        assertEquals(ValidationStatus.INVALID, Iban.check("IT60\tX0542811101000000123456"));
+        assertEquals(ValidationStatus.INVALID, Iban.check("IT"));
+    }
+
+    @Test
+    void spaces() {
+        assertTrue(Iban.isValid("IT60 X054 2811 1010 0000 0123 456"));
+        assertTrue(Iban.isValid("it60 x054 2811 1010 0000 0123 456"));
+        assertTrue(Iban.isValid("  IT60X0542811101000000123456  "));
+        assertTrue(Iban.isValid("I T 6 0X05428111010000001234 56"));
+        assertTrue(Iban.isValid("GB82 WEST 1234 5698 7654 32"));
+        assertTrue(Iban.isValid("Gb82 wEsT 1234 5698 7654 32"));
+        assertFalse(Iban.isValid("IT60 X054 2811 1010 0000 0123 457"));
+    }
+
+    /**
+     * Il mod-97 calcolato durante la scansione coincide con quello su BigInteger della stringa
+     * riordinata: BBAN casuali della stessa struttura dei valori noti, cifre di controllo
+     * ricalcolate.
+     */
+    @Test
+    void streamingMod97() {
+        int valid = 0;
+        for (int run = 0; run < 20000; run++) {
+            String sample = VALID[random.nextInt(VALID.length)];
+            StringBuilder sb = new StringBuilder(sample);
+            for (int i = 4; i < sb.length(); i++) {
+                char c = sb.charAt(i);
+                if (random.nextInt(3) == 0) {
+                    sb.setCharAt(i, Character.isDigit(c) ? (char) ('0' + random.nextInt(10)) : (char) ('A' + random.nextInt(26)));
+                }
+            }
+            sb.setCharAt(2, '0');
+            sb.setCharAt(3, '0');
+            int check = 98 - mod97(sb.toString());
+            sb.setCharAt(2, (char) ('0' + check / 10));
+            sb.setCharAt(3, (char) ('0' + check % 10));
+            String iban = sb.toString();
+            assertEquals(1, mod97(iban), iban);
+            assertEquals(ValidationStatus.VALID, Iban.check(iban), iban);
+            valid++;
+
+            String other = iban.substring(0, 2) + pad(random.nextInt(100)) + iban.substring(4);
+            assertEquals(mod97(other) == 1 ? ValidationStatus.VALID : ValidationStatus.INVALIDCHECKDIGIT,
+                    Iban.check(other), other);
+        }
+        assertEquals(20000, valid);
+    }
+
+    /**
+     * step rifiuta al primo carattere che esclude ogni continuazione valida e accetta tutti i
+     * prefissi di un IBAN valido, spazi compresi.
+     */
+    @Test
+    void earlyRejectionInStep() {
+        for (String iban : VALID) {
+            long state = Iban.START;
+            for (int i = 0; i < iban.length(); i++) {
+                state = Iban.step(state, iban.charAt(i));
+                assertFalse(Iban.isRejected(state), iban.substring(0, i + 1));
+                assertEquals(i == iban.length() - 1, Iban.isAccepting(state), iban.substring(0, i + 1));
+            }
+            assertTrue(Iban.isRejected(Iban.step(state, '0')), iban + "0");
+            assertEquals(state, Iban.step(state, ' '));
+        }
+        assertEquals(1, rejectedAt("W"));
+        assertEquals(2, rejectedAt("US"));
+        assertEquals(2, rejectedAt("I1"));
+        assertEquals(3, rejectedAt("ITX"));
+        assertEquals(5, rejectedAt("IT600"));
+        assertEquals(6, rejectedAt("IT60XX"));
+        assertEquals(7, rejectedAt("it60 xx"));
+        // cifre di controllo sbagliate: al piu' tardi all'ultimo carattere
+        int at = rejectedAt("IT61X0542811101000000123456");
+        assertTrue(at >= 26 && at <= 27, "rejected at " + at);
+        assertEquals(-1, rejectedAt("IT60X054281110100000012345"));
+
+        for (int run = 0; run < 20000; run++) {
+            String iban = VALID[random.nextInt(VALID.length)];
+            int p = 4 + random.nextInt(iban.length() - 4);
+            String wrong = iban.substring(0, p) + (char) ('0' + random.nextInt(10)) + iban.substring(p + 1);
+            long state = Iban.START;
+            for (int i = 0; i < wrong.length(); i++) {
+                state = Iban.step(state, wrong.charAt(i));
+            }
+            assertEquals(Iban.isValid(wrong), Iban.isAccepting(state), wrong);
+            assertEquals(!Iban.isValid(wrong), Iban.isRejected(state), wrong);
+        }
+    }
+
+    /**
+     * Numero di caratteri letti quando step rifiuta, -1 se non rifiuta.
+     */
+    private static int rejectedAt(String s) {
+        long state = Iban.START;
+        for (int i = 0; i < s.length(); i++) {
+            state = Iban.step(state, s.charAt(i));
+            if (Iban.isRejected(state)) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int mod97(String iban) {
+        String moved = iban.substring(4) + iban.substring(0, 4);
+        StringBuilder digits = new StringBuilder();
+        for (int i = 0; i < moved.length(); i++) {
+            digits.append(Character.digit(moved.charAt(i), 36));
+        }
+        return new BigInteger(digits.toString()).mod(BigInteger.valueOf(97)).intValue();
+    }
+
+    private static String pad(int n) {
+        return n < 10 ? "0" + n : String.valueOf(n);
+    }
+}
@@ -0,0 +1,276 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import it.alexpiex.mie.IncrementalValidator.Verdict;
+
+/**
+ * Sequenze casuali di append, deleteLast e update confrontate con i validatori sull'intero
+ * valore: l'esito VALID coincide sempre, e nessun prefisso di un valore valido e' INVALID.
+ */
+class IncrementalValidatorTest {
+
+    private static final int RUNS = 2000;
+
+    private static final String[] IBAN_SEEDS = {
+        "IT60X0542811101000000123456", "DE89370400440532013000", "GB29NWBK60161331926819",
+        "FR1420041010050500013M02606", "NL91ABNA0417164300", "NO9386011117947",
+        "MU17BOMM0101101030300200000MUR", "BR1800360305000010009795493C1"
+    };
+
+    private static final String[] EMAILS = {
+        "mario.rossi@example.com", "a@b.it", "x_y+z@sub.domain.co.uk", "user@[192.168.0.1]",
+        "pippo@citt\u00e0.it", "a.b@c"
+    };
+
+    private static final String[][] REGEXES = {
+        {InputValidator.DATE, "29/02/2024"},
+        {InputValidator.NUMERIC, "12345"},
+        {InputValidator.IMPORT, "123,45"},
+        {InputValidator.COD_FISC, "RSSMRA80A01H501U"},
+        {InputValidator.ALFANUMERIC, "Via Roma 12/b, <int> 3"},
+        {"(a|ab)(c|bcd)(d*)", "abcd"},
+        {"x*$", "xx"},
+    };
+
+    private final Random random = new Random(11);
+
+    @Test
+    void ibanAgreesWithIsIban() {
+        check(new Case("0123456789ABZaz ") {
+            @Override
+            IncrementalValidator validator() {
+                return IncrementalValidator.iban();
+            }
+
+            @Override
+            String sample() {
+                return randomIban();
+            }
+
+            @Override
+            boolean accepts(String s) {
+                return InputValidator.isIban(s);
+            }
+        });
+    }
+
+    @Test
+    void codFiscFullAgreesWithIsValid() {
+        check(new Case("0123456789ABLMZaz") {
+            @Override
+            IncrementalValidator validator() {
+                return IncrementalValidator.codFiscFull();
+            }
+
+            @Override
+            String sample() {
+                return randomCodFisc();
+            }
+
+            @Override
+            boolean accepts(String s) {
+                return CodiceFiscale.isValid(s);
+            }
+        });
+    }
+
+    @Test
+    void emailAgreesWithIsEmail() {
+        check(new Case("@.-a1[] ") {
+            @Override
+            IncrementalValidator validator() {
+                return IncrementalValidator.email();
+            }
+
+            @Override
+            String sample() {
+                return EMAILS[random.nextInt(EMAILS.length)];
+            }
+
+            @Override
+            boolean accepts(String s) {
+                return InputValidator.isEmail(s);
+            }
+        });
+    }
+
+    @Test
+    void regexAgreesWithCheck() {
+        for (final String[] regex : REGEXES) {
+            check(new Case("0123456789/,ab\n") {
+                @Override
+                IncrementalValidator validator() {
+                    return IncrementalValidator.regex(regex[0]);
+                }
+
+                @Override
+                String sample() {
+                    return regex[1];
+                }
+
+                @Override
+                boolean accepts(String s) {
+                    return InputValidator.check(regex[0], s);
+                }
+            });
+        }
+    }
+
+    /**
+     * Gli automi usati dal validatore, percorsi sull'intero valore.
+     */
+    @Test
+    void automataAgreeOnWholeValues() {
+        LinearRegex.Dfa dfa = LinearRegex.compile(InputValidator.DATE).dfa();
+        assertNotNull(dfa);
+        for (int run = 0; run < RUNS; run++) {
+            String iban = mutate(randomIban(), "0123456789ABZ ");
+            long state = Iban.START;
+            for (int i = 0; i < iban.length(); i++) {
+                state = Iban.step(state, iban.charAt(i));
+            }
+            assertEquals(InputValidator.isIban(iban), Iban.isAccepting(state), iban);
+
+            String cf = mutate(randomCodFisc(), "0123456789ALMZ");
+            state = CodiceFiscale.START;
+            for (int i = 0; i < cf.length(); i++) {
+                state = CodiceFiscale.step(state, cf.charAt(i));
+            }
+            assertEquals(CodiceFiscale.isValid(cf), CodiceFiscale.isAccepting(state), cf);
+
+            String date = mutate("29/02/2024", "0123456789/");
+            int s = LinearRegex.Dfa.START;
+            for (int i = 0; i < date.length(); i++) {
+                s = dfa.step(s, date.charAt(i));
+            }
+            assertEquals(InputValidator.check(InputValidator.DATE, date), dfa.isAccepting(s), date);
+        }
+    }
+
+    private void check(Case c) {
+        IncrementalValidator v = c.validator();
+        int valid = 0;
+        for (int run = 0; run < RUNS; run++) {
+            String good = c.sample();
+            boolean goodValid = c.accepts(good);
+            v.reset();
+            for (int i = 0; i < good.length(); i++) {
+                Verdict verdict = v.append(good.charAt(i));
+                String prefix = good.substring(0, i + 1);
+                assertEquals(c.accepts(prefix), verdict == Verdict.VALID, "append " + prefix);
+                if (goodValid) {
+                    assertNotEquals(Verdict.INVALID, verdict, "prefix " + prefix + " of " + good);
+                }
+            }
+
+            String s = random.nextInt(4) == 0 ? good : mutate(good, c.alphabet);
+            Verdict verdict = v.update(s);
+            assertEquals(c.accepts(s), verdict == Verdict.VALID, "update " + s);
+            assertEquals(s, v.toString());
+            if (verdict == Verdict.VALID) {
+                valid++;
+            }
+
+            int deleted = random.nextInt(s.length() + 1);
+            for (int i = 0; i < deleted; i++) {
+                v.deleteLast();
+            }
+            String prefix = s.substring(0, s.length() - deleted);
+            assertEquals(prefix, v.toString());
+            assertEquals(c.accepts(prefix), v.isValid(), "deleteLast " + prefix);
+            assertEquals(verdict, v.append(s.substring(prefix.length())), "append back " + s);
+        }
+        assertTrue(valid > RUNS / 10, "valid values: " + valid);
+    }
+
+    private String randomIban() {
+        String seed = IBAN_SEEDS[random.nextInt(IBAN_SEEDS.length)];
+        while (true) {
+            char[] c = seed.toCharArray();
+            for (int i = 4; i < c.length; i++) {
+                if (random.nextInt(3) == 0) {
+                    c[i] = Character.isDigit(c[i]) ? (char) ('0' + random.nextInt(10)) : (char) ('A' + random.nextInt(26));
+                }
+            }
+            // cifre di controllo ricalcolate per tentativi
+            for (int d = 0; d < 100; d++) {
+                c[2] = (char) ('0' + d / 10);
+                c[3] = (char) ('0' + d % 10);
+                String s = new String(c);
+                if (Iban.isValid(s)) {
+                    return random.nextBoolean() ? s : s.replaceAll("(.{4})", "$1 ").trim();
+                }
+            }
+        }
+    }
+
+    private String randomCodFisc() {
+        String letters = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+        while (true) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 15; i++) {
+                if (FastMatchers.COD_FISC_LAYOUT.charAt(i) == 'L') {
+                    sb.append(letters.charAt(random.nextInt(26)));
+                } else if (random.nextInt(8) == 0) {
+                    // omocodia
+                    sb.append("LMNPQRSTUV".charAt(random.nextInt(10)));
+                } else {
+                    sb.append((char) ('0' + random.nextInt(10)));
+                }
+            }
+            sb.setCharAt(8, "ABCDEHLMPRST".charAt(random.nextInt(12)));
+            char check = CodiceFiscale.checkCharacter(sb);
+            if (check == 0) {
+                continue;
+            }
+            String s = sb.append(check).toString();
+            if (CodiceFiscale.isValid(s)) {
+                return random.nextBoolean() ? s : s.toLowerCase(Locale.ROOT);
+            }
+        }
+    }
+
+    private String mutate(String s, String alphabet) {
+        StringBuilder sb = new StringBuilder(s);
+        int n = random.nextInt(3);
+        for (int i = 0; i < n && sb.length() > 0; i++) {
+            int p = random.nextInt(sb.length());
+            char c = alphabet.charAt(random.nextInt(alphabet.length()));
+            switch (random.nextInt(3)) {
+                case 0:
+                    sb.setCharAt(p, c);
+                    break;
+                case 1:
+                    sb.deleteCharAt(p);
+                    break;
+                default:
+                    sb.insert(p, c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private abstract static class Case {
+
+        final String alphabet;
+
+        Case(String alphabet) {
+            this.alphabet = alphabet;
+        }
+
+        abstract IncrementalValidator validator();
+
+        abstract String sample();
+
+        abstract boolean accepts(String s);
+    }
+}
@@ -0,0 +1,176 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * LinearRegex deve dare lo stesso esito di Pattern.matches su tutto il sottoinsieme supportato.
+ */
+class LinearRegexTest {
+
+    private static final String ALPHABET = "ab01-_. \n\r";
+
+    @Test
+    void endAnchorBeforeFinalLineTerminator() {
+        assertSame("a$", "a", "a\n", "a\r\n", "ab");
+        assertSame("a$\n", "a\n", "a", "a\n\n");
+        assertSame("a$\r\n", "a\r\n", "a\r");
+        assertSame("a$\\s*", "a", "a\n", "a\r\n", "a\n\n", "a \n");
+        assertSame("a\\s*$", "a", "a \n", "a\n\n");
+        assertSame("(a|b$)\n?", "a\n", "b\n", "b", "a");
+    }
+
+    @Test
+    void countedRepeats() {
+        assertSame("a{3}", "aa", "aaa", "aaaa");
+        assertSame("(ab){2,}", "ab", "abab", "ababab", "aba");
+        assertSame("[0-9]{1,3}(\\.[0-9]{1,3}){3}", "192.168.0.1", "1.2.3", "1234.1.1.1", "1.1.1.1.1");
+        assertSame("a{0}b", "b", "ab");
+        assertSame("(a?){3}a{3}", "aaa", "aaaaaa", "aa", "aaaaaaa");
+    }
+
+    @Test
+    void negatedClasses() {
+        assertSame("[^a-c]*", "", "xyz", "xaz", "\n");
+        assertSame("[^\\d\\s]+", "ab", "a1", "a b");
+        assertSame("\\D\\W\\S", "a-b", "1-b", "a b", "-.x");
+        assertSame("[^\\]a]", "]", "a", "b");
+    }
+
+    @Test
+    void lazyQuantifiers() {
+        assertSame("a*?b", "b", "aab", "aa");
+        assertSame("(a+?)(a*)", "a", "aaa", "");
+        assertSame("a??a", "a", "aa", "aaa");
+        assertSame("a{2,4}?", "a", "aa", "aaaa", "aaaaa");
+    }
+
+    @Test
+    void inputValidatorPatterns() {
+        String[] regexes = {InputValidator.NUMERIC, InputValidator.DATE, InputValidator.BOOLEAN,
+            InputValidator.COD_FISC, InputValidator.IMPORT, InputValidator.ATOM, InputValidator.DOMAIN,
+            InputValidator.IP_DOMAIN};
+        for (String regex : regexes) {
+            assertNotNull(LinearRegex.compile(regex), regex);
+        }
+        assertSame(InputValidator.DATE, "29/02/2024", "29/02/2023", "31/04/2020", "01/01/1600", "1/1/2000");
+        assertSame(InputValidator.IMPORT, "1", "12,5", "12,55", "12,555", ",5", "12,");
+    }
+
+    @Test
+    void randomRegexesAgreeWithPattern() {
+        Random random = new Random(42);
+        int compared = 0;
+        for (int n = 0; n < 3000; n++) {
+            String regex = regex(random, 3);
+            LinearRegex linear = LinearRegex.compile(regex);
+            if (linear == null) {
+                continue;
+            }
+            Pattern pattern = Pattern.compile(regex);
+            for (int k = 0; k < 40; k++) {
+                String input = input(random);
+                assertEquals(pattern.matcher(input).matches(), linear.matches(input),
+                        "regex " + escape(regex) + " on " + escape(input));
+                compared++;
+            }
+        }
+        assertTrue(compared > 50000, "too few regexes compiled: " + compared);
+    }
+
+    private static void assertSame(String regex, String... inputs) {
+        LinearRegex linear = LinearRegex.compile(regex);
+        assertNotNull(linear, regex);
+        Pattern pattern = Pattern.compile(regex);
+        for (String input : inputs) {
+            assertEquals(pattern.matcher(input).matches(), linear.matches(input),
+                    "regex " + escape(regex) + " on " + escape(input));
+        }
+    }
+
+    private static String regex(Random random, int depth) {
+        StringBuilder sb = new StringBuilder();
+        int terms = 1 + random.nextInt(3);
+        for (int i = 0; i < terms; i++) {
+            sb.append(quantified(random, depth));
+        }
+        if (depth > 0 && random.nextInt(4) == 0) {
+            sb.append('|').append(regex(random, depth - 1));
+        }
+        return sb.toString();
+    }
+
+    private static String quantified(Random random, int depth) {
+        String atom = atom(random, depth);
+        String q;
+        switch (random.nextInt(12)) {
+            case 0: q = "*"; break;
+            case 1: q = "+"; break;
+            case 2: q = "?"; break;
+            case 3: q = "{" + random.nextInt(3) + "}"; break;
+            case 4: q = "{" + random.nextInt(3) + ",}"; break;
+            case 5: {
+                int min = random.nextInt(3);
+                q = "{" + min + "," + (min + random.nextInt(3)) + "}";
+                break;
+            }
+            default: q = ""; break;
+        }
+        if (!q.isEmpty() && random.nextInt(3) == 0) {
+            q += "?";
+        }
+        return atom + q;
+    }
+
+    private static String atom(Random random, int depth) {
+        switch (random.nextInt(depth > 0 ? 12 : 9)) {
+            case 0: return ".";
+            case 1: return new String[] {"\\d", "\\w", "\\s", "\\D", "\\W", "\\S"}[random.nextInt(6)];
+            case 2: return "\\" + ".-_".charAt(random.nextInt(3));
+            case 3: return random.nextInt(3) == 0 ? "^" : "$";
+            case 4:
+            case 5: return klass(random);
+            case 6: return "\\n";
+            case 9: return "(" + regex(random, depth - 1) + ")";
+            case 10: return "(?:" + regex(random, depth - 1) + ")";
+            case 11: return "(" + regex(random, depth - 1) + ")";
+            default: return String.valueOf("ab01 ".charAt(random.nextInt(5)));
+        }
+    }
+
+    private static String klass(Random random) {
+        StringBuilder sb = new StringBuilder("[");
+        if (random.nextBoolean()) {
+            sb.append('^');
+        }
+        int items = 1 + random.nextInt(3);
+        for (int i = 0; i < items; i++) {
+            switch (random.nextInt(5)) {
+                case 0: sb.append("a-b"); break;
+                case 1: sb.append("0-9"); break;
+                case 2: sb.append(new String[] {"\\d", "\\s", "\\w", "\\n", "\\."}[random.nextInt(5)]); break;
+                default: sb.append("ab01_-. ".charAt(random.nextInt(7))); break;
+            }
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String input(Random random) {
+        int len = random.nextInt(8);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < len; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    private static String escape(String s) {
+        return s.replace("\n", "\\n").replace("\r", "\\r");
+    }
+}
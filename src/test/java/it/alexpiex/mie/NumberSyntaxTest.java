@@ -0,0 +1,45 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+class NumberSyntaxTest {
+
+    private static final NumberSyntax ITALY = NumberSyntax.forLocale(Locale.ITALY);
+
+    @Test
+    void longDecimalTailDoesNotOverflowTheIntegerPart() {
+        assertEquals(ValidationStatus.VALID, ITALY.checkRange("5,0000000000000000000001", 0, 10));
+        assertEquals(ValidationStatus.VALID, ITALY.checkRange("-5,99999999999999999999999", -10, 0));
+        assertTrue(ITALY.matches("5,0000000000000000000001"));
+    }
+
+    @Test
+    void isIntegerWithLongDecimalTail() {
+        Locale previous = Locale.getDefault(Locale.Category.FORMAT);
+        Locale.setDefault(Locale.Category.FORMAT, Locale.ITALY);
+        try {
+            assertTrue(InputValidator.isInteger("5,0000000000000000000001", 0, 10));
+            assertFalse(InputValidator.isInteger("11,0000000000000000000001", 0, 10));
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, previous);
+        }
+    }
+
+    @Test
+    void integerPartStillOverflows() {
+        assertEquals(ValidationStatus.OUTOFRANGE, ITALY.checkRange("99999999999999999999,5", 0, 10));
+    }
+
+    @Test
+    void parseReportsOverflowOfTheUnscaledValue() {
+        ParsedNumber out = new ParsedNumber();
+        assertEquals(ValidationStatus.OUTOFRANGE, ITALY.parse("5,0000000000000000000001", out));
+        assertEquals(ValidationStatus.VALID, ITALY.parse("1.234,5", out));
+    }
+}
@@ -0,0 +1,123 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class NumericParserTest {
+
+    private static final String[] EDGES = {
+        "0", "-0", "+0", "-", "+", "", "--1", "+-1", "1-", " 1", "1 ", "00000000000000000000001",
+        "2147483647", "2147483648", "-2147483648", "-2147483649",
+        "9223372036854775807", "9223372036854775808", "-9223372036854775808", "-9223372036854775809",
+        "+9223372036854775808", "99999999999999999999", "-99999999999999999999x",
+        // cifre non ASCII, accettate come da Long.parseLong
+        "\u0661\u0662\u0663", "-\u0967\u0968"
+    };
+
+    private final Random random = new Random(9);
+
+    /**
+     * checkLong, parseLong, parseInt e parse danno esito e valore di Long.parseLong e
+     * Integer.parseInt.
+     */
+    @Test
+    void agreesWithTheJdk() {
+        for (String s : EDGES) {
+            compare(s);
+        }
+        for (int run = 0; run < 200000; run++) {
+            compare(randomNumber());
+        }
+        compare(null);
+    }
+
+    @Test
+    void range() {
+        ParsedNumber out = new ParsedNumber();
+        assertEquals(ValidationStatus.VALID, NumericParser.parse("1900", 1900, 4712, out));
+        assertEquals(1900, out.getUnscaledValue());
+        assertEquals(0, out.getScale());
+        // fuori intervallo out non cambia
+        assertEquals(ValidationStatus.OUTOFRANGE, NumericParser.parse("4713", 1900, 4712, out));
+        assertEquals(ValidationStatus.NOTANUMBER, NumericParser.parse("19a0", 1900, 4712, out));
+        assertEquals(1900, out.getUnscaledValue());
+        assertEquals(ValidationStatus.OUTOFRANGE, NumericParser.checkInt("-1", 0, 10));
+        assertEquals(ValidationStatus.VALID, NumericParser.checkInt("10", 0, 10));
+        assertEquals(7, NumericParser.parseInt("7", -1));
+        assertEquals(-1, NumericParser.parseInt("2147483648", -1));
+    }
+
+    @Test
+    void isYear() {
+        ValidationErrors errors = new ValidationErrors();
+        assertTrue(InputValidator.isYear("1900", errors));
+        assertTrue(InputValidator.isYear("4712", errors));
+        assertTrue(InputValidator.isYear("+2024", errors));
+        assertFalse(InputValidator.isYear("1899", errors));
+        assertFalse(InputValidator.isYear("4713", errors));
+        assertFalse(InputValidator.isYear("-2000", errors));
+        // anni fuori intervallo non registrano errori
+        assertFalse(errors.hasErrors());
+
+        assertFalse(InputValidator.isYear("20x4", errors));
+        assertEquals(ValidationStatus.NOTANUMBER, errors.getStatus("isYear(...)"));
+        assertFalse(InputValidator.isYear("99999999999", errors));
+        assertEquals(ValidationStatus.OUTOFRANGE, errors.getStatus("isYear(...)"));
+        assertFalse(InputValidator.isYear("", errors));
+        assertEquals(ValidationStatus.EMPTYORNULL, errors.getStatus("isYear(...)"));
+    }
+
+    private static void compare(String s) {
+        Long expectedLong = jdkLong(s);
+        Integer expectedInt = expectedLong != null && expectedLong == expectedLong.intValue()
+                ? Integer.valueOf(expectedLong.intValue()) : null;
+        assertEquals(expectedLong != null, NumericParser.checkLong(s, Long.MIN_VALUE, Long.MAX_VALUE) == ValidationStatus.VALID, s);
+        assertEquals(expectedInt != null, NumericParser.check(s, TypeEnum.INT) == ValidationStatus.VALID, s);
+        assertEquals(expectedLong == null ? 42L : expectedLong.longValue(), NumericParser.parseLong(s, 42L), s);
+        assertEquals(expectedInt == null ? 42 : expectedInt.intValue(), NumericParser.parseInt(s, 42), s);
+
+        ParsedNumber out = new ParsedNumber();
+        ValidationStatus status = NumericParser.parse(s, Integer.MIN_VALUE, Integer.MAX_VALUE, out);
+        assertEquals(NumericParser.checkInt(s, Integer.MIN_VALUE, Integer.MAX_VALUE), status, s);
+        if (expectedInt != null) {
+            assertEquals(expectedInt.longValue(), out.getUnscaledValue(), s);
+        } else if (s != null && s.length() > 0 && expectedLong != null) {
+            assertEquals(ValidationStatus.OUTOFRANGE, status, s);
+        }
+    }
+
+    private static Long jdkLong(String s) {
+        try {
+            return Long.valueOf(Long.parseLong(s));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Segno facoltativo e da 1 a 21 cifre, a volte con un carattere estraneo.
+     */
+    private String randomNumber() {
+        StringBuilder sb = new StringBuilder();
+        int sign = random.nextInt(4);
+        if (sign == 0) {
+            sb.append('-');
+        } else if (sign == 1) {
+            sb.append('+');
+        }
+        int digits = 1 + random.nextInt(21);
+        sb.append((char) ('1' + random.nextInt(9)));
+        for (int i = 1; i < digits; i++) {
+            sb.append((char) ('0' + random.nextInt(10)));
+        }
+        if (random.nextInt(10) == 0) {
+            sb.insert(random.nextInt(sb.length() + 1), "x-. \u0663".charAt(random.nextInt(5)));
+        }
+        return sb.toString();
+    }
+}
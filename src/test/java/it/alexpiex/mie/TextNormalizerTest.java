@@ -0,0 +1,165 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TextNormalizerTest {
+
+    private final Random random = new Random(18);
+
+    /**
+     * Su testo con spazi singoli formatName da' lo stesso risultato della versione originale,
+     * apostrofi compresi.
+     */
+    @Test
+    void formatNameKeepsItsOutput() {
+        String[] names = {"maria adele mandela", "dell'orco adele", "DELL'ORCO ADELE", "d'annunzio", "o'neil mc'donald",
+            "l'", "'abc", "a''b", "abc", "rossi", "van der berg", "jean-luc picard", "\u00e0lvaro \u00e8milio"};
+        for (String name : names) {
+            assertEquals(original(name), InputValidator.formatName(name), name);
+        }
+        String alphabet = "abcxyzABCXYZ\u00e0\u00e8\u00e9\u00ec\u00f2\u00f9\u00c0\u00c8-'";
+        for (int run = 0; run < 100000; run++) {
+            StringBuilder sb = new StringBuilder();
+            int words = 1 + random.nextInt(4);
+            for (int w = 0; w < words; w++) {
+                if (w > 0 && sb.charAt(sb.length() - 1) != '\'') {
+                    sb.append(' ');
+                }
+                int length = 1 + random.nextInt(8);
+                for (int i = 0; i < length; i++) {
+                    sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+            }
+            String name = sb.toString();
+            assertEquals(original(name), InputValidator.formatName(name), name);
+        }
+    }
+
+    @Test
+    void formatNameShortAndBlank() {
+        assertEquals("", InputValidator.formatName(null));
+        assertEquals("", InputValidator.formatName(""));
+        assertEquals("", InputValidator.formatName("a"));
+        assertEquals("", InputValidator.formatName("ab"));
+        assertEquals("", InputValidator.formatName("l'"));
+        assertEquals("Abc", InputValidator.formatName("abc"));
+        // spazi ripetuti ridotti: l'originale li trasformava in parole vuote
+        assertEquals("Maria Adele", InputValidator.formatName("  maria   adele "));
+        assertEquals("Dell'Orco", InputValidator.formatName("dell'  orco"));
+        assertEquals("Dell\u2019Orco", InputValidator.formatName("dell\u2019orco"));
+    }
+
+    /**
+     * Le dodici vocali della versione originale si comportano come prima.
+     */
+    @Test
+    void noStressedLettersKeepsTheOriginalVowels() {
+        String accented = "\u00c0\u00c8\u00c9\u00cc\u00d2\u00d9\u00e0\u00e8\u00e9\u00ec\u00f2\u00f9";
+        assertEquals("AEEIOUaeeiou", InputValidator.noStressedLetters(accented));
+        assertEquals("ando perche citta", InputValidator.noStressedLetters("and\u00f2 perch\u00e9 citt\u00e0"));
+        for (int run = 0; run < 10000; run++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = random.nextInt(20); i > 0; i--) {
+                sb.append(random.nextBoolean() ? accented.charAt(random.nextInt(12)) : (char) (' ' + random.nextInt(95)));
+            }
+            String s = sb.toString();
+            assertEquals(originalNoStressed(s), InputValidator.noStressedLetters(s), s);
+        }
+        String ascii = "Mario Rossi, via Roma 1";
+        assertSame(ascii, InputValidator.noStressedLetters(ascii));
+    }
+
+    /**
+     * Rispetto all'originale si piegano tutte le lettere accentate: il risultato cambia per
+     * questi caratteri.
+     */
+    @Test
+    void noStressedLettersFoldsMore() {
+        assertEquals("n", InputValidator.noStressedLetters("\u00f1"));
+        assertEquals("c", InputValidator.noStressedLetters("\u00e7"));
+        assertEquals("Nunez Garcon Muller Angstrom Dvorak Lodz",
+                InputValidator.noStressedLetters("N\u00fa\u00f1ez Gar\u00e7on M\u00fcller \u00c5ngstr\u00f6m Dvo\u0159\u00e1k \u0141\u00f3d\u017a"));
+        assertEquals("\u00f1", originalNoStressed("\u00f1"));
+    }
+
+    @Test
+    void expansions() {
+        assertEquals("AEro", TextNormalizer.NO_ACCENTS.normalize("\u00c6r\u00f8"));
+        assertEquals("Strasse", TextNormalizer.NO_ACCENTS.normalize("Stra\u00dfe"));
+        assertEquals("OEuvre, coeur", TextNormalizer.NO_ACCENTS.normalize("\u0152uvre, c\u0153ur"));
+        assertEquals("aeTHorn", TextNormalizer.NO_ACCENTS.normalize("\u00e6\u00deorn"));
+        // espansione e maiuscole: ogni carattere prodotto passa dalle altre fasi
+        TextNormalizer all = TextNormalizer.of(TextNormalizer.Stage.FOLD_ACCENTS, TextNormalizer.Stage.CAPITALIZE,
+                TextNormalizer.Stage.COLLAPSE_WHITESPACE);
+        assertEquals("Aesir Strasse", all.normalize("  \u00c6SIR   stra\u00dfe"));
+        assertEquals("Oeuvre", all.normalize("\u0152UVRE"));
+    }
+
+    @Test
+    void combiningMarks() {
+        // decomposto (NFD): lettera seguita dal segno
+        assertEquals("ando", TextNormalizer.NO_ACCENTS.normalize("ando\u0300"));
+        assertEquals("Creme brulee", TextNormalizer.NO_ACCENTS.normalize("Cre\u0300me bru\u0302le\u0301e"));
+        assertEquals("a", TextNormalizer.NO_ACCENTS.normalize("\u0301a\u0308\u0323"));
+        // i caratteri senza accento di altri alfabeti restano
+        assertEquals("\u0416\u0438\u0432\u043e \uac00 \u6f22", TextNormalizer.NO_ACCENTS.normalize("\u0416\u0438\u0432\u043e \uac00 \u6f22"));
+        assertEquals("\u0435", TextNormalizer.NO_ACCENTS.normalize("\u0451"));
+        assertNull(TextNormalizer.NO_ACCENTS.normalize(null));
+    }
+
+    @Test
+    void stagesAndReuse() {
+        TextNormalizer collapse = TextNormalizer.of(TextNormalizer.Stage.COLLAPSE_WHITESPACE);
+        assertTrue(collapse.has(TextNormalizer.Stage.COLLAPSE_WHITESPACE));
+        assertFalse(collapse.has(TextNormalizer.Stage.CAPITALIZE));
+        assertEquals("a b c", collapse.normalize(" \ta \n\n b  c\r\n"));
+        assertEquals("l'orco", collapse.normalize("l'  orco"));
+
+        StringBuilder sb = new StringBuilder("x: ");
+        TextNormalizer.NAME.appendTo("mario  rossi", sb);
+        assertEquals("x: Mario Rossi", sb.toString());
+        sb.setLength(0);
+        TextNormalizer.NAME.appendTo("  anna ", sb);
+        assertEquals("Anna", sb.toString());
+    }
+
+    /** formatName prima di TextNormalizer. */
+    private static String original(String name) {
+        if (name == null || name.length() == 0) {
+            return "";
+        }
+        String ret = "";
+        if (name.length() > 2) {
+            name = name.replaceAll("\'", "\' ");
+            String[] nomi = name.split(" ");
+            for (int i = 0; i < nomi.length; i++) {
+                String finalName = ("" + nomi[i].charAt(0)).toUpperCase() + nomi[i].substring(1).toLowerCase();
+                ret += finalName + " ";
+                ret = ret.replaceAll("\' ", "\'");
+            }
+        }
+        return ret.trim();
+    }
+
+    /** noStressedLetters prima di TextNormalizer. */
+    private static String originalNoStressed(String s) {
+        final String accentate = "\u00c0\u00c8\u00c9\u00cc\u00d2\u00d9\u00e0\u00e8\u00e9\u00ec\u00f2\u00f9";
+        final String noAccento = "AEEIOUaeeiou";
+        StringBuilder sb = new StringBuilder(s);
+        for (int i = 0; i < sb.length(); i++) {
+            int p = accentate.indexOf(sb.charAt(i));
+            if (p > -1) {
+                sb.setCharAt(i, noAccento.charAt(p));
+            }
+        }
+        return sb.toString();
+    }
+}
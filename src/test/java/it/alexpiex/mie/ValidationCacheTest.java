@@ -0,0 +1,46 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class ValidationCacheTest {
+
+    private final ValidationCache cache = ValidationCache.builder()
+            .rules(Rule.EMAIL, Rule.IBAN).hashOnly(Rule.IBAN).maxValueLength(64).build();
+
+    @Test
+    void hashedKeyIsComputedOnceForGetAndPut() {
+        ValidationCache.Key key = cache.key(Rule.IBAN, "IT60X0542811101000000123456", true);
+        assertEquals(ValidationCache.MISS, cache.get(key));
+        cache.put(key, 1);
+        assertEquals(1, cache.get(cache.key(Rule.IBAN, "IT60X0542811101000000123456", true)));
+        assertEquals(ValidationCache.MISS, cache.get(cache.key(Rule.IBAN, "IT60X0542811101000000123457", true)));
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    void storedKeyDoesNotFollowTheLookupValue() {
+        StringBuilder value = new StringBuilder("mario@example.com");
+        ValidationCache.Key key = cache.key(Rule.EMAIL, value, false);
+        assertEquals(ValidationCache.MISS, cache.get(key));
+        cache.put(key, 1);
+        value.setCharAt(0, 'M');
+        assertEquals(1, cache.get(cache.key(Rule.EMAIL, "mario@example.com", false)));
+        assertEquals(ValidationCache.MISS, cache.get(cache.key(Rule.EMAIL, value, false)));
+    }
+
+    @Test
+    void longValuesAreNotCached() {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 65; i++) {
+            value.append('a');
+        }
+        assertNull(cache.key(Rule.EMAIL, value, false));
+        cache.put(null, 1);
+        assertEquals(ValidationCache.MISS, cache.get(null));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,147 @@
+package it.alexpiex.mie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class ValidationServiceTest {
+
+    private static final int FIELDS = 64;
+
+    @Test
+    void failFastKeepsTheFirstErrorInDeclarationOrder() throws Exception {
+        ValidationPlan.Builder builder = ValidationPlan.builder();
+        for (int i = 0; i < FIELDS; i++) {
+            builder.field("f" + i).required();
+        }
+        ValidationPlan plan = builder.build();
+        CharSequence[] values = new CharSequence[FIELDS];
+        for (int i = 0; i < FIELDS; i++) {
+            values[i] = "x";
+        }
+        values[3] = "";
+        values[40] = "";
+        values[55] = "";
+
+        for (ValidationPlan.Mode mode : ValidationPlan.Mode.values()) {
+            ValidationErrors expected = new ValidationErrors();
+            plan.validate(values, mode, expected);
+
+            // i gruppi partono dall'ultimo: i campi successivi falliscono per primi
+            LastFirstExecutor executor = new LastFirstExecutor();
+            ValidationService service = ValidationService.create(executor, 1, 8);
+            CompletableFuture<ValidationErrors> result = service.validate(plan, values, mode);
+            executor.runAll();
+            assertEquals(expected.getErrors(), result.get().getErrors(), mode.toString());
+        }
+    }
+
+    @Test
+    void tryValidateRejectsWhenFull() throws Exception {
+        ValidationPlan plan = ValidationPlan.builder().field("a").required().build();
+        CharSequence[] values = {"x"};
+        LastFirstExecutor executor = new LastFirstExecutor();
+        ValidationService service = ValidationService.create(executor, 2, 8);
+
+        CompletableFuture<ValidationErrors> first = service.tryValidate(plan, values, ValidationPlan.Mode.COLLECT_ALL, 0, TimeUnit.SECONDS);
+        CompletableFuture<ValidationErrors> second = service.validate(plan, values, ValidationPlan.Mode.COLLECT_ALL);
+        long start = System.nanoTime();
+        CompletableFuture<ValidationErrors> rejected = service.tryValidate(plan, values, ValidationPlan.Mode.COLLECT_ALL, 20, TimeUnit.MILLISECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertTrue(service.tryValidate(plan, values, ValidationPlan.Mode.COLLECT_ALL, 0, TimeUnit.SECONDS).isCompletedExceptionally());
+
+        // terminati i record in corso si torna ad accettare
+        executor.runAll();
+        assertFalse(first.get().hasErrors());
+        assertFalse(second.get().hasErrors());
+        CompletableFuture<ValidationErrors> third = service.tryValidate(plan, Collections.singletonMap("a", ""),
+                ValidationPlan.Mode.COLLECT_ALL, 0, TimeUnit.SECONDS);
+        executor.runAll();
+        assertTrue(third.get().hasErrors());
+    }
+
+    @Test
+    void isVirtual() {
+        assertFalse(ValidationService.create(new LastFirstExecutor(), 1, 8).isVirtual());
+        assertTrue(ValidationService.create(new LastFirstExecutor(), true, 1, 8).isVirtual());
+        ValidationService service = ValidationService.create(1);
+        try {
+            assertEquals(hasVirtualThreads(), service.isVirtual());
+        } finally {
+            service.close();
+        }
+        // un executor passato dal chiamante non e' chiuso dal servizio
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        ValidationService.create(pool, false, 1, 8).close();
+        assertFalse(pool.isShutdown());
+        pool.shutdown();
+    }
+
+    private static boolean hasVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /** Esegue i task quando richiesto, in ordine inverso di sottomissione. */
+    private static final class LastFirstExecutor extends AbstractExecutorService {
+
+        private final Deque<Runnable> tasks = new ArrayDeque<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.push(command);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.pop().run();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}